@@ -0,0 +1,174 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class ModelObjectContainerTest
+{
+  @Test
+  public void testMutation()
+  {
+    ModelObjectContainer  container       = new ModelObjectContainer(null, "Test", "Container");
+    AtomicInteger         structureEvents = new AtomicInteger();
+    ModelObject           a               = new ModelObject(container, "Test", "a");
+    ModelObject           b               = new ModelObject(container, "Test", "b");
+    ModelObject           c               = new ModelObject(container, "Test", "c");
+    
+    container.addListener(new IModelListener()
+    {
+      @Override
+      public void modelObjectStructureChanged(IModelObject modelObject)
+      {
+        structureEvents.incrementAndGet();
+      }
+      
+      @Override
+      public void modelObjectChanged(IModelObject modelObject)
+      {
+      }
+    });
+    
+    container.mutateChildren()
+      .addChild(a)
+      .addChild(b)
+      .replaceChild(a, c)
+      .apply();
+    
+    ModelEventDispatcher.getInstance().flush();
+    
+    assertEquals(1, structureEvents.get());
+    assertArrayEquals(new IModelObject[] {b, c}, container.getChildren());
+    
+    container.mutateChildren().apply();
+    ModelEventDispatcher.getInstance().flush();
+    
+    assertEquals(1, structureEvents.get());
+    
+    container.removeChild(b);
+    ModelEventDispatcher.getInstance().flush();
+    
+    assertEquals(2, structureEvents.get());
+    assertArrayEquals(new IModelObject[] {c}, container.getChildren());
+  }
+  
+  @Test
+  public void testSnapshot()
+  {
+    ModelObjectContainer  container = new ModelObjectContainer(null, "Test", "Container");
+    ModelObject           a         = new ModelObject(container, "Test", "a");
+    ModelObject           b         = new ModelObject(container, "Test", "b");
+    
+    container.addChild(a);
+    
+    IModelObject[] snapshot = container.getChildren();
+    
+    container.mutateChildren()
+      .removeChild(a)
+      .addChild(b)
+      .apply();
+    
+    assertArrayEquals(new IModelObject[] {a}, snapshot);
+    assertArrayEquals(new IModelObject[] {b}, container.getChildren());
+  }
+  
+  @Test
+  public void testCoalescedEvents()
+  {
+    ModelObjectContainer  container = new ModelObjectContainer(null, "Test", "Container");
+    ModelObject           a         = new ModelObject(container, "Test", "a");
+    ModelObject           b         = new ModelObject(container, "Test", "b");
+    List<Integer>         batches   = new ArrayList<>();
+    
+    container.addListener(new IModelListener()
+    {
+      @Override
+      public void modelObjectsChanged(Collection<IModelObject> changed, Collection<IModelObject> structureChanged)
+      {
+        batches.add(changed.size());
+      }
+      
+      @Override
+      public void modelObjectStructureChanged(IModelObject modelObject)
+      {
+      }
+      
+      @Override
+      public void modelObjectChanged(IModelObject modelObject)
+      {
+      }
+    });
+    
+    for(int i=0 ; i<10 ; i++)
+    {
+      container.modelObjectChanged(a);
+      container.modelObjectChanged(b);
+    }
+    
+    ModelEventDispatcher.getInstance().flush();
+    
+    assertEquals(Collections.singletonList(2), batches);
+  }
+  
+  @Test
+  public void testVersionedSnapshot()
+  {
+    ModelObjectContainer  root    = new ModelObjectContainer(null, "Test", "Root");
+    ModelObjectContainer  left    = new ModelObjectContainer(root, "Test", "Left");
+    ModelObjectContainer  right   = new ModelObjectContainer(root, "Test", "Right");
+    ModelObject           leaf    = new ModelObject(left, "Test", "Leaf");
+    
+    root.mutateChildren().addChild(left).addChild(right).apply();
+    left.addChild(leaf);
+    
+    ModelSnapshot before = root.getSnapshot();
+    
+    assertSame(before, root.getSnapshot());
+    assertEquals(1, before.getChildren().get(0).getChildren().size());
+    
+    leaf.setComponentStatus(ComponentStatus.Failed, "Down");
+    
+    ModelSnapshot after = root.getSnapshot();
+    
+    assertFalse(after.isUnchangedSince(before.getVersion()));
+    assertTrue(after.getVersion() > before.getVersion());
+    assertSame(before.getChildren().get(1), after.getChildren().get(1));
+    assertEquals(ComponentStatus.Failed, after.getChildren().get(0).getChildren().get(0).getComponentStatus());
+    assertEquals(ComponentStatus.NotReady, before.getChildren().get(0).getChildren().get(0).getComponentStatus());
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class ModelTreeSpliteratorTest
+{
+  private static final int PODS       = 50;
+  private static final int COMPONENTS = 20;
+  
+  private ModelObjectContainer createTree()
+  {
+    ModelObjectContainer            root  = new ModelObjectContainer(null, "Test", "Root");
+    ModelObjectContainer.Mutation   pods  = root.mutateChildren();
+    
+    for(int p=0 ; p<PODS ; p++)
+    {
+      ModelObjectContainer            pod         = new ModelObjectContainer(root, "Pod", "pod" + p);
+      ModelObjectContainer.Mutation   components  = pod.mutateChildren();
+      
+      for(int c=0 ; c<COMPONENTS ; c++)
+      {
+        ModelObject component = new ModelObject(pod, "Component", "c" + c);
+        
+        if(c % 5 == 0)
+          component.setComponentStatus(ComponentStatus.Failed, "Down");
+        
+        components.addChild(component);
+      }
+      
+      components.apply();
+      pods.addChild(pod);
+    }
+    
+    pods.apply();
+    
+    return root;
+  }
+  
+  @Test
+  public void testWholeTree()
+  {
+    ModelObjectContainer root = createTree();
+    
+    assertEquals(1 + PODS * (1 + COMPONENTS), ModelTreeSpliterator.stream(root).count());
+    
+    Set<IModelObject> parallel = ModelTreeSpliterator.parallelStream(root).collect(Collectors.toSet());
+    Set<IModelObject> serial   = new HashSet<>();
+    
+    ModelTreeSpliterator.stream(root).forEach(serial::add);
+    
+    assertEquals(serial, parallel);
+    assertEquals(PODS * COMPONENTS / 5, ModelTreeSpliterator.parallelStream(root)
+        .filter((o) -> o.getComponentStatus() == ComponentStatus.Failed)
+        .count());
+  }
+  
+  @Test
+  public void testSplit()
+  {
+    ModelObjectContainer        root        = createTree();
+    ModelTreeSpliterator        spliterator = new ModelTreeSpliterator(root);
+    
+    // A new Spliterator splits the children of the root, and visits the root itself next.
+    Spliterator<IModelObject>   split       = spliterator.trySplit();
+    
+    assertNotNull(split);
+    assertEquals(PODS / 2 * (1 + COMPONENTS), count(split));
+    assertTrue(spliterator.tryAdvance((o) -> assertEquals(root, o)));
+    assertEquals(PODS / 2 * (1 + COMPONENTS), count(spliterator));
+    
+    // A single object with no children cannot be split.
+    assertNull(new ModelTreeSpliterator(new ModelObject(null, "Component", "c")).trySplit());
+  }
+  
+  @Test
+  public void testParallel() throws InterruptedException, ExecutionException
+  {
+    ModelObjectContainer  root    = createTree();
+    Set<Thread>           threads = ConcurrentHashMap.newKeySet();
+    ForkJoinPool          pool    = new ForkJoinPool(4);
+    
+    try
+    {
+      long count = pool.submit(() -> ModelTreeSpliterator.parallelStream(root)
+          .peek((o) ->
+          {
+            threads.add(Thread.currentThread());
+            sleep();
+          })
+          .count()).get();
+      
+      assertEquals(1 + PODS * (1 + COMPONENTS), count);
+      assertTrue("Only " + threads.size() + " worker thread used", threads.size() > 1);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+  
+  private static void sleep()
+  {
+    try
+    {
+      Thread.sleep(1);
+    }
+    catch(InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  private static long count(Spliterator<IModelObject> spliterator)
+  {
+    long[] count = new long[1];
+    
+    spliterator.forEachRemaining((o) -> count[0]++);
+    
+    return count[0];
+  }
+}
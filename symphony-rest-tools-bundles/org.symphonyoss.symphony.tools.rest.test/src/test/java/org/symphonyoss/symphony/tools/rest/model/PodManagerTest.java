@@ -0,0 +1,102 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class PodManagerTest
+{
+  private static final String POD_NAME = "pod.example.com";
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  @Test
+  public void testWriteBehind() throws IOException, InvalidConfigException
+  {
+    File        configDir = folder_.newFolder("config");
+    PodManager  manager   = new PodManager(configDir);
+    Pod         pod       = (Pod)manager.createOrUpdatePod(Pod.newBuilder()
+        .setName(POD_NAME)
+        .setPodUrl(new URL("https://" + POD_NAME)),
+        Agent.newBuilder());
+    
+    pod.setComponentStatus(ComponentStatus.Warning, "Slow");
+    manager.save(pod);
+    manager.flush();
+    
+    File podDir = new File(configDir, POD_NAME);
+    
+    assertTrue(new File(podDir, "config.json").isFile());
+    assertEquals(0, podDir.list((dir, name) -> name.endsWith(".tmp")).length);
+    
+    IPod loaded = new PodManager(configDir).getPod(POD_NAME);
+    
+    assertEquals(ComponentStatus.Warning, loaded.getComponentStatus());
+    assertEquals("Slow", loaded.getComponentStatusMessage());
+    
+    manager.save(pod);
+    manager.deletePod(pod);
+    manager.flush();
+    
+    assertFalse(podDir.exists());
+  }
+  
+  @Test
+  public void testBackgroundFailure() throws IOException, InvalidConfigException, InterruptedException
+  {
+    ByteArrayOutputStream err         = new ByteArrayOutputStream();
+    Console               console     = new Console(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), err);
+    PodManager            badManager  = new PodManager(folder_.newFile("notADirectory"), console);
+    PodManager            goodManager = new PodManager(folder_.newFolder("config"), console);
+    
+    badManager.createOrUpdatePod(Pod.newBuilder()
+        .setName(POD_NAME)
+        .setPodUrl(new URL("https://" + POD_NAME)),
+        Agent.newBuilder());
+    
+    // The pending write of the other manager is neither written nor reported here.
+    goodManager.flush();
+    
+    for(int i=0 ; i<100 && err.size() == 0 ; i++)
+      Thread.sleep(50);
+    
+    assertTrue(err.toString(), err.toString().contains("Failed to save config of " + POD_NAME));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class StatusFileTest
+{
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  @Test
+  public void testUpdateInPlace() throws IOException
+  {
+    File file = folder_.newFile("status.dat");
+    
+    try(StatusFile statusFile = new StatusFile(file))
+    {
+      assertTrue(statusFile.put("pod", ComponentStatus.OK, "Healthcheck OK"));
+      assertTrue(statusFile.put("pod#pod.id", null, "123"));
+      assertFalse(statusFile.put("pod", ComponentStatus.OK, "Healthcheck OK"));
+    }
+    
+    long length = file.length();
+    
+    try(StatusFile statusFile = new StatusFile(file))
+    {
+      assertEquals(ComponentStatus.OK, statusFile.get("pod").getStatus());
+      assertEquals("123", statusFile.get("pod#pod.id").getValue());
+      assertNull(statusFile.get("pod#pod.id").getStatus());
+      assertNull(statusFile.get("Agent/agent"));
+      
+      assertTrue(statusFile.put("pod", ComponentStatus.Failed, null));
+    }
+    
+    assertEquals(length, file.length());
+    
+    try(StatusFile statusFile = new StatusFile(file))
+    {
+      assertEquals(ComponentStatus.Failed, statusFile.get("pod").getStatus());
+      assertNull(statusFile.get("pod").getValue());
+    }
+  }
+  
+  @Test
+  public void testTornSlotIgnored() throws IOException
+  {
+    File file = folder_.newFile("status.dat");
+    
+    try(StatusFile statusFile = new StatusFile(file))
+    {
+      statusFile.put("pod", ComponentStatus.OK, "Healthcheck OK");
+      statusFile.put("Agent/agent", ComponentStatus.Warning, "Slow");
+    }
+    
+    try(RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+    {
+      raf.seek(16 + 1024 + 200);
+      raf.write(0x55);
+    }
+    
+    try(StatusFile statusFile = new StatusFile(file))
+    {
+      assertEquals(ComponentStatus.OK, statusFile.get("pod").getStatus());
+      assertNull(statusFile.get("Agent/agent"));
+      
+      statusFile.put("Principal/bruce", ComponentStatus.OK, "Logged In");
+    }
+    
+    assertEquals(16 + 2 * 1024, file.length());
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.model.StatusHistory.Resolution;
+import org.symphonyoss.symphony.tools.rest.model.StatusHistory.Sample;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class StatusHistoryTest
+{
+  private static final long   START   = TimeUnit.DAYS.toMillis(20000) + TimeUnit.HOURS.toMillis(23);
+  private static final long   MINUTE  = TimeUnit.MINUTES.toMillis(1);
+  private static final String SERIES  = "pod.example.com/Session Auth";
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  @Test
+  public void testRawAndRollups() throws IOException
+  {
+    File dir = folder_.newFolder("history");
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      history.recordStatus(SERIES, START, ComponentStatus.OK, "HTTP 200");
+      history.recordLatency(SERIES, START + 1000, 2000);
+      history.recordLatency(SERIES, START + 2000, 4000);
+      history.recordStatus(SERIES, START + MINUTE, ComponentStatus.Failed, "Cannot connect");
+      history.recordStatus(SERIES, START + 2 * MINUTE, ComponentStatus.OK, "HTTP 200");
+      history.recordLatency("other", START, 1);
+      
+      // Crosses into the next day.
+      history.recordLatency(SERIES, START + 61 * MINUTE, 6000);
+      
+      List<Sample> raw = history.query(SERIES, Resolution.RAW, START, START + 2 * MINUTE);
+      
+      assertEquals(4, raw.size());
+      assertEquals("HTTP 200", raw.get(0).getMessage());
+      assertNull(raw.get(1).getMessage());
+      assertEquals(ComponentStatus.OK, raw.get(1).getStatus());
+      assertEquals(4000, raw.get(2).getMaxMicros());
+      assertEquals(ComponentStatus.Failed, raw.get(3).getStatus());
+      
+      List<Sample> hours = history.query(SERIES, Resolution.HOUR, START, START + 2 * TimeUnit.HOURS.toMillis(1));
+      
+      assertEquals(2, hours.size());
+      assertEquals(ComponentStatus.Failed, hours.get(0).getWorstStatus());
+      assertEquals(ComponentStatus.OK, hours.get(0).getStatus());
+      assertEquals(3, hours.get(0).getTransitions());
+      assertEquals(3000, hours.get(0).getMeanMicros());
+      
+      // The second is still in memory.
+      assertEquals(6000, hours.get(1).getMaxMicros());
+      assertEquals(ComponentStatus.OK, hours.get(1).getWorstStatus());
+    }
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      List<Sample> minutes = history.query(SERIES, Resolution.MINUTE, START, START + TimeUnit.DAYS.toMillis(1));
+      
+      assertEquals(4, minutes.size());
+      assertEquals(2, minutes.get(0).getCount());
+      assertEquals(ComponentStatus.Failed, minutes.get(1).getWorstStatus());
+      assertEquals(1, minutes.get(3).getCount());
+      
+      // The status from before the restart is carried over.
+      history.recordLatency(SERIES, START + 62 * MINUTE, 8000);
+      history.recordStatus(SERIES, START + 62 * MINUTE, ComponentStatus.Warning, "HTTP 200");
+      
+      List<Sample> raw = history.query(SERIES, Resolution.RAW, START, START + TimeUnit.DAYS.toMillis(1));
+      
+      assertEquals(8, raw.size());
+      assertEquals(ComponentStatus.OK, raw.get(6).getStatus());
+      assertEquals("HTTP 200", raw.get(7).getMessage());
+      
+      // The hour which was incomplete at the restart is continued, not split.
+      List<Sample> hours = history.query(SERIES, Resolution.HOUR, START, START + 2 * TimeUnit.HOURS.toMillis(1));
+      
+      assertEquals(2, hours.size());
+      assertEquals(2, hours.get(1).getCount());
+      assertEquals(8000, hours.get(1).getMaxMicros());
+      assertEquals(ComponentStatus.Warning, hours.get(1).getWorstStatus());
+      assertEquals(1, hours.get(1).getTransitions());
+    }
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      List<Sample> hours = history.query(SERIES, Resolution.HOUR, START, START + 2 * TimeUnit.HOURS.toMillis(1));
+      
+      assertEquals(2, hours.size());
+      assertEquals(ComponentStatus.Warning, hours.get(1).getStatus());
+      assertEquals(2, hours.get(1).getCount());
+    }
+  }
+  
+  @Test
+  public void testTornRecord() throws IOException
+  {
+    File dir = folder_.newFolder("history");
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      history.recordLatency(SERIES, START, 1000);
+    }
+    
+    // A crash part way through a write.
+    for(File file : dir.listFiles((d, name) -> name.startsWith("raw-")))
+    {
+      try(FileOutputStream out = new FileOutputStream(file, true))
+      {
+        out.write(new byte[5]);
+      }
+    }
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      history.recordLatency(SERIES, START + 1000, 2000);
+      
+      List<Sample> raw = history.query(SERIES, Resolution.RAW, START, START + MINUTE);
+      
+      assertEquals(2, raw.size());
+      assertEquals(2000, raw.get(1).getMaxMicros());
+    }
+  }
+  
+  @Test
+  public void testExpiry() throws IOException
+  {
+    File dir = folder_.newFolder("history");
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      history.recordLatency(SERIES, START, 1000);
+      history.recordLatency(SERIES, START + TimeUnit.DAYS.toMillis(Resolution.RAW.getRetentionDays()), 1000);
+      
+      assertTrue(history.query(SERIES, Resolution.RAW, START, START + 1).isEmpty());
+      assertEquals(1, history.query(SERIES, Resolution.HOUR, START, START + 1).size());
+    }
+  }
+  
+  @Test
+  public void testMessageLimit() throws IOException
+  {
+    File dir = folder_.newFolder("history");
+    
+    try(StatusHistory history = new StatusHistory(dir))
+    {
+      // Exception text which is different every time.
+      for(int i=0 ; i<StatusHistory.MAX_NAMES ; i++)
+        history.recordStatus(SERIES, START + i, ComponentStatus.Stopped, "Cannot connect: " + i);
+      
+      long size = new File(dir, "names.dat").length();
+      
+      history.recordStatus(SERIES, START + MINUTE, ComponentStatus.Stopped, "Cannot connect: more");
+      history.recordStatus(SERIES, START + MINUTE + 1, ComponentStatus.Stopped, "Cannot connect: 1");
+      
+      assertEquals(size, new File(dir, "names.dat").length());
+      
+      List<Sample> raw = history.query(SERIES, Resolution.RAW, START + MINUTE, START + MINUTE + 2);
+      
+      assertEquals("", raw.get(0).getMessage());
+      assertEquals("Cannot connect: 1", raw.get(1).getMessage());
+    }
+  }
+}
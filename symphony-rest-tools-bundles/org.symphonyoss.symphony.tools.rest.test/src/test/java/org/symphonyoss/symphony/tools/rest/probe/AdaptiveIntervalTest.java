@@ -0,0 +1,72 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class AdaptiveIntervalTest
+{
+  @Test
+  public void testBackOffWhileOK()
+  {
+    AdaptiveInterval interval = new AdaptiveInterval(60000, 300000);
+    
+    assertEquals(60000, interval.next(ComponentStatus.OK));
+    assertEquals(120000, interval.next(ComponentStatus.OK));
+    assertEquals(240000, interval.next(ComponentStatus.OK));
+    assertEquals(300000, interval.next(ComponentStatus.OK));
+    assertEquals(300000, interval.next(ComponentStatus.OK));
+  }
+  
+  @Test
+  public void testTightenAfterTransition()
+  {
+    AdaptiveInterval interval = new AdaptiveInterval(60000, 300000);
+    
+    interval.next(ComponentStatus.OK);
+    interval.next(ComponentStatus.OK);
+    
+    assertEquals(15000, interval.next(ComponentStatus.Failed));
+    assertEquals(30000, interval.next(ComponentStatus.Failed));
+    assertEquals(30000, interval.next(ComponentStatus.Failed));
+    assertEquals(15000, interval.next(ComponentStatus.Warning));
+    assertEquals(30000, interval.next(ComponentStatus.Warning));
+    assertEquals(60000, interval.next(ComponentStatus.Warning));
+    assertEquals(60000, interval.next(ComponentStatus.Warning));
+  }
+  
+  @Test
+  public void testFixed()
+  {
+    AdaptiveInterval interval = new AdaptiveInterval(60000, 0);
+    
+    assertEquals(60000, interval.next(ComponentStatus.OK));
+    assertEquals(60000, interval.next(ComponentStatus.Failed));
+    assertEquals(60000, interval.next(ComponentStatus.Failed));
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.SrtCommand;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.model.Agent;
+import org.symphonyoss.symphony.tools.rest.model.IPod;
+import org.symphonyoss.symphony.tools.rest.model.InvalidConfigException;
+import org.symphonyoss.symphony.tools.rest.model.Pod;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.ScriptedTransport;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
+import org.symphonyoss.symphony.tools.rest.util.Deadline;
+import org.symphonyoss.symphony.tools.rest.util.home.SrtHome;
+
+public class CheckPodTest
+{
+  private static final String POD_NAME   = "pod.example.com";
+  private static final String NON_JSON   = "Non-JSON response from HealthCheck";
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  private HealthCheckTransport transport_;
+  
+  /**
+   * A pod whose healthcheck returns the given response.
+   */
+  private static class HealthCheckTransport extends ScriptedTransport
+  {
+    private final int     httpStatus_;
+    private final String  contentType_;
+    private final String  body_;
+    
+    HealthCheckTransport(int httpStatus, String contentType, String body)
+    {
+      httpStatus_ = httpStatus;
+      contentType_ = contentType;
+      body_ = body;
+    }
+
+    @Override
+    protected TransportResponse respond(TransportRequest request)
+    {
+      return response(request, httpStatus_, contentType_, body_);
+    }
+  }
+  
+  /*
+   * Run CheckPod against the given healthcheck response and return the pod.
+   */
+  private IPod check(int httpStatus, String contentType, String body) throws IOException, InvalidConfigException
+  {
+    IPod pod = check(Deadline.NONE, httpStatus, contentType, body);
+    
+    assertEquals(1, transport_.getRequests().size());
+    
+    return pod;
+  }
+  
+  /*
+   * Run CheckPod with the given deadline against the given healthcheck response and return the pod.
+   */
+  private IPod check(Deadline deadline, int httpStatus, String contentType, String body) throws IOException, InvalidConfigException
+  {
+    Console console = new Console(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+        new ByteArrayOutputStream());
+    SrtHome srtHome = new SrtHome(console, folder_.newFolder("srt").getAbsolutePath(), "Test");
+    
+    srtHome.getPodManager().createOrUpdatePod(Pod.newBuilder()
+        .setName(POD_NAME)
+        .setPodUrl(new URL("https://localhost/"))
+        .setSessionAuthUrl(new URL("https://localhost:8444/sessionAuth")),
+        Agent.newBuilder()
+          .setName("localhost")
+          .setAgentApiUrl(new URL("https://localhost/agent")));
+    
+    transport_ = new HealthCheckTransport(httpStatus, contentType, body);
+    
+    CheckPod checkPod = new CheckPod(console, srtHome)
+    {
+      @Override
+      public synchronized ITransport getTransport()
+      {
+        return transport_;
+      }
+
+      @Override
+      protected Deadline createDeadline()
+      {
+        return deadline;
+      }
+    };
+    
+    checkPod.getParser().process(new String[] { POD_NAME });
+    checkPod.doExecute();
+    
+    return srtHome.getPodManager().getPod(POD_NAME);
+  }
+  
+  @Test
+  public void testObject() throws IOException, InvalidConfigException
+  {
+    IPod pod = check(200, "application/json", "{\"agent\":true,\"km\":\"true\",\"db\":1}");
+    
+    assertEquals(ComponentStatus.OK, pod.getComponentStatus());
+    assertEquals(ComponentStatus.OK, pod.getComponent("agent").getComponentStatus());
+    assertEquals(ComponentStatus.OK, pod.getComponent("km").getComponentStatus());
+    assertEquals(ComponentStatus.OK, pod.getComponent("db").getComponentStatus());
+  }
+  
+  @Test
+  public void testNestedValue() throws IOException, InvalidConfigException
+  {
+    // Structured values are skipped as unhealthy, and the fields after them are still read.
+    IPod pod = check(200, "application/json", "{\"nested\":{\"db\":true},\"list\":[true],\"agent\":true}");
+    
+    assertEquals(ComponentStatus.Error, pod.getComponentStatus());
+    assertEquals("Healthcheck OK but 2 of 3 non-critical components failed", pod.getComponentStatusMessage());
+    assertEquals(ComponentStatus.Failed, pod.getComponent("nested").getComponentStatus());
+    assertEquals(ComponentStatus.Failed, pod.getComponent("list").getComponentStatus());
+    assertEquals(ComponentStatus.OK, pod.getComponent("agent").getComponentStatus());
+  }
+  
+  @Test
+  public void testArray() throws IOException, InvalidConfigException
+  {
+    IPod pod = check(200, "application/json", "[true]");
+    
+    assertEquals(ComponentStatus.Failed, pod.getComponentStatus());
+    assertEquals("Received a JSON ARRAY from HealthCheck, but we expect an object", pod.getComponentStatusMessage());
+  }
+  
+  @Test
+  public void testNonJsonContentType() throws IOException, InvalidConfigException
+  {
+    IPod pod = check(200, "text/html", "{\"agent\":true}");
+    
+    assertEquals(ComponentStatus.Failed, pod.getComponentStatus());
+    assertEquals(NON_JSON, pod.getComponentStatusMessage());
+  }
+  
+  @Test
+  public void testTruncatedBody() throws IOException, InvalidConfigException
+  {
+    IPod pod = check(200, "application/json", "{\"agent\":true,\"db\":");
+    
+    assertEquals(ComponentStatus.Failed, pod.getComponentStatus());
+    assertEquals(NON_JSON, pod.getComponentStatusMessage());
+  }
+  
+  @Test
+  public void testDeadlineExceeded() throws IOException, InvalidConfigException
+  {
+    IPod pod = check(Deadline.afterMillis(0), 200, "application/json", "{\"agent\":true}");
+    
+    // The request is not even sent once the deadline has passed.
+    assertEquals(0, transport_.getRequests().size());
+    assertEquals(ComponentStatus.Failed, pod.getComponentStatus());
+    assertEquals(SrtCommand.DEADLINE_EXCEEDED, pod.getComponentStatusMessage());
+  }
+}
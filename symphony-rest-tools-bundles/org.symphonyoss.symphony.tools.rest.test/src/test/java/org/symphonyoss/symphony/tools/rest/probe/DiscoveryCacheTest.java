@@ -0,0 +1,130 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.util.home.SrtHome;
+
+public class DiscoveryCacheTest
+{
+  private static final String POD_NAME = "pod.example.com";
+  private static final long   TTL      = 60000;
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  @Test
+  public void testSaveAndLoad() throws IOException
+  {
+    File file = new File(folder_.getRoot(), POD_NAME + ".json");
+    
+    assertFalse(new DiscoveryCache(file, TTL).load());
+    
+    new DiscoveryCache(file, TTL)
+      .setUrl(DiscoveryCache.POD_URL,       new URL("https://localhost/"))
+      .setUrl(DiscoveryCache.AGENT_API_URL, new URL("https://localhost/agent"))
+      .setPodId(42)
+      .save();
+    
+    DiscoveryCache cache = new DiscoveryCache(file, TTL);
+    
+    assertTrue(cache.load());
+    assertEquals(new URL("https://localhost/"), cache.getUrl(DiscoveryCache.POD_URL));
+    assertEquals(new URL("https://localhost/agent"), cache.getUrl(DiscoveryCache.AGENT_API_URL));
+    assertNull(cache.getUrl(DiscoveryCache.KEY_AUTH_URL));
+    assertEquals(42, cache.getPodId());
+    
+    // A TTL of zero always misses.
+    assertFalse(new DiscoveryCache(file, 0).load());
+    
+    cache.invalidate();
+    
+    assertFalse(file.exists());
+    assertFalse(new DiscoveryCache(file, TTL).load());
+  }
+  
+  @Test
+  public void testExpiredAndDamaged() throws IOException
+  {
+    File file = new File(folder_.getRoot(), POD_NAME + ".json");
+    
+    try(Writer out = new FileWriter(file))
+    {
+      out.write("{\"timestamp\":" + (System.currentTimeMillis() - 2 * TTL) + ",\"podId\":42}");
+    }
+    
+    assertFalse(new DiscoveryCache(file, TTL).load());
+    
+    try(Writer out = new FileWriter(file))
+    {
+      out.write("{\"timestamp\":");
+    }
+    
+    assertFalse(new DiscoveryCache(file, TTL).load());
+  }
+  
+  @Test
+  public void testKeystoreIdentity() throws IOException
+  {
+    Console console   = new Console(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+        new ByteArrayOutputStream());
+    SrtHome srtHome   = new SrtHome(console, folder_.newFolder("srt").getAbsolutePath(), "Test");
+    File    keystore  = folder_.newFile("client.p12");
+    String  identity  = DiscoveryCache.getKeystoreIdentity(keystore.getAbsolutePath(), "pkcs12");
+    
+    assertNull(DiscoveryCache.getKeystoreIdentity(null, "pkcs12"));
+    assertNull(DiscoveryCache.getKeystoreIdentity("", "pkcs12"));
+    
+    // The same keystore by another path has the same identity.
+    assertEquals(identity, DiscoveryCache.getKeystoreIdentity(
+        new File(keystore.getParentFile(), "../" + keystore.getParentFile().getName() + "/client.p12").getPath(), "pkcs12"));
+    
+    File anonymous  = srtHome.getDiscoveryFile(POD_NAME, null);
+    File withCert   = srtHome.getDiscoveryFile(POD_NAME, identity);
+    File otherCert  = srtHome.getDiscoveryFile(POD_NAME,
+        DiscoveryCache.getKeystoreIdentity(folder_.newFile("other.p12").getAbsolutePath(), "pkcs12"));
+    
+    assertNotEquals(anonymous, withCert);
+    assertNotEquals(withCert, otherCert);
+    assertEquals(withCert, srtHome.getDiscoveryFile(POD_NAME, identity));
+    assertTrue(withCert.getName().startsWith(POD_NAME + "-"));
+  }
+}
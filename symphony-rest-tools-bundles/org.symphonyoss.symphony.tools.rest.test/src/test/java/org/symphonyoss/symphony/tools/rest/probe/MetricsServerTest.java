@@ -0,0 +1,125 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.model.Agent;
+import org.symphonyoss.symphony.tools.rest.model.IPod;
+import org.symphonyoss.symphony.tools.rest.model.InvalidConfigException;
+import org.symphonyoss.symphony.tools.rest.model.Pod;
+import org.symphonyoss.symphony.tools.rest.model.PodManager;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+public class MetricsServerTest
+{
+  private static final String POD_NAME = "pod.example.com";
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  private static String request(MetricsServer server, String requestLine) throws IOException
+  {
+    try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort()))
+    {
+      OutputStream out = socket.getOutputStream();
+      
+      out.write((requestLine + "\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+      out.flush();
+      
+      // The server closes the connection after each response.
+      InputStream           in    = socket.getInputStream();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[]                buf   = new byte[4096];
+      int                   n;
+      
+      while((n = in.read(buf)) != -1)
+        bytes.write(buf, 0, n);
+      
+      return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+  
+  @Test
+  public void testMetrics() throws IOException, InvalidConfigException
+  {
+    PodManager  manager = new PodManager(folder_.newFolder("config"));
+    IPod        pod     = manager.createOrUpdatePod(Pod.newBuilder()
+        .setName(POD_NAME)
+        .setPodUrl(new URL("https://" + POD_NAME))
+        .setSessionAuthUrl(new URL("https://" + POD_NAME + ":8444/sessionAuth")),
+        Agent.newBuilder()
+          .setName("agent.example.com")
+          .setAgentApiUrl(new URL("https://agent.example.com/agent")));
+    
+    ((Pod)pod).setComponentStatus(ComponentStatus.Warning, "Slow");
+    ((Pod)pod).getLatency().record(250000000L);
+    
+    try(MetricsServer server = new MetricsServer(manager, InetAddress.getLoopbackAddress(), 0))
+    {
+      String response = request(server, "GET /metrics HTTP/1.1");
+      
+      assertTrue(response, response.startsWith("HTTP/1.1 200 OK\r\n"));
+      assertTrue(response.contains("Content-Type: application/openmetrics-text; version=1.0.0; charset=utf-8\r\n"));
+      
+      assertTrue(response.contains("# TYPE srt_component_status stateset\n"));
+      assertTrue(response.contains("srt_component_status{pod=\"pod.example.com\",type=\"Pod\",name=\"pod.example.com\"," +
+          "srt_component_status=\"Warning\"} 1\n"));
+      assertTrue(response.contains("srt_component_status{pod=\"pod.example.com\",type=\"Pod\",name=\"pod.example.com\"," +
+          "srt_component_status=\"OK\"} 0\n"));
+      assertTrue(response.contains("srt_component_status{pod=\"pod.example.com\",type=\"SessionAuth\",name=\"Session Auth\","));
+      
+      assertTrue(response.contains("# TYPE srt_endpoint_checks counter\n"));
+      assertTrue(response.contains("# HELP srt_endpoint_checks The number of checks of each URL endpoint, including pods and agents,"));
+      assertTrue(response.contains("srt_endpoint_checks_total{pod=\"pod.example.com\",type=\"Pod\",name=\"pod.example.com\"} 1\n"));
+      assertTrue(response.contains("srt_endpoint_checks_total{pod=\"pod.example.com\",type=\"Agent\",name=\"agent.example.com\"} 0\n"));
+      assertTrue(response.contains("srt_endpoint_checks_total{pod=\"pod.example.com\",type=\"SessionAuth\",name=\"Session Auth\"} 0\n"));
+      
+      assertTrue(response.contains("srt_endpoint_last_check_seconds{pod=\"pod.example.com\",type=\"Pod\",name=\"pod.example.com\"} 0.25\n"));
+      assertTrue(response.endsWith("# EOF\n"));
+      
+      response = request(server, "HEAD /metrics HTTP/1.1");
+      
+      assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"));
+      assertFalse(response.contains("# EOF"));
+      
+      assertTrue(request(server, "GET /other HTTP/1.1").startsWith("HTTP/1.1 404 Not Found\r\n"));
+      assertTrue(request(server, "POST /metrics HTTP/1.1").startsWith("HTTP/1.1 405 Method Not Allowed\r\n"));
+    }
+  }
+}
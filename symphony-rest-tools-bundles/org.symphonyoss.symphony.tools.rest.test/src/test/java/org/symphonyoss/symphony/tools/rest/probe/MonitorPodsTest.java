@@ -0,0 +1,198 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.model.Agent;
+import org.symphonyoss.symphony.tools.rest.model.IModelListener;
+import org.symphonyoss.symphony.tools.rest.model.IModelObject;
+import org.symphonyoss.symphony.tools.rest.model.InvalidConfigException;
+import org.symphonyoss.symphony.tools.rest.model.Pod;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.ScriptedTransport;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
+import org.symphonyoss.symphony.tools.rest.util.home.SrtHome;
+
+public class MonitorPodsTest
+{
+  private static final String POD_NAME        = "pod.example.com";
+  private static final int    HEALTHY_CHECKS  = 2;
+  private static final int    TOTAL_CHECKS    = 5;
+  private static final long   TIMEOUT_MILLIS  = 30000;
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  /**
+   * A console on which the daemon can be stopped.
+   */
+  private static class StoppableConsole extends Console
+  {
+    private volatile boolean stopped_;
+    
+    StoppableConsole(ByteArrayOutputStream out)
+    {
+      super(new ByteArrayInputStream(new byte[0]), out, new ByteArrayOutputStream());
+    }
+
+    @Override
+    public boolean isTaskCanceled()
+    {
+      return stopped_;
+    }
+  }
+  
+  /**
+   * A pod whose agent fails after the first few checks.
+   */
+  private static class FailingTransport extends ScriptedTransport
+  {
+    private final AtomicInteger checks_ = new AtomicInteger();
+    
+    @Override
+    protected TransportResponse respond(TransportRequest request)
+    {
+      boolean healthy = checks_.incrementAndGet() <= HEALTHY_CHECKS;
+      
+      return response(request, 200, "{\"agent\":" + healthy + "}");
+    }
+  }
+  
+  /*
+   * Records the status of each object notified.
+   */
+  private static class RecordingListener implements IModelListener
+  {
+    private final List<String> changes_ = Collections.synchronizedList(new ArrayList<>());
+    
+    @Override
+    public void modelObjectChanged(IModelObject modelObject)
+    {
+      changes_.add(modelObject.getName() + " " + modelObject.getComponentStatus());
+    }
+
+    @Override
+    public void modelObjectStructureChanged(IModelObject modelObject)
+    {
+    }
+    
+    private int count(String change)
+    {
+      synchronized(changes_)
+      {
+        return Collections.frequency(changes_, change);
+      }
+    }
+  }
+  
+  @Test
+  public void testTransitions() throws IOException, InvalidConfigException, InterruptedException
+  {
+    ByteArrayOutputStream out         = new ByteArrayOutputStream();
+    StoppableConsole      console     = new StoppableConsole(out);
+    SrtHome               srtHome     = new SrtHome(console, folder_.newFolder("srt").getAbsolutePath(), "Test");
+    FailingTransport      transport   = new FailingTransport();
+    RecordingListener     listener    = new RecordingListener();
+    
+    srtHome.getPodManager().createOrUpdatePod(Pod.newBuilder()
+        .setName(POD_NAME)
+        .setPodUrl(new URL("https://localhost/")),
+        Agent.newBuilder());
+    
+    MonitorPods monitor = new MonitorPods(console, srtHome)
+    {
+      @Override
+      public synchronized ITransport getTransport()
+      {
+        return transport;
+      }
+    };
+    
+    monitor.getParser().process(new String[] { "--watch", "--interval", "1", "--maxInterval", "1",
+        "--endpointInterval", "0" });
+    monitor.addListener(listener);
+    
+    Thread thread = new Thread(() -> monitor.doExecute(), "MonitorPodsTest");
+    
+    thread.start();
+    
+    try
+    {
+      long timeout = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      
+      while(transport.getRequestCount() < TOTAL_CHECKS && System.currentTimeMillis() < timeout)
+        Thread.sleep(100);
+    }
+    finally
+    {
+      console.stopped_ = true;
+      thread.join(TIMEOUT_MILLIS);
+    }
+    
+    assertFalse(thread.isAlive());
+    assertTrue(transport.getRequestCount() >= TOTAL_CHECKS);
+    
+    // Each status is published once, however many checks find it.
+    assertEquals(1, listener.count(POD_NAME + " OK"));
+    assertEquals(1, listener.count("agent OK"));
+    assertEquals(1, listener.count(POD_NAME + " Error"));
+    assertEquals(1, listener.count("agent Failed"));
+    
+    // Watch mode prints each change and nothing from the checks themselves.
+    console.flush();
+    
+    String output = out.toString();
+    
+    assertFalse(output, output.contains("Checking Pod"));
+    assertEquals(output, 2, count(output, " agent "));
+    assertTrue(output, output.matches("(?s).*" + POD_NAME + " +agent +Failed.*"));
+  }
+  
+  private static int count(String s, String substring)
+  {
+    int count = 0;
+    
+    for(int i = s.indexOf(substring) ; i != -1 ; i = s.indexOf(substring, i + 1))
+      count++;
+    
+    return count;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.Srt;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.ScriptedTransport;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
+import org.symphonyoss.symphony.tools.rest.util.home.SrtHome;
+
+public class ProbeFleetTest
+{
+  private static final String GOOD_POD_NAME  = "good.example.com";
+  private static final String BAD_POD_NAME   = "bad.example.com";
+  private static final String CHECK_TITLE    = "Checking Endpoints From Previous Probe";
+  private static final int    GOOD_AUTH_PORT = 8444;
+  private static final int    BAD_AUTH_PORT  = 9444;
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  /**
+   * Pods which answer on the endpoints in their discovery caches, except that the
+   * key manager of the bad one, which is told apart by its port, refuses to authenticate.
+   */
+  private static class FleetTransport extends ScriptedTransport
+  {
+    @Override
+    protected TransportResponse respond(TransportRequest request)
+    {
+      String path = request.getUrl().getPath();
+      
+      switch(path)
+      {
+        case Srt.POD_HEALTHCHECK_PATH:
+          return response(request, 200, "{\"pod\":true}");
+          
+        case "/sessionauth" + Srt.AUTHENTICATE_PATH:
+          return response(request, 200, "{\"token\":\"session-token\"}");
+          
+        case "/keyauth" + Srt.AUTHENTICATE_PATH:
+          if(request.getUrl().getPort() == BAD_AUTH_PORT)
+            return response(request, 401, "{}");
+          
+          return response(request, 200, "{\"token\":\"km-token\"}");
+          
+        case "/pod/v2/sessioninfo":
+          return response(request, 200, "{\"userId\":1}");
+          
+        case "/webcontroller/public/podInfo":
+          return response(request, 200, "{\"data\":{\"podId\":42}}");
+          
+        case "/agent/v1/util/echo":
+          return response(request, 200, "{\"message\":\"Hello World\"}");
+          
+        default:
+          return response(request, 404, "{}");
+      }
+    }
+  }
+  
+  @Test
+  public void testFailedProbeOutput() throws IOException
+  {
+    File                  home        = folder_.newFolder("srt");
+    ByteArrayOutputStream out         = new ByteArrayOutputStream();
+    Console               console     = new Console(new ByteArrayInputStream(new byte[0]), out,
+        new ByteArrayOutputStream());
+    SrtHome               srtHome     = new SrtHome(console, home.getAbsolutePath(), "Test");
+    FleetTransport        transport   = new FleetTransport();
+    
+    saveDiscoveryCache(srtHome, GOOD_POD_NAME, GOOD_AUTH_PORT);
+    saveDiscoveryCache(srtHome, BAD_POD_NAME, BAD_AUTH_PORT);
+    
+    ProbeFleet probeFleet = new ProbeFleet(console, srtHome)
+    {
+      @Override
+      public synchronized ITransport getTransport()
+      {
+        return transport;
+      }
+    };
+    
+    probeFleet.getParser().process(new String[] { "--parallelism", "1", GOOD_POD_NAME, BAD_POD_NAME });
+    probeFleet.doExecute();
+    console.flush();
+    
+    String output = out.toString();
+    
+    // Only the probe which did not succeed shows its output, without -v.
+    assertEquals(output, output.indexOf(CHECK_TITLE), output.lastIndexOf(CHECK_TITLE));
+    assertTrue(output, output.indexOf(CHECK_TITLE) > output.indexOf(BAD_POD_NAME));
+  }
+  
+  private void saveDiscoveryCache(SrtHome srtHome, String podName, int authPort) throws IOException
+  {
+    new DiscoveryCache(srtHome.getDiscoveryFile(podName, null), 60000)
+      .setUrl(DiscoveryCache.WEB_URL,           new URL("https://localhost/"))
+      .setUrl(DiscoveryCache.POD_URL,           new URL("https://localhost/"))
+      .setUrl(DiscoveryCache.POD_API_URL,       new URL("https://localhost/pod"))
+      .setUrl(DiscoveryCache.SESSION_AUTH_URL,  new URL("https://localhost:8444/sessionauth"))
+      .setUrl(DiscoveryCache.KEY_MANAGER_URL,   new URL("https://localhost/relay"))
+      .setUrl(DiscoveryCache.KEY_AUTH_URL,      new URL("https://localhost:" + authPort + "/keyauth"))
+      .setUrl(DiscoveryCache.AGENT_API_URL,     new URL("https://localhost/agent"))
+      .setPodId(42)
+      .save();
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.symphonyoss.symphony.tools.rest.Srt;
+import org.symphonyoss.symphony.tools.rest.SrtCommand;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.ScriptedTransport;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
+import org.symphonyoss.symphony.tools.rest.util.Deadline;
+import org.symphonyoss.symphony.tools.rest.util.IObjective;
+import org.symphonyoss.symphony.tools.rest.util.home.SrtHome;
+
+public class ProbePodTest
+{
+  private static final String POD_NAME       = "pod.example.com";
+  private static final String SESSION_TOKEN  = "session-token";
+  private static final String KM_TOKEN       = "km-token";
+  
+  @Rule
+  public TemporaryFolder folder_ = new TemporaryFolder();
+  
+  /**
+   * A pod which only answers on the endpoints in the discovery cache, and which
+   * requires the tokens from the authenticate calls on the others.
+   */
+  private static class PodTransport extends ScriptedTransport
+  {
+    @Override
+    protected TransportResponse respond(TransportRequest request)
+    {
+      String path = request.getUrl().getPath();
+      
+      switch(path)
+      {
+        case Srt.POD_HEALTHCHECK_PATH:
+          return response(request, 200, "{\"pod\":true}");
+          
+        case "/sessionauth" + Srt.AUTHENTICATE_PATH:
+          return response(request, 200, "{\"token\":\"" + SESSION_TOKEN + "\"}");
+          
+        case "/keyauth" + Srt.AUTHENTICATE_PATH:
+          return response(request, 200, "{\"token\":\"" + KM_TOKEN + "\"}");
+          
+        case "/pod/v2/sessioninfo":
+          if(!("skey=" + SESSION_TOKEN + ";kmsession=" + KM_TOKEN).equals(request.getHeaders().get("Cookie")))
+            return response(request, 401, "{}");
+          
+          return response(request, 200, "{\"userId\":1}");
+          
+        case "/webcontroller/public/podInfo":
+          return response(request, 200, "{\"data\":{\"podId\":42}}");
+          
+        case "/agent/v1/util/echo":
+          if(!SESSION_TOKEN.equals(request.getHeaders().get(Srt.SESSION_TOKEN)) ||
+              !KM_TOKEN.equals(request.getHeaders().get(Srt.KEYMANAGER_TOKEN)))
+            return response(request, 401, "{}");
+          
+          return response(request, 200, "{\"message\":\"Hello World\"}");
+          
+        default:
+          return response(request, 404, "{}");
+      }
+    }
+  }
+  
+  @Test
+  public void testCacheHitSkipsScan() throws IOException
+  {
+    File          home        = folder_.newFolder("srt");
+    Console       console     = new Console(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+        new ByteArrayOutputStream());
+    SrtHome       srtHome     = new SrtHome(console, home.getAbsolutePath(), "Test");
+    PodTransport  transport   = new PodTransport();
+    File          cacheFile   = srtHome.getDiscoveryFile(POD_NAME, null);
+    
+    new DiscoveryCache(cacheFile, 60000)
+      .setUrl(DiscoveryCache.WEB_URL,           new URL("https://localhost/"))
+      .setUrl(DiscoveryCache.POD_URL,           new URL("https://localhost/"))
+      .setUrl(DiscoveryCache.POD_API_URL,       new URL("https://localhost/pod"))
+      .setUrl(DiscoveryCache.SESSION_AUTH_URL,  new URL("https://localhost:8444/sessionauth"))
+      .setUrl(DiscoveryCache.KEY_MANAGER_URL,   new URL("https://localhost/relay"))
+      .setUrl(DiscoveryCache.KEY_AUTH_URL,      new URL("https://localhost:8444/keyauth"))
+      .setUrl(DiscoveryCache.AGENT_API_URL,     new URL("https://localhost/agent"))
+      .setPodId(42)
+      .save();
+    
+    ProbePod probePod = new ProbePod(console, srtHome)
+    {
+      @Override
+      public synchronized ITransport getTransport()
+      {
+        return transport;
+      }
+    };
+    
+    probePod.getParser().process(new String[] { POD_NAME });
+    probePod.doExecute();
+    
+    // One request to each cached endpoint and nothing else.
+    assertEquals(6, transport.getRequests().size());
+    assertTrue(cacheFile.isFile());
+    assertEquals(new URL("https://localhost/pod"), srtHome.getPodManager().getPod(POD_NAME).getPodApiUrl());
+  }
+  
+  @Test
+  public void testDeadlineExceeded() throws IOException
+  {
+    File          home        = folder_.newFolder("srt");
+    Console       console     = new Console(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+        new ByteArrayOutputStream());
+    SrtHome       srtHome     = new SrtHome(console, home.getAbsolutePath(), "Test");
+    PodTransport  transport   = new PodTransport();
+    
+    ProbePod probePod = new ProbePod(console, srtHome)
+    {
+      @Override
+      public synchronized ITransport getTransport()
+      {
+        return transport;
+      }
+
+      @Override
+      protected Deadline createDeadline()
+      {
+        return Deadline.afterMillis(0);
+      }
+    };
+    
+    probePod.getParser().process(new String[] { POD_NAME });
+    probePod.doExecute();
+    
+    // Nothing is sent once the deadline has passed, and failures say why.
+    assertEquals(0, transport.getRequests().size());
+    
+    IObjective podObjective = null;
+    
+    for(IObjective objective : probePod.getObjectives())
+    {
+      if("Locate Pod".equals(objective.getLabel()))
+        podObjective = objective;
+    }
+    
+    assertEquals(ComponentStatus.Failed, podObjective.getComponentStatus());
+    assertEquals(SrtCommand.DEADLINE_EXCEEDED, podObjective.getComponentStatusMessage());
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class HostResolverTest
+{
+  private static class CountingResolver extends HostResolver
+  {
+    private final AtomicInteger lookups_ = new AtomicInteger();
+    
+    private CountingResolver(long positiveTtlMillis, long negativeTtlMillis)
+    {
+      super(positiveTtlMillis, negativeTtlMillis);
+    }
+
+    @Override
+    protected InetAddress lookup(String hostName) throws UnknownHostException
+    {
+      lookups_.incrementAndGet();
+      
+      if(hostName.startsWith("missing"))
+        throw new UnknownHostException(hostName);
+      
+      return InetAddress.getByAddress(hostName, new byte[] { 127, 0, 0, 1 });
+    }
+  }
+  
+  @Test
+  public void testPositive() throws UnknownHostException
+  {
+    CountingResolver resolver = new CountingResolver(60000, 60000);
+    
+    assertEquals("present.example.com", resolver.resolve("present.example.com").getHostName());
+    resolver.resolve("PRESENT.example.com");
+    
+    assertEquals(1, resolver.lookups_.get());
+  }
+  
+  @Test
+  public void testNegative()
+  {
+    CountingResolver resolver = new CountingResolver(60000, 60000);
+    
+    assertFalse(resolver.isKnownUnresolvable("missing-api.example.com"));
+    
+    for(int i=0 ; i<3 ; i++)
+    {
+      try
+      {
+        resolver.resolve("missing-api.example.com");
+        fail("Expected UnknownHostException");
+      }
+      catch(UnknownHostException e)
+      {
+        assertEquals("missing-api.example.com", e.getMessage());
+      }
+    }
+    
+    assertEquals(1, resolver.lookups_.get());
+    assertTrue(resolver.isKnownUnresolvable("missing-api.example.com"));
+  }
+  
+  @Test
+  public void testExpiry() throws UnknownHostException
+  {
+    CountingResolver resolver = new CountingResolver(0, 0);
+    
+    resolver.resolve("present.example.com");
+    resolver.resolve("present.example.com");
+    
+    assertEquals(2, resolver.lookups_.get());
+  }
+}
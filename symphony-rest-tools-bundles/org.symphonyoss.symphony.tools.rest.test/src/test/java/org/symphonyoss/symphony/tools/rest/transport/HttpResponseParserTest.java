@@ -0,0 +1,173 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class HttpResponseParserTest
+{
+  /*
+   * Feed the given response to the parser one byte at a time, as if each byte
+   * arrived in a separate read.
+   */
+  private static boolean consume(HttpResponseParser parser, String response) throws IOException
+  {
+    boolean complete = false;
+    
+    for(byte b : response.getBytes(StandardCharsets.ISO_8859_1))
+    {
+      ByteBuffer buf = ByteBuffer.wrap(new byte[] { b });
+      
+      complete = parser.consume(buf);
+    }
+    
+    return complete;
+  }
+  
+  private static String body(HttpResponseParser parser)
+  {
+    return new String(parser.getBody(), StandardCharsets.ISO_8859_1);
+  }
+  
+  @Test
+  public void testContentLength() throws IOException
+  {
+    HttpResponseParser parser = new HttpResponseParser(false);
+    ByteBuffer         buf    = ByteBuffer.wrap(("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n" +
+        "Content-Type: application/json\r\n\r\nhelloHTTP/1.1").getBytes(StandardCharsets.ISO_8859_1));
+    
+    assertTrue(parser.consume(buf));
+    assertEquals(200, parser.getHttpStatus());
+    assertEquals("application/json", parser.getHeader("content-type"));
+    assertEquals("hello", body(parser));
+    assertTrue(parser.isKeepAlive());
+    
+    // Nothing after the end of the response is consumed.
+    assertEquals(8, buf.remaining());
+  }
+  
+  @Test
+  public void testChunked() throws IOException
+  {
+    HttpResponseParser parser = new HttpResponseParser(false);
+    
+    assertTrue(consume(parser, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n" +
+        "5;name=value\r\nhello\r\n" +
+        "7\r\n, world\r\n" +
+        "0\r\nX-Trailer: yes\r\n\r\n"));
+    assertEquals("hello, world", body(parser));
+    assertTrue(parser.isKeepAlive());
+  }
+  
+  @Test
+  public void testUntilClose() throws IOException
+  {
+    HttpResponseParser parser = new HttpResponseParser(false);
+    
+    assertFalse(consume(parser, "HTTP/1.1 200 OK\r\n\r\nall of it"));
+    assertTrue(parser.endOfStream());
+    assertEquals("all of it", body(parser));
+    assertFalse(parser.isKeepAlive());
+  }
+  
+  @Test
+  public void testInformational() throws IOException
+  {
+    HttpResponseParser parser = new HttpResponseParser(false);
+    
+    assertTrue(consume(parser, "HTTP/1.1 100 Continue\r\nX-Interim: yes\r\n\r\n" +
+        "HTTP/1.1 201 Created\r\nContent-Length: 2\r\n\r\nok"));
+    assertEquals(201, parser.getHttpStatus());
+    assertEquals(null, parser.getHeader("X-Interim"));
+    assertEquals("ok", body(parser));
+  }
+  
+  @Test
+  public void testNoBody() throws IOException
+  {
+    assertTrue(consume(new HttpResponseParser(true), "HTTP/1.1 200 OK\r\nContent-Length: 100\r\n\r\n"));
+    assertTrue(consume(new HttpResponseParser(false), "HTTP/1.1 204 No Content\r\n\r\n"));
+    assertTrue(consume(new HttpResponseParser(false), "HTTP/1.1 304 Not Modified\r\n\r\n"));
+  }
+  
+  @Test
+  public void testKeepAlive() throws IOException
+  {
+    HttpResponseParser parser = new HttpResponseParser(false);
+    
+    consume(parser, "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n");
+    assertFalse(parser.isKeepAlive());
+    
+    parser = new HttpResponseParser(false);
+    consume(parser, "HTTP/1.0 200 OK\r\nContent-Length: 0\r\n\r\n");
+    assertFalse(parser.isKeepAlive());
+    
+    parser = new HttpResponseParser(false);
+    consume(parser, "HTTP/1.0 200 OK\r\nConnection: Keep-Alive\r\nContent-Length: 0\r\n\r\n");
+    assertTrue(parser.isKeepAlive());
+  }
+  
+  @Test
+  public void testTruncated() throws IOException
+  {
+    HttpResponseParser parser = new HttpResponseParser(false);
+    
+    assertFalse(consume(parser, "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nhello"));
+    assertFalse(parser.endOfStream());
+    assertFalse(parser.isComplete());
+    assertFalse(parser.isKeepAlive());
+    
+    parser = new HttpResponseParser(false);
+    
+    assertFalse(consume(parser, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n"));
+    assertFalse(parser.endOfStream());
+    
+    parser = new HttpResponseParser(false);
+    
+    assertFalse(consume(parser, "HTTP/1.1 200 OK\r\nContent-Le"));
+    assertFalse(parser.endOfStream());
+  }
+  
+  @Test(expected=ProtocolException.class)
+  public void testInvalidStatusLine() throws IOException
+  {
+    consume(new HttpResponseParser(false), "SMTP ready\r\n");
+  }
+  
+  @Test(expected=ProtocolException.class)
+  public void testInvalidChunkSize() throws IOException
+  {
+    consume(new HttpResponseParser(false), "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n");
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.cert.CertificateParsingException;
+
+import javax.net.ssl.SSLException;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JCurlTransportTest
+{
+  private static final String OK = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nok";
+  
+  @Rule
+  public TemporaryFolder       folder_    = new TemporaryFolder();
+  
+  private final JCurlTransport transport_ = new JCurlTransport();
+  private TestServer           server_;
+  
+  @After
+  public void tearDown()
+  {
+    transport_.close();
+    
+    if(server_ != null)
+      server_.close();
+  }
+  
+  private TransportResponse get(String path, TlsConfig tlsConfig) throws IOException, CertificateParsingException
+  {
+    return transport_.execute(TransportRequest.newBuilder()
+        .setUrl(server_.getUrl(path))
+        .setConnectTimeoutMillis(5000)
+        .setReadTimeoutMillis(5000)
+        .setParseJson(false)
+        .setTlsConfig(tlsConfig)
+        .build());
+  }
+  
+  private TlsConfig createTlsConfig() throws IOException
+  {
+    File truststore = folder_.newFile("truststore.jks");
+    
+    server_.writeTruststore(truststore);
+    
+    return TlsConfig.newBuilder()
+        .setTruststore(truststore.getAbsolutePath())
+        .setTrustpass(TestServer.STOREPASS)
+        .setTrusttype("JKS")
+        .build();
+  }
+  
+  @Test
+  public void testHttp() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) -> OK);
+    
+    TransportResponse response = get("/", null);
+    
+    assertEquals(200, response.getHttpStatus());
+    assertEquals("ok", response.getBodyAsString());
+  }
+  
+  @Test
+  public void testTruststore() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) -> OK, true);
+    
+    TransportResponse response = get("/", createTlsConfig());
+    
+    assertEquals(200, response.getHttpStatus());
+    assertEquals("ok", response.getBodyAsString());
+    assertNotNull(response.getServerCertificates());
+  }
+  
+  @Test
+  public void testConnectionReuse() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) -> OK, true);
+    
+    TlsConfig         tlsConfig = createTlsConfig();
+    TransportResponse first     = get("/first", tlsConfig);
+    TransportResponse second    = get("/second", tlsConfig);
+    
+    assertEquals("ok", second.getBodyAsString());
+    assertFalse(first.getTimings().isReused());
+    assertTrue(second.getTimings().isReused());
+    assertEquals(1, server_.getConnectionCount());
+    assertEquals(2, transport_.getRequestCount());
+    assertEquals(1, transport_.getConnectionCount());
+    assertEquals(1, transport_.getFullHandshakeCount());
+  }
+  
+  @Test
+  public void testSessionResumption() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) ->
+        "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok", true);
+    
+    TlsConfig tlsConfig = createTlsConfig();
+    
+    get("/first", tlsConfig);
+    get("/second", tlsConfig);
+    
+    assertEquals(2, server_.getConnectionCount());
+    assertEquals(1, transport_.getFullHandshakeCount());
+    assertEquals(1, transport_.getResumedHandshakeCount());
+  }
+  
+  @Test(expected=SSLException.class)
+  public void testUntrusted() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) -> OK, true);
+    
+    get("/", TlsConfig.newBuilder().build());
+  }
+}
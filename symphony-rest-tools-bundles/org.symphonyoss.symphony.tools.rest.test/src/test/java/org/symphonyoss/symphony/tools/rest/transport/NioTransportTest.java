@@ -0,0 +1,249 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateParsingException;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NioTransportTest
+{
+  private static final String OK = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nok";
+  
+  @Rule
+  public TemporaryFolder     folder_    = new TemporaryFolder();
+  
+  private final NioTransport transport_ = new NioTransport();
+  private TestServer         server_;
+  
+  @After
+  public void tearDown()
+  {
+    transport_.close();
+    
+    if(server_ != null)
+      server_.close();
+  }
+  
+  private TransportResponse get(String path) throws IOException, CertificateParsingException
+  {
+    return transport_.execute(newRequest(path).build());
+  }
+  
+  private TransportRequest.Builder newRequest(String path) throws IOException
+  {
+    return TransportRequest.newBuilder()
+        .setUrl(server_.getUrl(path))
+        .setConnectTimeoutMillis(5000)
+        .setReadTimeoutMillis(5000);
+  }
+  
+  private TlsConfig createTlsConfig() throws IOException
+  {
+    File truststore = folder_.newFile("truststore.jks");
+    
+    server_.writeTruststore(truststore);
+    
+    return TlsConfig.newBuilder()
+        .setTruststore(truststore.getAbsolutePath())
+        .setTrustpass(TestServer.STOREPASS)
+        .setTrusttype("JKS")
+        .build();
+  }
+  
+  @Test
+  public void testConnectionReuse() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) -> OK);
+    
+    TransportResponse first   = get("/first");
+    TransportResponse second  = get("/second");
+    
+    assertEquals("ok", first.getBodyAsString());
+    assertEquals("ok", second.getBodyAsString());
+    assertFalse(first.getTimings().isReused());
+    assertTrue(second.getTimings().isReused());
+    assertEquals(2, transport_.getRequestCount());
+    assertEquals(1, transport_.getConnectionCount());
+  }
+  
+  @Test
+  public void testNoReuseAfterClose() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) ->
+        "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok");
+    
+    get("/first");
+    get("/second");
+    
+    assertEquals(2, transport_.getConnectionCount());
+  }
+  
+  @Test
+  public void testRetryOnStaleConnection() throws IOException, CertificateParsingException
+  {
+    // The first connection is dropped when it is reused, as a server which has timed it out would.
+    server_ = new TestServer((connection, request) -> connection == 0 && request > 0 ? null : OK);
+    
+    get("/first");
+    
+    TransportResponse second = get("/second");
+    
+    assertEquals(200, second.getHttpStatus());
+    assertEquals("ok", second.getBodyAsString());
+    assertFalse(second.getTimings().isReused());
+    assertEquals(2, transport_.getConnectionCount());
+  }
+  
+  @Test
+  public void testNoRetryOfPost() throws IOException, CertificateParsingException
+  {
+    // The stale connection may have been dropped after the server processed the request.
+    server_ = new TestServer((connection, request) -> connection == 0 && request > 0 ? null : OK);
+    
+    get("/first");
+    
+    try
+    {
+      transport_.execute(newRequest("/second")
+          .setMethod(TransportRequest.POST)
+          .setData("{}")
+          .build());
+      
+      fail("Expected IOException");
+    }
+    catch(IOException e)
+    {
+      assertEquals(1, transport_.getConnectionCount());
+    }
+  }
+  
+  @Test
+  public void testNoRetryAfterTimeout() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) ->
+    {
+      if(request > 0)
+      {
+        try
+        {
+          Thread.sleep(1000);
+        }
+        catch(InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+      
+      return OK;
+    });
+    
+    get("/first");
+    
+    try
+    {
+      transport_.execute(newRequest("/second")
+          .setReadTimeoutMillis(200)
+          .build());
+      
+      fail("Expected SocketTimeoutException");
+    }
+    catch(SocketTimeoutException e)
+    {
+      assertEquals(1, transport_.getConnectionCount());
+    }
+  }
+  
+  @Test
+  public void testTlsConnectionReuse() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) -> OK, true);
+    
+    TlsConfig         tlsConfig = createTlsConfig();
+    TransportResponse first     = transport_.execute(newRequest("/first").setTlsConfig(tlsConfig).build());
+    TransportResponse second    = transport_.execute(newRequest("/second").setTlsConfig(tlsConfig).build());
+    
+    assertEquals("ok", first.getBodyAsString());
+    assertEquals("ok", second.getBodyAsString());
+    assertTrue(first.getTimings().getTlsNanos() >= 0);
+    assertTrue(second.getTimings().isReused());
+    assertEquals(1, transport_.getConnectionCount());
+    assertEquals(1, transport_.getFullHandshakeCount());
+    assertEquals(0, transport_.getResumedHandshakeCount());
+  }
+  
+  @Test
+  public void testTlsSessionResumption() throws IOException, CertificateParsingException
+  {
+    server_ = new TestServer((connection, request) ->
+        "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok", true);
+    
+    TlsConfig tlsConfig = createTlsConfig();
+    
+    transport_.execute(newRequest("/first").setTlsConfig(tlsConfig).build());
+    
+    TransportResponse second = transport_.execute(newRequest("/second").setTlsConfig(tlsConfig).build());
+    
+    assertEquals("ok", second.getBodyAsString());
+    assertEquals(2, transport_.getConnectionCount());
+    assertEquals(1, transport_.getFullHandshakeCount());
+    assertEquals(1, transport_.getResumedHandshakeCount());
+  }
+  
+  @Test
+  public void testEndpointKey() throws GeneralSecurityException
+  {
+    InetSocketAddress address   = new InetSocketAddress(InetAddress.getLoopbackAddress(), 443);
+    TlsConfig         tlsConfig = TlsConfig.newBuilder().setKeystore("client.p12").build();
+    SSLContext        context   = SSLContext.getInstance("TLS");
+    
+    assertEquals(new NioTransport.Endpoint(address, "localhost", 443, tlsConfig, context),
+        new NioTransport.Endpoint(address, "localhost", 443, TlsConfig.newBuilder().setKeystore("client.p12").build(), context));
+    
+    // The same config with a context reloaded from a changed keystore.
+    assertNotEquals(new NioTransport.Endpoint(address, "localhost", 443, tlsConfig, context),
+        new NioTransport.Endpoint(address, "localhost", 443, tlsConfig, SSLContext.getInstance("TLS")));
+    
+    assertNotEquals(new NioTransport.Endpoint(address, "localhost", 443, tlsConfig, context),
+        new NioTransport.Endpoint(address, "localhost", 443, tlsConfig, null));
+  }
+}
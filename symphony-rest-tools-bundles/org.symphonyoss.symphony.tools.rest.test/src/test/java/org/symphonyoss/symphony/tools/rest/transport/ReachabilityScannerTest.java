@@ -0,0 +1,94 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ReachabilityScannerTest
+{
+  private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+  
+  /**
+   * Resolves every name to the loopback address, except those starting with "missing".
+   */
+  private static class LoopbackResolver extends HostResolver
+  {
+    private LoopbackResolver()
+    {
+      super(60000, 60000);
+    }
+
+    @Override
+    protected InetAddress lookup(String hostName) throws UnknownHostException
+    {
+      if(hostName.startsWith("missing"))
+        throw new UnknownHostException(hostName);
+      
+      return InetAddress.getLoopbackAddress();
+    }
+  }
+  
+  @Test
+  public void testScan() throws IOException
+  {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    int         closedPort;
+    
+    // Nothing is listening on a port which was just released.
+    try(ServerSocket closed = new ServerSocket(0, 1, loopback))
+    {
+      closedPort = closed.getLocalPort();
+    }
+    
+    try(ServerSocket open = new ServerSocket(0, 10, loopback))
+    {
+      InetSocketAddress openEndpoint    = new InetSocketAddress(loopback, open.getLocalPort());
+      InetSocketAddress closedEndpoint  = new InetSocketAddress(loopback, closedPort);
+      InetSocketAddress namedEndpoint   = InetSocketAddress.createUnresolved("pod.example.com", open.getLocalPort());
+      InetSocketAddress missingEndpoint = InetSocketAddress.createUnresolved("missing.example.com", open.getLocalPort());
+      
+      long                    start     = System.nanoTime();
+      Set<InetSocketAddress>  reachable = new ReachabilityScanner(CONNECT_TIMEOUT_MILLIS, new LoopbackResolver())
+          .scan(Arrays.asList(openEndpoint, closedEndpoint, namedEndpoint, missingEndpoint));
+      
+      assertEquals(2, reachable.size());
+      assertTrue(reachable.contains(openEndpoint));
+      assertTrue(reachable.contains(namedEndpoint));
+      
+      // A refused connection is not left to time out.
+      assertTrue((System.nanoTime() - start) / 1000000 < CONNECT_TIMEOUT_MILLIS);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
+
+/**
+ * A transport which answers requests without any network I/O, for tests of
+ * commands which would otherwise need a real pod.
+ * 
+ * Every response carries the same self signed server certificate, as if the
+ * request had been made over https.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public abstract class ScriptedTransport implements ITransport
+{
+  private final List<TransportRequest> requests_  = Collections.synchronizedList(new ArrayList<>());
+  private final EndpointLatencies      latencies_ = new EndpointLatencies();
+  private final Certificate[]          certs_;
+  
+  public ScriptedTransport()
+  {
+    try
+    {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      
+      generator.initialize(1024);
+      
+      KeyPair   keyPair = generator.generateKeyPair();
+      X500Name  name    = new X500Name("CN=localhost");
+      long      now     = System.currentTimeMillis();
+      
+      X509Certificate cert = new JcaX509CertificateConverter().getCertificate(
+          new JcaX509v3CertificateBuilder(name, BigInteger.ONE, new Date(now - 60000), new Date(now + 3600000),
+              name, keyPair.getPublic())
+          .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+      
+      certs_ = new Certificate[] { cert };
+    }
+    catch(Exception e)
+    {
+      throw new ProgramFault(e);
+    }
+  }
+  
+  /**
+   * Answer the given request.
+   * 
+   * @param request A request sent to this transport.
+   * 
+   * @return The response, which can be created with response().
+   */
+  protected abstract TransportResponse respond(TransportRequest request);
+  
+  /**
+   * Create a JSON response to the given request.
+   * 
+   * @param request     The request.
+   * @param httpStatus  The HTTP status of the response.
+   * @param json        The response body.
+   * 
+   * @return A new response.
+   */
+  protected TransportResponse response(TransportRequest request, int httpStatus, String json)
+  {
+    return response(request, httpStatus, "application/json", json);
+  }
+  
+  /**
+   * Create a response to the given request.
+   * 
+   * @param request     The request.
+   * @param httpStatus  The HTTP status of the response.
+   * @param contentType The Content-Type of the response.
+   * @param body        The response body.
+   * 
+   * @return A new response.
+   */
+  protected TransportResponse response(TransportRequest request, int httpStatus, String contentType, String body)
+  {
+    Map<String, List<String>> headers = Collections.singletonMap("Content-Type",
+        Collections.singletonList(contentType));
+    
+    return TransportResponse.parse(request, httpStatus, headers, body.getBytes(StandardCharsets.UTF_8),
+        certs_, null);
+  }
+  
+  /**
+   * 
+   * @return Every request which has been sent to this transport, in the order in which they were sent.
+   */
+  public List<TransportRequest> getRequests()
+  {
+    synchronized(requests_)
+    {
+      return new ArrayList<>(requests_);
+    }
+  }
+
+  @Override
+  public CompletableFuture<TransportResponse> send(TransportRequest request)
+  {
+    requests_.add(request);
+    
+    return CompletableFuture.completedFuture(respond(request));
+  }
+
+  @Override
+  public long getRequestCount()
+  {
+    return requests_.size();
+  }
+
+  @Override
+  public long getConnectionCount()
+  {
+    return 0;
+  }
+
+  @Override
+  public long getFullHandshakeCount()
+  {
+    return 0;
+  }
+
+  @Override
+  public long getResumedHandshakeCount()
+  {
+    return 0;
+  }
+
+  @Override
+  public EndpointLatencies getLatencies()
+  {
+    return latencies_;
+  }
+
+  @Override
+  public void close()
+  {
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
+
+/**
+ * A blocking HTTP/1.1 server which handles one connection at a time, enough to
+ * drive a single client through a script.
+ * 
+ * A server created with TLS presents a self signed certificate for localhost, which
+ * a client can trust by using the truststore written by writeTruststore().
+ * 
+ * @author bruce.skingle
+ *
+ */
+class TestServer extends Thread implements AutoCloseable
+{
+  static final String STOREPASS = "changeit";
+  
+  /**
+   * Decides how a test server answers each request.
+   */
+  interface Script
+  {
+    /**
+     * 
+     * @param connection  The number of the connection, from 0.
+     * @param request     The number of the request on that connection, from 0.
+     * 
+     * @return The response to send, or null to close the connection without one.
+     */
+    String respond(int connection, int request);
+  }
+  
+  private final ServerSocket  serverSocket_;
+  private final Script        script_;
+  private final Certificate   cert_;
+  private final AtomicInteger connections_ = new AtomicInteger();
+  
+  /**
+   * Create a plain HTTP server.
+   * 
+   * @param script  Decides the responses.
+   * 
+   * @throws IOException If the server socket cannot be opened.
+   */
+  TestServer(Script script) throws IOException
+  {
+    this(script, false);
+  }
+  
+  /**
+   * 
+   * @param script  Decides the responses.
+   * @param tls     If true then serve HTTPS.
+   * 
+   * @throws IOException If the server socket cannot be opened.
+   */
+  TestServer(Script script, boolean tls) throws IOException
+  {
+    super("TestServer");
+    
+    if(tls)
+    {
+      try
+      {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        
+        generator.initialize(2048);
+        
+        KeyPair   keyPair = generator.generateKeyPair();
+        X500Name  name    = new X500Name("CN=localhost");
+        long      now     = System.currentTimeMillis();
+        
+        X509Certificate cert = new JcaX509CertificateConverter().getCertificate(
+            new JcaX509v3CertificateBuilder(name, BigInteger.ONE, new Date(now - 60000), new Date(now + 3600000),
+                name, keyPair.getPublic())
+            .addExtension(Extension.subjectAlternativeName, false,
+                new GeneralNames(new GeneralName(GeneralName.dNSName, "localhost")))
+            .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+        
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", keyPair.getPrivate(), STOREPASS.toCharArray(), new Certificate[] { cert });
+        
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        
+        keyManagerFactory.init(keyStore, STOREPASS.toCharArray());
+        
+        SSLContext context = SSLContext.getInstance("TLS");
+        
+        context.init(keyManagerFactory.getKeyManagers(), null, null);
+        
+        cert_ = cert;
+        serverSocket_ = context.getServerSocketFactory().createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      }
+      catch(GeneralSecurityException | OperatorCreationException e)
+      {
+        throw new ProgramFault(e);
+      }
+    }
+    else
+    {
+      cert_ = null;
+      serverSocket_ = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+    
+    script_ = script;
+    setDaemon(true);
+    start();
+  }
+  
+  URL getUrl(String path) throws IOException
+  {
+    return new URL((cert_ == null ? "http" : "https") + "://localhost:" + serverSocket_.getLocalPort() + path);
+  }
+  
+  /**
+   * 
+   * @return The number of connections accepted so far.
+   */
+  int getConnectionCount()
+  {
+    return connections_.get();
+  }
+  
+  /**
+   * Write a JKS truststore holding the server certificate.
+   * 
+   * @param file  The file to write.
+   * 
+   * @throws IOException If the file cannot be written.
+   */
+  void writeTruststore(File file) throws IOException
+  {
+    try(OutputStream out = new FileOutputStream(file))
+    {
+      KeyStore trustStore = KeyStore.getInstance("JKS");
+      
+      trustStore.load(null, null);
+      trustStore.setCertificateEntry("server", cert_);
+      trustStore.store(out, STOREPASS.toCharArray());
+    }
+    catch(GeneralSecurityException e)
+    {
+      throw new ProgramFault(e);
+    }
+  }
+  
+  @Override
+  public void run()
+  {
+    try
+    {
+      while(true)
+      {
+        try(Socket socket = serverSocket_.accept())
+        {
+          serve(socket, connections_.getAndIncrement());
+        }
+        catch(IOException e)
+        {
+          if(serverSocket_.isClosed())
+            return;
+        }
+      }
+    }
+    finally
+    {
+      close();
+    }
+  }
+  
+  private void serve(Socket socket, int connection) throws IOException
+  {
+    BufferedReader  in  = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+    OutputStream    out = socket.getOutputStream();
+    
+    for(int request = 0 ;; request++)
+    {
+      String line = in.readLine();
+      
+      while(line != null && !line.isEmpty())
+        line = in.readLine();
+      
+      if(line == null)
+        return;
+      
+      String response = script_.respond(connection, request);
+      
+      if(response == null)
+        return;
+      
+      out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+      out.flush();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    try
+    {
+      serverSocket_.close();
+    }
+    catch (IOException e)
+    {
+      // Nothing to do
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.symphonyoss.symphony.tools.rest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DeadlineTest
+{
+  private static final long MINUTE = 60000;
+  
+  @Test
+  public void testNone()
+  {
+    assertFalse(Deadline.NONE.isBounded());
+    assertFalse(Deadline.NONE.isExpired());
+    assertEquals(Long.MAX_VALUE, Deadline.NONE.getRemainingMillis());
+    assertSame(Deadline.NONE, Deadline.NONE.getPhase(0.5));
+    assertEquals(0, Deadline.NONE.limitTimeout(0));
+    assertEquals(1000, Deadline.NONE.limitTimeout(1000));
+  }
+  
+  @Test
+  public void testIsExpired()
+  {
+    assertTrue(Deadline.afterMillis(0).isExpired());
+    assertTrue(Deadline.afterMillis(-1).isExpired());
+    assertEquals(0, Deadline.afterMillis(-1).getRemainingMillis());
+    
+    Deadline deadline = Deadline.afterMillis(MINUTE);
+    
+    assertTrue(deadline.isBounded());
+    assertFalse(deadline.isExpired());
+    assertTrue(deadline.getRemainingMillis() > MINUTE - 1000);
+  }
+  
+  @Test
+  public void testEarliest()
+  {
+    Deadline early = Deadline.afterMillis(MINUTE);
+    Deadline late  = Deadline.afterMillis(2 * MINUTE);
+    
+    assertSame(early, early.earliest(late));
+    assertSame(early, late.earliest(early));
+    assertSame(early, early.earliest(Deadline.NONE));
+    assertSame(early, Deadline.NONE.earliest(early));
+    assertSame(Deadline.NONE, Deadline.NONE.earliest(Deadline.NONE));
+  }
+  
+  @Test
+  public void testGetPhase()
+  {
+    Deadline deadline = Deadline.afterMillis(MINUTE);
+    Deadline phase    = deadline.getPhase(0.5);
+    
+    assertTrue(phase.isBounded());
+    assertTrue(phase.getRemainingMillis() <= MINUTE / 2);
+    assertTrue(phase.getRemainingMillis() > MINUTE / 2 - 1000);
+    assertSame(phase, deadline.earliest(phase));
+    
+    // A phase of an expired deadline has no time at all.
+    assertTrue(deadline.getPhase(0).isExpired());
+    assertTrue(Deadline.afterMillis(0).getPhase(0.5).isExpired());
+  }
+  
+  @Test
+  public void testLimitTimeout()
+  {
+    Deadline deadline = Deadline.afterMillis(MINUTE);
+    
+    assertEquals(1000, deadline.limitTimeout(1000));
+    assertTrue(deadline.limitTimeout(0) > MINUTE - 1000);
+    assertTrue(deadline.limitTimeout(2 * (int)MINUTE) <= MINUTE);
+    
+    // Zero would mean no timeout at all.
+    assertEquals(1, Deadline.afterMillis(0).limitTimeout(0));
+  }
+}
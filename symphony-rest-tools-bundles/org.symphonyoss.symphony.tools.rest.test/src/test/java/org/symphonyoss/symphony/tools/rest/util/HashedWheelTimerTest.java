@@ -0,0 +1,82 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class HashedWheelTimerTest
+{
+  @Test
+  public void testRunsAfterDelay() throws InterruptedException
+  {
+    try(HashedWheelTimer timer = new HashedWheelTimer("test", 10, 8, (r) -> r.run()))
+    {
+      CountDownLatch  latch = new CountDownLatch(1);
+      long            start = System.nanoTime();
+      
+      // Longer than one revolution of the wheel.
+      timer.schedule(() -> latch.countDown(), 200);
+      
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 190);
+      assertEquals(0, timer.size());
+    }
+  }
+  
+  @Test
+  public void testCancelAndReschedule() throws InterruptedException
+  {
+    try(HashedWheelTimer timer = new HashedWheelTimer("test", 10, 8, (r) -> r.run()))
+    {
+      AtomicInteger             cancelled   = new AtomicInteger();
+      CountDownLatch            latch       = new CountDownLatch(2);
+      HashedWheelTimer.Timeout  timeout     = timer.schedule(() -> cancelled.incrementAndGet(), 50);
+      HashedWheelTimer.Timeout  repeated    = timer.schedule(() -> latch.countDown(), 20);
+      
+      assertTrue(timeout.cancel());
+      assertFalse(timeout.cancel());
+      assertFalse(timeout.isScheduled());
+      
+      repeated.reschedule(30);
+      assertEquals(1, timer.size());
+      
+      Thread.sleep(100);
+      assertEquals(1, latch.getCount());
+      
+      repeated.reschedule(10);
+      
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertEquals(0, cancelled.get());
+    }
+  }
+}
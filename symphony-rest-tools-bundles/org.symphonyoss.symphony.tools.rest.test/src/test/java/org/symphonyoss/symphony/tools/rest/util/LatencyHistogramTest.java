@@ -0,0 +1,71 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+  @Test
+  public void testPercentiles()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    
+    assertEquals(0, histogram.getPercentileMicros(50));
+    
+    for(int i=1 ; i<=1000 ; i++)
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000, histogram.getMaxMicros());
+    assertWithin(500000, histogram.getPercentileMicros(50));
+    assertWithin(900000, histogram.getPercentileMicros(90));
+    assertWithin(990000, histogram.getPercentileMicros(99));
+    assertEquals(1000000, histogram.getPercentileMicros(100));
+  }
+  
+  @Test
+  public void testSmallValues()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    
+    for(int i=0 ; i<16 ; i++)
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+    
+    assertEquals(7, histogram.getPercentileMicros(50));
+    assertEquals(15, histogram.getPercentileMicros(100));
+  }
+  
+  private static void assertWithin(long expected, long actual)
+  {
+    assertTrue("Expected about " + expected + " but got " + actual,
+        actual >= expected && actual <= expected * 1.125);
+  }
+}
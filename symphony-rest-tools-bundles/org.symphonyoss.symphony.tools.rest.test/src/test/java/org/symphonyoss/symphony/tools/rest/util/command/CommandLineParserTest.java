@@ -8,6 +8,7 @@ package org.symphonyoss.symphony.tools.rest.util.command;
 
 //import static org.junit.Assert.assertEquals;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 import org.symphonyoss.symphony.tools.rest.util.typeutils.ISetter;
@@ -59,6 +60,17 @@ public class CommandLineParserTest
     clp_.process(new String[] {"-q", "aFile", "anotherFile"});
   }
   
+  @Test
+  public void testLongSwitch()
+  {
+    Switch watch = new Switch('w', "Watch", "Watch mode.").withLongName("watch");
+    
+    new CommandLineParser("testCommand").withSwitch(watch).process(new String[] {"--watch"});
+    
+    // The private assertEquals(String, String) below hides any static import of Assert.assertEquals.
+    Assert.assertEquals(1, watch.getCount());
+  }
+  
   @Test(expected=ProgramFault.class)
   public void testDuplicate()
   {
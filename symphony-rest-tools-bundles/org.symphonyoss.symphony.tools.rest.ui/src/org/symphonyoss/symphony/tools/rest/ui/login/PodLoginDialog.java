@@ -47,6 +47,8 @@ import org.symphonyoss.symphony.tools.rest.Srt;
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.IPod;
 import org.symphonyoss.symphony.tools.rest.model.Principal;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.JCurlTransport;
 import org.symphonyoss.symphony.tools.rest.ui.ExceptionDialog;
 
 public class PodLoginDialog extends Dialog
@@ -211,9 +213,9 @@ public class PodLoginDialog extends Dialog
     running_ = false;
     if(skey_ != null || kmsession_ != null)
     {
-      try
+      try(ITransport transport = new JCurlTransport())
       {
-        Principal.newInstance(console_, pod_, skey_, kmsession_);
+        Principal.newInstance(console_, pod_, skey_, kmsession_, transport);
       }
       catch (IOException e)
       {
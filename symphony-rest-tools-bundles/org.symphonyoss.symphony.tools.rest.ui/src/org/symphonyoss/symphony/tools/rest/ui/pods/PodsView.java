@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Collection;
 import java.util.Iterator;
 
 import javax.annotation.PostConstruct;
@@ -160,6 +161,29 @@ public class PodsView extends ModelObjectView
         else
           display.asyncExec(() -> viewer.refresh(modelObject));
       }
+
+      @Override
+      public void modelObjectsChanged(Collection<IModelObject> changed, Collection<IModelObject> structureChanged)
+      {
+        // One runnable per batch, rather than one per event.
+        display.asyncExec(() ->
+        {
+          if(viewer.getControl().isDisposed())
+            return;
+          
+          if(structureChanged.contains(podManager))
+          {
+            viewer.refresh();
+            return;
+          }
+          
+          for(IModelObject modelObject : structureChanged)
+            viewer.refresh(modelObject);
+          
+          if(!changed.isEmpty())
+            viewer.update(changed.toArray(), null);
+        });
+      }
     });
     
     podManager.loadAll();
@@ -23,19 +23,27 @@
 
 package org.symphonyoss.symphony.tools.rest;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
-import org.symphonyoss.symphony.jcurl.JCurl;
-import org.symphonyoss.symphony.jcurl.JCurl.Builder;
 import org.symphonyoss.symphony.tools.rest.console.Console;
 import org.symphonyoss.symphony.tools.rest.console.ConsoleDelegate;
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.IPod;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.JCurlTransport;
+import org.symphonyoss.symphony.tools.rest.transport.NioTransport;
+import org.symphonyoss.symphony.tools.rest.transport.TlsConfig;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
+import org.symphonyoss.symphony.tools.rest.util.Deadline;
 import org.symphonyoss.symphony.tools.rest.util.IObjective;
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
 import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 import org.symphonyoss.symphony.tools.rest.util.command.Flag;
 import org.symphonyoss.symphony.tools.rest.util.command.Switch;
@@ -44,12 +52,19 @@ import org.symphonyoss.symphony.tools.rest.util.home.SrtCommandLineHome;
 
 public abstract class SrtCommand extends ConsoleDelegate
 {
+  /** The status message for work which was abandoned because the deadline expired. */
+  public static final String DEADLINE_EXCEEDED     = "Deadline exceeded";
+
   private final String       programName_;
   private String             name_;
   private String             domain_;
   private String             fqdn_;
   private int                connectTimeoutMillis_ = 2000;
-  private int                readTimeoutMillis_    = 0;
+  private int                readTimeoutMillis_    = 10000;
+  private int                deadlineSeconds_;
+  private Deadline           inheritedDeadline_    = Deadline.NONE;
+  private Deadline           deadline_             = Deadline.NONE;
+  private Deadline           phaseDeadline_        = Deadline.NONE;
 
   private ISrtHome           srtHome_;
   private String             keystore_             = "";
@@ -62,7 +77,10 @@ public abstract class SrtCommand extends ConsoleDelegate
 
   protected final Switch     verbose_              = new Switch('v', "Verbose", "Set verbose Mode", 3);
   protected final Switch     interactive_          = new Switch('i', "Interactive", "Set interactive Mode", 2);
+  protected final Switch     nonBlocking_          = new Switch('n', "Non-Blocking", "Use non-blocking I/O for HTTP requests", 1);
   private boolean            withHostName_;
+  private ITransport         transport_;
+  private boolean            sharedTransport_;
   
   /**
    * Create an instance with a Console connected to standard I/O.
@@ -84,7 +102,10 @@ public abstract class SrtCommand extends ConsoleDelegate
     parser_ = new SrtCommandLineHome(programName)
         .withSwitch(verbose_)
         .withSwitch(interactive_)
-        .withSwitch(getQuiet());
+        .withSwitch(nonBlocking_)
+        .withSwitch(getQuiet())
+        .withFlag(new Flag<Integer>("Deadline Seconds", Integer.class, (v) -> deadlineSeconds_ = v, () -> 0)
+            .withName("deadline"));
     
     init();
     
@@ -162,6 +183,17 @@ public abstract class SrtCommand extends ConsoleDelegate
     }
     
     execute(this);
+    
+    try
+    {
+      // Pods are saved in the background, make sure they are written before the JVM exits.
+      getSrtHome().getPodManager().flush();
+    }
+    catch(IOException e)
+    {
+      error(e, "Failed to save pod config");
+    }
+    
     println();
     getErr().println();
     
@@ -186,6 +218,8 @@ public abstract class SrtCommand extends ConsoleDelegate
     }
     finally
     {
+      createTransportObjective();
+      
       if(getConsole().hasObjectives())
       {
         title("Objectives");
@@ -195,12 +229,16 @@ public abstract class SrtCommand extends ConsoleDelegate
         }
       }
       
+      closeTransport();
       getConsole().flush();
     }
   }
   
   public void prepareToExecute()
   {
+    deadline_ = inheritedDeadline_.earliest(createDeadline());
+    phaseDeadline_ = deadline_;
+    
     if(withHostName_)
     {
       int i = name_.indexOf('.');
@@ -230,6 +268,47 @@ public abstract class SrtCommand extends ConsoleDelegate
 
   public abstract void execute();
   
+  /**
+   * Create the deadline set by the --deadline flag, which starts now. This is called
+   * when the command starts, and the deadline applies to the whole of the command.
+   * 
+   * @return A deadline, which is Deadline.NONE if the flag is not set.
+   */
+  protected Deadline createDeadline()
+  {
+    return deadlineSeconds_ > 0 ? Deadline.afterMillis(deadlineSeconds_ * 1000L) : Deadline.NONE;
+  }
+  
+  /**
+   * Start a new phase of this command, which is given the given share of the time
+   * remaining before the deadline. Requests made by this command, and child commands
+   * created from now on, are limited to the deadline of the phase.
+   * 
+   * @param share The fraction of the remaining time to give to the phase, between 0 and 1.
+   */
+  protected void startPhase(double share)
+  {
+    phaseDeadline_ = deadline_.getPhase(share);
+  }
+  
+  /**
+   * 
+   * @return The deadline for the current phase of this command.
+   */
+  public Deadline getDeadline()
+  {
+    return phaseDeadline_;
+  }
+  
+  /**
+   * 
+   * @return true if the deadline for the current phase of this command has expired.
+   */
+  public boolean isDeadlineExceeded()
+  {
+    return phaseDeadline_.isExpired();
+  }
+  
   /**
    * For each of the given switches, if the given command has a switch of the same name,
    * set the value of the switch in the given command to the value of the given switch.
@@ -265,8 +344,19 @@ public abstract class SrtCommand extends ConsoleDelegate
     setFlags(childCommand, getParser().getFlags());
   }
 
+  /**
+   * Set the given flags in the given child command.
+   * 
+   * The child command also inherits the deadline of the current phase of this command,
+   * which applies if it is earlier than any deadline set on the child itself.
+   * 
+   * @param childCommand  A command whose flags are to be set
+   * @param flags         The flags whose values are to be set in the given childCommand.
+   */
   public void setFlags(SrtCommand childCommand, Collection<Flag<?>> flags)
   {
+    childCommand.inheritedDeadline_ = phaseDeadline_;
+    
     for(Flag<?> flag : flags)
     {
       List<String> names = flag.getNames();
@@ -308,46 +398,138 @@ public abstract class SrtCommand extends ConsoleDelegate
     }
   }
   
-  protected Builder getJCurl()
+  /**
+   * 
+   * @return A builder for the TLS configuration of requests made by this command.
+   */
+  protected TlsConfig.Builder getTlsConfig()
   {
-    Builder builder = JCurl.builder()
-        .extract(Srt.TOKEN, Srt.TOKEN)  // force JCurl to parse JSON
-        .header("User-Agent", programName_ + " / 0.1.0 https://github.com/symphonyoss/symphony-rest-tools");
-
-    if (getConnectTimeoutMillis() > 0)
-      builder.connectTimeout(getConnectTimeoutMillis());
-
-    if (getReadTimeoutMillis() > 0)
-      builder.readTimeout(getReadTimeoutMillis());
+    TlsConfig.Builder builder = TlsConfig.newBuilder();
 
     String keystore = getKeystore();
     
     if(keystore != null && keystore.length()>0)
     {
-      builder.keystore(keystore);
-      builder.storepass(getStorepass());
-    
-      String storetype = getStoretype();
-      if(storetype != null && storetype.length()>0)
-        builder.storetype(storetype);
+      builder.setKeystore(keystore);
+      builder.setStorepass(getStorepass());
+      builder.setStoretype(getStoretype());
     }
     
     String truststore = getTruststore();
+    
     if(truststore != null && truststore.length()>0)
     {
-      builder.truststore(truststore);
-      builder.trustpass(getTrustpass());
-    
-      String trusttype = getTrusttype();
-      if(trusttype != null && trusttype.length()>0)
-        builder.storetype(trusttype);
+      builder.setTruststore(truststore);
+      builder.setTrustpass(getTrustpass());
+      builder.setTrusttype(getTrusttype());
     }
     
-    if(verbose_.getCount()>0)
+    return builder;
+  }
+  
+  /**
+   * 
+   * @return A builder for a request to be sent with getTransport(), with the
+   * common headers, timeouts and TLS configuration of this command set.
+   */
+  protected TransportRequest.Builder newRequest()
+  {
+    return TransportRequest.newBuilder()
+        .addExtract(Srt.TOKEN, Srt.TOKEN)
+        .addHeader("User-Agent", programName_ + " / 0.1.0 https://github.com/symphonyoss/symphony-rest-tools")
+        .setConnectTimeoutMillis(getConnectTimeoutMillis())
+        .setReadTimeoutMillis(getReadTimeoutMillis())
+        .setDeadline(getDeadline())
+        .setTlsConfig(getTlsConfig().build());
+  }
+  
+  /**
+   * In verbose mode, print the time taken by each phase of the request which
+   * produced the given response.
+   * 
+   * @param console   The console to print to.
+   * @param response  A response.
+   */
+  protected void printTimings(IConsole console, TransportResponse response)
+  {
+    if(verbose_.getCount() > 0 && response.getTimings() != null)
+      console.println("Timings " + response.getTimings());
+  }
+  
+  protected void printTimings(TransportResponse response)
+  {
+    printTimings(this, response);
+  }
+  
+  /**
+   * Return the transport for this command, which is JCurl unless the non-blocking
+   * switch is set. The transport is closed when the command completes.
+   * 
+   * @return The transport for this command.
+   */
+  public synchronized ITransport getTransport()
+  {
+    if(transport_ == null)
+      transport_ = nonBlocking_.getCount() > 0 ? new NioTransport() : new JCurlTransport(verbose_.getCount());
+    
+    return transport_;
+  }
+  
+  /**
+   * Make the given child command use the transport of this command, so that
+   * connections opened by either are reused by both. The shared transport is
+   * closed when this command completes, not when the child does.
+   * 
+   * @param childCommand A command to be executed as part of this one.
+   */
+  public void shareTransport(SrtCommand childCommand)
+  {
+    ITransport transport = getTransport();
+    
+    synchronized(childCommand)
     {
-      builder.verbosity(verbose_.getCount());
+      childCommand.transport_ = transport;
+      childCommand.sharedTransport_ = true;
+    }
+  }
+  
+  private synchronized void createTransportObjective()
+  {
+    if(transport_ != null && !sharedTransport_)
+    {
+      long full    = transport_.getFullHandshakeCount();
+      long resumed = transport_.getResumedHandshakeCount();
+      
+      if(full + resumed > 0)
+        createObjective("TLS Handshakes").setObjectiveStatus(ComponentStatus.OK, "%d full, %d resumed", full, resumed);
+      
+      for(Map.Entry<String, LatencyHistogram> entry : transport_.getLatencies().getAll().entrySet())
+        createObjective(entry.getKey()).setObjectiveStatus(ComponentStatus.OK, "%s", entry.getValue());
+    }
+  }
+  
+  private synchronized void closeTransport()
+  {
+    if(transport_ != null)
+    {
+      if(!sharedTransport_)
+      {
+        long requests = transport_.getRequestCount();
+        
+        if(requests > 0 && verbose_.getCount() > 0)
+        {
+          long connections = transport_.getConnectionCount();
+          
+          printfln("%d HTTP requests over %d connections, %d%% connection reuse", requests, connections,
+              100 * (requests - connections) / requests);
+        }
+        
+        transport_.close();
+      }
+      
+      transport_ = null;
+      sharedTransport_ = false;
     }
-    return builder;
   }
 
   public String getName()
@@ -429,4 +611,9 @@ public abstract class SrtCommand extends ConsoleDelegate
   {
     return interactive_;
   }
+
+  public Switch getNonBlocking()
+  {
+    return nonBlocking_;
+  }
 }
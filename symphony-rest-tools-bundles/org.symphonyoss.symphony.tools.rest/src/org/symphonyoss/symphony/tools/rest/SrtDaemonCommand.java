@@ -37,7 +37,7 @@ public abstract class SrtDaemonCommand extends SrtCommand
     getParser().process(argv);
   }
 
-  private SrtDaemonCommand(String programName, Console console, ISrtHome srtHome)
+  public SrtDaemonCommand(String programName, Console console, ISrtHome srtHome)
   {
     super(programName, console, srtHome);
     
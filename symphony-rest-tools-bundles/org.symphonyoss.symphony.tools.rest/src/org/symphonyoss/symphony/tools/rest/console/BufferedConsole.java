@@ -0,0 +1,80 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.console;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * A Console which holds all output in memory until it is written to another
+ * console as a single block.
+ * 
+ * Used where several tasks run concurrently, so that the output of each task
+ * remains readable rather than being interleaved with the others.
+ * 
+ * There is no input, any attempt to prompt will fail with a ProgramFault.
+ */
+public class BufferedConsole extends Console
+{
+  private final StringWriter buffer_;
+
+  public BufferedConsole()
+  {
+    this(new StringWriter());
+  }
+  
+  private BufferedConsole(StringWriter buffer)
+  {
+    super(new BufferedReader(new StringReader("")), new PrintWriter(buffer), new PrintWriter(buffer));
+    
+    buffer_ = buffer;
+  }
+
+  /**
+   * Write everything buffered so far to the given console and clear the buffer.
+   * 
+   * @param console The console to which output should be written.
+   */
+  public void writeTo(IConsole console)
+  {
+    String output;
+    
+    flush();
+    
+    synchronized (buffer_)
+    {
+      output = buffer_.toString();
+      buffer_.getBuffer().setLength(0);
+    }
+    
+    if(output.length() > 0)
+    {
+      console.printf("%s", output);
+      console.flush();
+    }
+  }
+}
@@ -28,6 +28,8 @@ import java.net.URL;
 
 import javax.annotation.Nullable;
 
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -45,6 +47,7 @@ public class Agent extends ModelObject implements IAgent
   // Members
   private final Pod pod_;
   private URL url_;
+  private final LatencyHistogram latency_ = new LatencyHistogram();
 
   /* package */ Agent(Pod pod, JsonNode config) throws InvalidConfigException
   {
@@ -123,6 +126,12 @@ public class Agent extends ModelObject implements IAgent
     return url_;
   }
 
+  @Override
+  public LatencyHistogram getLatency()
+  {
+    return latency_;
+  }
+
   
 
   @Override
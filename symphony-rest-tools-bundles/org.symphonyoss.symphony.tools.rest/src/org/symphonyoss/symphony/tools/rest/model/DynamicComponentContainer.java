@@ -31,6 +31,7 @@ import javax.annotation.Nullable;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.IComponent;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.IComponentListener;
+import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 import org.symphonyoss.symphony.tools.rest.util.typeutils.ISetter;
 
 public class DynamicComponentContainer extends ModelObjectContainer implements IDynamicComponentContainer,
@@ -68,6 +69,33 @@ public class DynamicComponentContainer extends ModelObjectContainer implements I
       IModelObjectConstructor<? extends IModelObject> constructor,
       @Nullable ISetter<IModelObject> setExisting)
   {
+    Mutation children = mutateChildren();
+    IModelObject component = getComponent(name, constructor, setExisting, children);
+    
+    children.apply();
+    
+    return component;
+  }
+
+  /**
+   * Get the child component with the given name. If no such component exists
+   * then it is created and added to the given mutation, so that any number of
+   * new components become children in a single structural change when it is applied.
+   * 
+   * @param   name        Name of the required component.
+   * @param   constructor An IModelObjectConstructor to create a new child component if necessary
+   * @param   setExisting A setter which is called with the existing component if it is not constructed.
+   * @param   children    A mutation obtained from mutateChildren() on this container.
+   * 
+   * @return  The required component.
+   */
+  public IModelObject getComponent(String name,
+      IModelObjectConstructor<? extends IModelObject> constructor,
+      @Nullable ISetter<IModelObject> setExisting, Mutation children)
+  {
+    if(children.getContainer() != this)
+      throw new ProgramFault("Mutation of another container");
+    
     while(name.startsWith("_"))
       name = name.substring(1);
     
@@ -84,12 +112,14 @@ public class DynamicComponentContainer extends ModelObjectContainer implements I
         vmo.addListener(this);
         componentMap_.put(name, vmo);
         
-        addChild(vmo);
+        children.addChild(vmo);
         
         return vmo;
       }
       
-      setExisting.set(component);
+      if(setExisting != null)
+        setExisting.set(component);
+      
       return component;
     }
   }
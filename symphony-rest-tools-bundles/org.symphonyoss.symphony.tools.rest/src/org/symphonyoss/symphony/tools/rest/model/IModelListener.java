@@ -23,8 +23,44 @@
 
 package org.symphonyoss.symphony.tools.rest.model;
 
+import java.util.Collection;
+
+/**
+ * A listener to changes in the model.
+ * 
+ * Listeners added to a ModelObjectContainer are called by the ModelEventDispatcher on a
+ * thread of its own, never on the thread which changed the model, and repeated events for
+ * the same object may be coalesced.
+ * 
+ * Other sources of events say how they deliver them. MonitorPods, for example, calls its
+ * listeners on the thread which ran the check, and IComponentListeners are a separate
+ * interface which is called on the thread which changed the status.
+ * 
+ * @author bruce.skingle
+ *
+ */
 public interface IModelListener
 {
   void modelObjectChanged(IModelObject modelObject);
   void modelObjectStructureChanged(IModelObject modelObject);
+  
+  /**
+   * Called with a batch of events. Each object appears at most once in each collection,
+   * an object may appear in both.
+   * 
+   * The default implementation calls modelObjectStructureChanged for each object whose
+   * structure has changed, and then modelObjectChanged for each changed object.
+   * Listeners which can handle a batch more efficiently should override this.
+   * 
+   * @param changed           Objects whose state has changed.
+   * @param structureChanged  Objects whose structure has changed.
+   */
+  default void modelObjectsChanged(Collection<IModelObject> changed, Collection<IModelObject> structureChanged)
+  {
+    for(IModelObject modelObject : structureChanged)
+      modelObjectStructureChanged(modelObject);
+    
+    for(IModelObject modelObject : changed)
+      modelObjectChanged(modelObject);
+  }
 }
@@ -59,4 +59,13 @@ public interface IModelObject extends IComponentProxy
   void store(File configDir) throws IOException;
 
   void visit(IVisitor<IModelObject> visitor);
+  
+  /**
+   * Return an immutable snapshot of this object and everything below it. Taking a
+   * snapshot never blocks changes to the structure of the model, and parts of the model which have not changed
+   * since the last snapshot are shared with it.
+   * 
+   * @return A snapshot of this object.
+   */
+  ModelSnapshot getSnapshot();
 }
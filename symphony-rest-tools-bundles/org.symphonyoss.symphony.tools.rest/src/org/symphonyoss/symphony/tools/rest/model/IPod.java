@@ -26,6 +26,7 @@ package org.symphonyoss.symphony.tools.rest.model;
 import java.io.IOException;
 import java.net.URL;
 
+import org.symphonyoss.symphony.tools.rest.model.ModelObjectContainer.Mutation;
 import org.symphonyoss.symphony.tools.rest.model.Principal.Builder;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.IComponent;
 import org.symphonyoss.symphony.tools.rest.util.typeutils.ISetter;
@@ -60,4 +61,25 @@ public interface IPod extends IModelObject, IComponent, IModelObjectContainer, I
 
   IModelObject getComponent(String name, IModelObjectConstructor<? extends IModelObject> constructor,
       ISetter<IModelObject> setExisting);
+
+  /**
+   * 
+   * @return A new mutation of the container of the dynamic components of this pod, for use
+   * with getComponent(String, IModelObjectConstructor, ISetter, Mutation).
+   */
+  Mutation mutateComponents();
+
+  /**
+   * Get the dynamic component with the given name, any new component is added to the
+   * given mutation and only becomes a child when the mutation is applied.
+   * 
+   * @param name        Name of the required component.
+   * @param constructor An IModelObjectConstructor to create a new child component if necessary
+   * @param setExisting A setter which is called with the existing component if it is not constructed.
+   * @param components  A mutation obtained from mutateComponents().
+   * 
+   * @return  The required component.
+   */
+  IModelObject getComponent(String name, IModelObjectConstructor<? extends IModelObject> constructor,
+      ISetter<IModelObject> setExisting, Mutation components);
 }
@@ -33,6 +33,12 @@ public interface IPodManager extends IModelObjectContainer
 
   IPod createOrUpdatePod(Pod.Builder podConfig, Agent.Builder agent) throws InvalidConfigException, IOException;
 
+  /**
+   * Load all pods if necessary and return them.
+   * 
+   * @return An immutable set of all pods, which is replaced rather than changed when pods
+   * are added or removed.
+   */
   Set<IPod> getAll();
 
   int getSize();
@@ -47,6 +53,22 @@ public interface IPodManager extends IModelObjectContainer
 
   void loadAll();
 
+  /**
+   * Schedule the given pod to be saved, the write happens on a background thread.
+   * 
+   * @param pod The pod to save.
+   * 
+   * @return The given pod.
+   * 
+   * @throws IOException If the pod cannot be saved.
+   */
   IPod save(IPod pod) throws IOException;
 
+  /**
+   * Write any pods whose saves are still pending, on the calling thread.
+   * 
+   * @throws IOException If any pod could not be written.
+   */
+  void flush() throws IOException;
+
 }
\ No newline at end of file
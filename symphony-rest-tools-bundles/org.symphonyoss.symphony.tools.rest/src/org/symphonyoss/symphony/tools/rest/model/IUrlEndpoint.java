@@ -25,7 +25,15 @@ package org.symphonyoss.symphony.tools.rest.model;
 
 import java.net.URL;
 
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
+
 public interface IUrlEndpoint extends IModelObject
 {
   URL getUrl();
+  
+  /**
+   * 
+   * @return The latencies of the checks made of this endpoint since it was loaded.
+   */
+  LatencyHistogram getLatency();
 }
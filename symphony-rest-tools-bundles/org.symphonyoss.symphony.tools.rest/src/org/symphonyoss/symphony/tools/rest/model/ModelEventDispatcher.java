@@ -0,0 +1,157 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers model events to IModelListeners on a thread of its own, so that the threads
+ * which update the model never run listener code.
+ * 
+ * Events are held for a short window after the first one arrives. Repeated events for
+ * the same object within the window are delivered once, and all the events for the
+ * listeners of each container are delivered together as one batch.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class ModelEventDispatcher
+{
+  private static final long                         WINDOW_MILLIS = 50;
+  private static final ModelEventDispatcher         INSTANCE      = new ModelEventDispatcher("Model Events", WINDOW_MILLIS);
+
+  private final long                                windowMillis_;
+  private final ScheduledExecutorService            executor_;
+  private final Map<ModelObjectContainer, Batch>    pending_      = new LinkedHashMap<>();
+  private final Object                              deliveryLock_ = new Object();
+  private boolean                                   scheduled_;
+
+  private static class Batch
+  {
+    private final Set<IModelObject> changed_          = new LinkedHashSet<>();
+    private final Set<IModelObject> structureChanged_ = new LinkedHashSet<>();
+  }
+  
+  /* package */ ModelEventDispatcher(String name, long windowMillis)
+  {
+    windowMillis_ = windowMillis;
+    executor_ = Executors.newSingleThreadScheduledExecutor((runnable) ->
+    {
+      Thread thread = new Thread(runnable, name);
+      
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+  }
+  
+  /**
+   * 
+   * @return The dispatcher used by all model containers.
+   */
+  public static ModelEventDispatcher getInstance()
+  {
+    return INSTANCE;
+  }
+  
+  /**
+   * Queue an event for delivery to the listeners of the given container.
+   * 
+   * @param source            The container whose listeners should receive the event.
+   * @param modelObject       The object which has changed.
+   * @param structureChanged  true if the structure of the object has changed, rather than its state.
+   */
+  /* package */ void post(ModelObjectContainer source, IModelObject modelObject, boolean structureChanged)
+  {
+    synchronized(pending_)
+    {
+      Batch batch = pending_.get(source);
+      
+      if(batch == null)
+      {
+        batch = new Batch();
+        pending_.put(source, batch);
+      }
+      
+      if(structureChanged)
+        batch.structureChanged_.add(modelObject);
+      else
+        batch.changed_.add(modelObject);
+      
+      if(!scheduled_)
+      {
+        scheduled_ = true;
+        executor_.schedule(() -> flush(), windowMillis_, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+  
+  /**
+   * Deliver all pending events on the calling thread, waiting for any delivery already
+   * in progress. This is intended for use at shutdown, and by tests.
+   */
+  public void flush()
+  {
+    synchronized(deliveryLock_)
+    {
+      Map<ModelObjectContainer, Batch> batches;
+      
+      synchronized(pending_)
+      {
+        batches = new LinkedHashMap<>(pending_);
+        pending_.clear();
+        scheduled_ = false;
+      }
+      
+      for(Map.Entry<ModelObjectContainer, Batch> entry : batches.entrySet())
+      {
+        Collection<IModelObject> changed          = Collections.unmodifiableSet(entry.getValue().changed_);
+        Collection<IModelObject> structureChanged = Collections.unmodifiableSet(entry.getValue().structureChanged_);
+        
+        for(IModelListener listener : entry.getKey().getListeners())
+        {
+          try
+          {
+            listener.modelObjectsChanged(changed, structureChanged);
+          }
+          catch(RuntimeException e)
+          {
+            Thread thread = Thread.currentThread();
+            
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+          }
+        }
+      }
+    }
+  }
+}
@@ -28,6 +28,13 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -42,6 +49,7 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -52,6 +60,10 @@ public class ModelObject extends ComponentProxy implements IModelObject
   public static final String          NAME                            = "name";
   public static final String          COMPONENT_STATUS                = "componentStatus";
   public static final String          COMPONENT_STATUS_MESSAGE        = "componentStatusMessage";
+  
+  private static final ObjectWriter   CONFIG_WRITER                   = new ObjectMapper().writerWithDefaultPrettyPrinter();
+  private static final AtomicLong     MODEL_VERSION                   = new AtomicLong();
+  private static final int            SNAPSHOT_ATTEMPTS               = 3;
 
   private final IModelObjectContainer parent_;
   private final String                typeName_;
@@ -59,6 +71,9 @@ public class ModelObject extends ComponentProxy implements IModelObject
 
   private StringBuilder               errorBuilder_                   = new StringBuilder();
   private String                      errorText_                      = null;
+  private final AtomicLong            version_                        = new AtomicLong();
+  private volatile ModelSnapshot      snapshot_;
+  private volatile ModelObject        container_;
   
   /**
    * Intended for virtual model objects which do no have persisted state.
@@ -111,6 +126,44 @@ public class ModelObject extends ComponentProxy implements IModelObject
     }
   }
   
+  /**
+   * Store the mutable state of this object, which is kept in a status file rather than
+   * in the config so that it can be updated without rewriting the config.
+   * 
+   * Sub-classes should call super.storeStatus(statusFile, key) when overriding.
+   * 
+   * @param statusFile  The file in which to store the state.
+   * @param key         The key of this object, keys of any other values should start with it.
+   * 
+   * @throws IOException If the state cannot be written.
+   */
+  public void storeStatus(StatusFile statusFile, String key) throws IOException
+  {
+    statusFile.put(key, getComponentStatus(), getComponentStatusMessage());
+  }
+  
+  /**
+   * Load the mutable state of this object stored by storeStatus(), any state not present
+   * in the status file is left as it was read from the config.
+   * 
+   * Sub-classes should call super.loadStatus(statusFile, key) when overriding.
+   * 
+   * @param statusFile  The file from which to load the state.
+   * @param key         The key of this object.
+   */
+  public void loadStatus(StatusFile statusFile, String key)
+  {
+    StatusFile.Entry entry = statusFile.get(key);
+    
+    if(entry != null)
+    {
+      String message = entry.getValue();
+      
+      // The message is used as a format by setComponentStatus
+      setComponentStatus(entry.getStatus(), message == null ? null : message.replace("%", "%%"));
+    }
+  }
+  
   public static class Builder implements IBuilder
   {
     protected ObjectNode jsonNode_ = JsonNodeFactory.instance.objectNode();
@@ -150,6 +203,93 @@ public class ModelObject extends ComponentProxy implements IModelObject
     visitor.visit(this);
   }
   
+  /**
+   * Record a change to this object, which advances the version of this object and of
+   * all the containers above it to a new model version.
+   */
+  protected void modelVersionChanged()
+  {
+    long        version     = MODEL_VERSION.incrementAndGet();
+    ModelObject modelObject = this;
+    
+    while(modelObject != null)
+    {
+      modelObject.version_.accumulateAndGet(version, Math::max);
+      modelObject = modelObject.getContainer();
+    }
+  }
+  
+  /*
+   * The container which holds this object as a child. This is usually, but not always,
+   * the parent, components of a pod are held by its DynamicComponentContainer but their
+   * parent is the pod itself.
+   */
+  private ModelObject getContainer()
+  {
+    ModelObject container = container_;
+    
+    if(container != null)
+      return container;
+    
+    return parent_ instanceof ModelObject ? (ModelObject)parent_ : null;
+  }
+  
+  /* package */ void setContainer(ModelObject container)
+  {
+    container_ = container;
+  }
+  
+  @Override
+  public ModelSnapshot getSnapshot()
+  {
+    ModelSnapshot snapshot = snapshot_;
+    
+    for(int attempt=1 ;; attempt++)
+    {
+      long version = version_.get();
+      
+      if(snapshot != null && snapshot.getVersion() == version)
+        return snapshot;
+      
+      snapshot = createSnapshot(version);
+      
+      /*
+       * If anything changed while the snapshot was being taken it may not be consistent,
+       * so try again. After a few attempts give up, the snapshot is labeled with the version
+       * read before it was taken so it will be replaced by the next call.
+       */
+      if(version_.get() == version || attempt == SNAPSHOT_ATTEMPTS)
+      {
+        snapshot_ = snapshot;
+        return snapshot;
+      }
+    }
+  }
+  
+  /**
+   * Create a snapshot of this object, sub-classes with children should override.
+   * 
+   * @param version The version of this object at the start of the snapshot.
+   * 
+   * @return A new snapshot.
+   */
+  protected ModelSnapshot createSnapshot(long version)
+  {
+    return createSnapshot(version, Collections.emptyList());
+  }
+  
+  protected synchronized ModelSnapshot createSnapshot(long version, List<ModelSnapshot> children)
+  {
+    return new ModelSnapshot(this, version, getComponentStatus(), getComponentStatusMessage(), children);
+  }
+  
+  @Override
+  public void notifyListeners()
+  {
+    modelVersionChanged();
+    super.notifyListeners();
+  }
+  
   @Override
   public IModelObject getParent()
   {
@@ -214,6 +354,15 @@ public class ModelObject extends ComponentProxy implements IModelObject
     store(configDir, CONFIG_FILE_NAME, json);
   }
   
+  /**
+   * Store the given config, the file is only written if its content has changed.
+   * 
+   * @param configDir The directory in which to store the config.
+   * @param fileName  The name of the config file, without the .json suffix.
+   * @param json      The config.
+   * 
+   * @throws IOException If the config cannot be written.
+   */
   public static void store(File configDir, String fileName, ObjectNode json) throws IOException
   {
     if(!configDir.isDirectory())
@@ -224,12 +373,28 @@ public class ModelObject extends ComponentProxy implements IModelObject
       }
     }
     
-    File config = new File(configDir, fileName + DOT_JSON);
-    ObjectMapper mapper = new ObjectMapper();
+    Path config = new File(configDir, fileName + DOT_JSON).toPath();
     
     try
     {
-      mapper.writerWithDefaultPrettyPrinter().writeValue(config, json);
+      byte[] bytes = CONFIG_WRITER.writeValueAsBytes(json);
+      
+      if(Files.isRegularFile(config) && Files.size(config) == bytes.length
+          && Arrays.equals(bytes, Files.readAllBytes(config)))
+        return;
+      
+      // Write a temporary file and rename it so that the config is never seen half written.
+      Path temp = Files.createTempFile(configDir.toPath(), fileName, ".tmp");
+      
+      try
+      {
+        Files.write(temp, bytes);
+        Files.move(temp, config, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally
+      {
+        Files.deleteIfExists(temp);
+      }
     }
     catch (IOException e)
     {
@@ -354,6 +519,7 @@ public class ModelObject extends ComponentProxy implements IModelObject
   public void resetStatus()
   {
     super.resetStatus();
+    modelVersionChanged();
     parent_.modelObjectChanged(this);
   }
 }
@@ -8,6 +8,8 @@ package org.symphonyoss.symphony.tools.rest.model;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -21,8 +23,15 @@ public class ModelObjectContainer extends ModelObject implements IModelObjectCon
 {
   private final @Nullable IModelObjectContainer parentContainer_;
 
-  private List<IModelObject>                    childSet_     = new ArrayList<>();
-  private IModelObject[]                        children_     = new IModelObject[0];
+  private static final IModelObject[]           NO_CHILDREN   = new IModelObject[0];
+
+  /*
+   * The children are an immutable array which is replaced, never modified, by a writer
+   * holding writeLock_. Readers take no lock, they read the array once and so always
+   * see a complete snapshot.
+   */
+  private final Object                          writeLock_    = new Object();
+  private volatile IModelObject[]               children_     = NO_CHILDREN;
     
   private CopyOnWriteArrayList<IModelListener>  listeners_    = new CopyOnWriteArrayList<>();
     
@@ -38,61 +47,149 @@ public class ModelObjectContainer extends ModelObject implements IModelObjectCon
     parentContainer_ = null;
   }
 
-  public void addChild(IModelObject child)
+  /**
+   * A set of changes to the children of a container which are applied together, under
+   * one lock, publishing one new children array and firing a single structure changed
+   * event.
+   * 
+   * Changes are applied in the order in which they were made. A mutation should only be
+   * used by one thread, any number of threads may apply mutations to the same container.
+   */
+  public class Mutation
   {
-    if(child == null)
+    private final List<IModelObject> removes_ = new ArrayList<>();
+    private final List<IModelObject> adds_    = new ArrayList<>();
+    
+    private Mutation()
     {
-      throw new NullPointerException("Child may not be null");
     }
     
-    synchronized (childSet_)
+    /**
+     * 
+     * @return The container to which this mutation applies.
+     */
+    public ModelObjectContainer getContainer()
+    {
+      return ModelObjectContainer.this;
+    }
+    
+    public Mutation addChild(IModelObject child)
+    {
+      return replaceChild(null, child);
+    }
+    
+    public Mutation replaceChild(@Nullable IModelObject oldChild, IModelObject newChild)
     {
-      childSet_.add(child);
-      synchronized (children_)
+      if(newChild == null)
       {
-        children_ = childSet_.toArray(new IModelObject[childSet_.size()]);
+        throw new NullPointerException("newChild may not be null");
       }
+      
+      removes_.add(oldChild);
+      adds_.add(newChild);
+      
+      return this;
     }
     
-    modelObjectStructureChanged(this);
-  }
-  
-  public void replaceChild(IModelObject oldChild, IModelObject newChild)
-  {
-    if(newChild == null)
+    public Mutation removeChild(@Nullable IModelObject oldChild)
     {
-      throw new NullPointerException("newChild may not be null");
+      removes_.add(oldChild);
+      adds_.add(null);
+      
+      return this;
     }
     
-    synchronized (childSet_)
+    /**
+     * Adds a URL endpoint child ONLY IF THE URL IS NON-NULL
+     * @param typeName  Type of the child
+     * @param name      Name of the child
+     * @param url       URL of the child
+     * @return this mutation
+     */
+    public Mutation addUrlEndpoint(String typeName, String name, URL url)
     {
-      if(oldChild != null)
-        childSet_.remove(oldChild);
+      if(url != null)
+        addChild(new UrlEndpoint(ModelObjectContainer.this, typeName, name, url));
       
-      childSet_.add(newChild);
-      synchronized (children_)
+      return this;
+    }
+    
+    public boolean isEmpty()
+    {
+      return adds_.isEmpty();
+    }
+    
+    /**
+     * Apply the changes, firing a single structure changed event if there are any.
+     * 
+     * The mutation is empty afterwards and may be reused.
+     */
+    public void apply()
+    {
+      if(isEmpty())
+        return;
+      
+      synchronized (writeLock_)
       {
-        children_ = childSet_.toArray(new IModelObject[childSet_.size()]);
+        List<IModelObject> children = new ArrayList<>(children_.length + adds_.size());
+        
+        Collections.addAll(children, children_);
+        
+        for(int i=0 ; i<adds_.size() ; i++)
+        {
+          IModelObject oldChild = removes_.get(i);
+          IModelObject newChild = adds_.get(i);
+          
+          if(oldChild != null)
+            children.remove(oldChild);
+          
+          if(newChild != null)
+          {
+            children.add(newChild);
+            
+            if(newChild instanceof ModelObject)
+              ((ModelObject)newChild).setContainer(ModelObjectContainer.this);
+          }
+        }
+        
+        children_ = children.isEmpty() ? NO_CHILDREN : children.toArray(new IModelObject[children.size()]);
       }
+      
+      removes_.clear();
+      adds_.clear();
+      
+      modelVersionChanged();
+      modelObjectStructureChanged(ModelObjectContainer.this);
     }
-    
-    modelObjectStructureChanged(this);
   }
   
-  public void removeChild(IModelObject oldChild)
+  /**
+   * 
+   * @return A new, empty, mutation of the children of this container.
+   */
+  public Mutation mutateChildren()
+  {
+    return new Mutation();
+  }
+  
+  public void addChild(IModelObject child)
   {
-    synchronized (childSet_)
+    if(child == null)
     {
-      if(oldChild != null)
-        childSet_.remove(oldChild);
-      
-      synchronized (children_)
-      {
-        children_ = childSet_.toArray(new IModelObject[childSet_.size()]);
-      }
+      throw new NullPointerException("Child may not be null");
     }
     
-    modelObjectStructureChanged(this);
+    mutateChildren().addChild(child).apply();
+  }
+  
+  public void replaceChild(IModelObject oldChild, IModelObject newChild)
+  {
+    mutateChildren().replaceChild(oldChild, newChild).apply();
+  }
+  
+  public void removeChild(IModelObject oldChild)
+  {
+    mutateChildren().removeChild(oldChild).apply();
   }
   
   @Override
@@ -100,29 +197,36 @@ public class ModelObjectContainer extends ModelObject implements IModelObjectCon
   {
     super.visit(visitor);
     
-    synchronized (children_)
-    {
-      for(IModelObject component : children_)
-        visitor.visit(component);
-    }
+    for(IModelObject component : children_)
+      visitor.visit(component);
+  }
+  
+  @Override
+  protected ModelSnapshot createSnapshot(long version)
+  {
+    IModelObject[]      children  = children_;
+    List<ModelSnapshot> snapshots = new ArrayList<>(children.length);
+    
+    for(IModelObject child : children)
+      snapshots.add(child.getSnapshot());
+    
+    return createSnapshot(version, snapshots);
   }
   
   @Override
   public boolean hasChildren()
   {
-    synchronized (children_)
-    {
-      return children_.length > 0;
-    }
+    return children_.length > 0;
   }
 
+  /**
+   * The returned array is a snapshot which is shared with other callers and must not be
+   * modified.
+   */
   @Override
   public IModelObject[] getChildren()
   {
-    synchronized (children_)
-    {
-      return children_;
-    }
+    return children_;
   }
   
   /**
@@ -143,17 +247,14 @@ public class ModelObjectContainer extends ModelObject implements IModelObjectCon
    */
   public void addUrlEndpoint(String typeName, String name, URL url)
   {
-    if(url != null)
-    {
-      addChild(new UrlEndpoint(this, typeName, name, url));
-    }
+    mutateChildren().addUrlEndpoint(typeName, name, url).apply();
   }
   
   @Override
   public void modelObjectChanged(IModelObject modelObject)
   {
-    for(IModelListener listener : listeners_)
-      listener.modelObjectChanged(modelObject);
+    if(!listeners_.isEmpty())
+      ModelEventDispatcher.getInstance().post(this, modelObject, false);
     
     if(parentContainer_ != null)
       parentContainer_.modelObjectChanged(modelObject);
@@ -162,12 +263,17 @@ public class ModelObjectContainer extends ModelObject implements IModelObjectCon
   @Override
   public void modelObjectStructureChanged(IModelObject modelObject)
   {
-    for(IModelListener listener : listeners_)
-      listener.modelObjectStructureChanged(modelObject);
+    if(!listeners_.isEmpty())
+      ModelEventDispatcher.getInstance().post(this, modelObject, true);
     
     if(parentContainer_ != null)
       parentContainer_.modelObjectStructureChanged(modelObject);
   }
+  
+  /* package */ Collection<IModelListener> getListeners()
+  {
+    return listeners_;
+  }
 
   @Override
   public void addListener(IModelListener listener)
@@ -0,0 +1,141 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.util.IVisitor;
+
+/**
+ * An immutable view of a model object and everything below it, as it was at a given
+ * model version.
+ * 
+ * Snapshots are structurally shared, the snapshot of a subtree which has not changed
+ * is the same object in every snapshot which includes it, so taking a snapshot of the
+ * whole model costs time in proportion to what has changed since the last one.
+ * 
+ * Model versions increase with every change to the model, and the version of a snapshot
+ * is that of the last change to anything it includes. Comparing versions is therefore
+ * enough to tell whether anything has changed.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class ModelSnapshot
+{
+  private final IModelObject        modelObject_;
+  private final long                version_;
+  private final ComponentStatus     componentStatus_;
+  private final String              componentStatusMessage_;
+  private final List<ModelSnapshot> children_;
+
+  /* package */ ModelSnapshot(IModelObject modelObject, long version, ComponentStatus componentStatus,
+      String componentStatusMessage, List<ModelSnapshot> children)
+  {
+    modelObject_ = modelObject;
+    version_ = version;
+    componentStatus_ = componentStatus;
+    componentStatusMessage_ = componentStatusMessage;
+    children_ = children.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(children);
+  }
+
+  /**
+   * 
+   * @return The model object of which this is a snapshot. Its immutable config may be
+   * read, its status may have changed since this snapshot was taken.
+   */
+  public IModelObject getModelObject()
+  {
+    return modelObject_;
+  }
+
+  /**
+   * 
+   * @return The model version of the last change to this object or anything below it.
+   */
+  public long getVersion()
+  {
+    return version_;
+  }
+  
+  /**
+   * 
+   * @param version A version returned by getVersion() on an earlier snapshot of the same object.
+   * 
+   * @return true if nothing in this snapshot has changed since the given version.
+   */
+  public boolean isUnchangedSince(long version)
+  {
+    return version_ == version;
+  }
+
+  public String getTypeName()
+  {
+    return modelObject_.getTypeName();
+  }
+
+  public String getName()
+  {
+    return modelObject_.getName();
+  }
+
+  public @Nullable ComponentStatus getComponentStatus()
+  {
+    return componentStatus_;
+  }
+
+  public String getComponentStatusMessage()
+  {
+    return componentStatusMessage_;
+  }
+
+  public List<ModelSnapshot> getChildren()
+  {
+    return children_;
+  }
+  
+  /**
+   * Visit this snapshot and everything below it, depth first.
+   * 
+   * @param visitor A visitor.
+   */
+  public void visitTree(IVisitor<ModelSnapshot> visitor)
+  {
+    visitor.visit(this);
+    
+    for(ModelSnapshot child : children_)
+      child.visitTree(visitor);
+  }
+  
+  @Override
+  public String toString()
+  {
+    return getTypeName() + " " + getName() + " v" + version_ + " " + componentStatus_;
+  }
+}
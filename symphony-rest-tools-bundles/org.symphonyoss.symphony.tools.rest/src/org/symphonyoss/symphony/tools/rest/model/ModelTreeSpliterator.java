@@ -0,0 +1,240 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A Spliterator over a model object and everything below it, depth first.
+ * 
+ * Unlike IModelObject.visit(), which covers an object and its immediate children, this
+ * covers the whole tree. It splits by handing half of the remaining siblings at the
+ * level nearest the root to the new Spliterator, so a parallel stream over the pod
+ * manager divides the work between pods first, and then within them. When the only
+ * object left at a level is a container, as it is for a new Spliterator over a single
+ * root, its children are taken out so that they can be split, and it is visited next.
+ * 
+ * Children are read from the immutable arrays returned by getChildren(), so traversal
+ * takes no locks and is not disturbed by concurrent changes, although it may or may not
+ * include objects added after it started.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class ModelTreeSpliterator implements Spliterator<IModelObject>
+{
+  private static final int          CHARACTERISTICS = DISTINCT | NONNULL;
+
+  /*
+   * The siblings which remain to be visited at each level, the first is nearest the root.
+   */
+  private final Deque<Range>        ranges_         = new ArrayDeque<>();
+  
+  /*
+   * An object which has been taken out of its range by trySplit and is to be visited
+   * next. Its children have already been added to ranges_.
+   */
+  private IModelObject              pending_;
+
+  private static class Range
+  {
+    private final IModelObject[] objects_;
+    private int                  next_;
+    private int                  end_;
+    
+    private Range(IModelObject[] objects, int next, int end)
+    {
+      objects_ = objects;
+      next_ = next;
+      end_ = end;
+    }
+    
+    private int remaining()
+    {
+      return end_ - next_;
+    }
+  }
+  
+  /**
+   * Create a Spliterator over the given object and everything below it.
+   * 
+   * @param root The root of the tree.
+   */
+  public ModelTreeSpliterator(IModelObject root)
+  {
+    this(new IModelObject[] { root }, 0, 1);
+  }
+  
+  private ModelTreeSpliterator(IModelObject[] objects, int next, int end)
+  {
+    ranges_.add(new Range(objects, next, end));
+  }
+  
+  /**
+   * 
+   * @param root The root of the tree.
+   * 
+   * @return A sequential stream of the given object and everything below it.
+   */
+  public static Stream<IModelObject> stream(IModelObject root)
+  {
+    return StreamSupport.stream(new ModelTreeSpliterator(root), false);
+  }
+  
+  /**
+   * 
+   * @param root The root of the tree.
+   * 
+   * @return A parallel stream of the given object and everything below it.
+   */
+  public static Stream<IModelObject> parallelStream(IModelObject root)
+  {
+    return StreamSupport.stream(new ModelTreeSpliterator(root), true);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super IModelObject> action)
+  {
+    if(pending_ != null)
+    {
+      IModelObject modelObject = pending_;
+      
+      pending_ = null;
+      action.accept(modelObject);
+      
+      return true;
+    }
+    
+    Range range = ranges_.peekLast();
+    
+    while(range != null && range.remaining() == 0)
+    {
+      ranges_.removeLast();
+      range = ranges_.peekLast();
+    }
+    
+    if(range == null)
+      return false;
+    
+    IModelObject modelObject = range.objects_[range.next_++];
+    
+    if(modelObject instanceof IModelObjectContainer)
+    {
+      IModelObject[] children = ((IModelObjectContainer)modelObject).getChildren();
+      
+      if(children.length > 0)
+        ranges_.addLast(new Range(children, 0, children.length));
+    }
+    
+    action.accept(modelObject);
+    
+    return true;
+  }
+
+  @Override
+  public Spliterator<IModelObject> trySplit()
+  {
+    Spliterator<IModelObject> split = splitRange();
+    
+    if(split == null && pending_ == null && expand())
+      split = splitRange();
+    
+    return split;
+  }
+  
+  private Spliterator<IModelObject> splitRange()
+  {
+    for(Range range : ranges_)
+    {
+      int remaining = range.remaining();
+      
+      if(remaining > 1)
+      {
+        int mid = range.next_ + remaining / 2;
+        ModelTreeSpliterator split = new ModelTreeSpliterator(range.objects_, range.next_, mid);
+        
+        range.next_ = mid;
+        
+        return split;
+      }
+    }
+    
+    return null;
+  }
+  
+  /*
+   * Take the first container which is the only object left at its level out of its
+   * range, and add its children as a new range, if it has more than one.
+   */
+  private boolean expand()
+  {
+    for(Range range : ranges_)
+    {
+      if(range.remaining() == 1 && range.objects_[range.next_] instanceof IModelObjectContainer)
+      {
+        IModelObject    modelObject = range.objects_[range.next_];
+        IModelObject[]  children    = ((IModelObjectContainer)modelObject).getChildren();
+        
+        if(children.length > 1)
+        {
+          range.next_++;
+          pending_ = modelObject;
+          ranges_.addLast(new Range(children, 0, children.length));
+          
+          return true;
+        }
+      }
+    }
+    
+    return false;
+  }
+
+  @Override
+  public long estimateSize()
+  {
+    if(pending_ != null)
+      return Long.MAX_VALUE;
+    
+    // The size of the subtrees which remain is not known without walking them.
+    for(Range range : ranges_)
+    {
+      if(range.remaining() > 0)
+        return Long.MAX_VALUE;
+    }
+    
+    return 0;
+  }
+
+  @Override
+  public int characteristics()
+  {
+    return CHARACTERISTICS;
+  }
+}
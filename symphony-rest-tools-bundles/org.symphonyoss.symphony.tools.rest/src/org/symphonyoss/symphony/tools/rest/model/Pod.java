@@ -23,6 +23,7 @@
 
 package org.symphonyoss.symphony.tools.rest.model;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.security.cert.X509Certificate;
@@ -33,10 +34,12 @@ import java.util.Map;
 import javax.annotation.Nullable;
 
 import org.symphonyoss.symphony.tools.rest.ISrtSelectable;
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
 import org.symphonyoss.symphony.tools.rest.util.typeutils.ISetter;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class Pod extends SslServer implements IPod, ISrtSelectable
@@ -50,6 +53,9 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
   private static final String       FORMAT_1_AGENTS_NO_ARRAY     = "Agents element \"%s\" must be an array";
   private static final String       FORMAT_1_PRINCIPALS_NO_ARRAY = "Principals element \"%s\" must be an array";
 
+  private static final String       STATUS_FILE_NAME             = "status.dat";
+  private static final String       STATUS_KEY                   = "pod";
+
   private static final String       POD_ID                       = "pod.id";
   private static final String       AGENTS                       = "agents";
   private static final String       PRINCIPALS                   = "principals";
@@ -78,6 +84,7 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
   private Map<String, Agent>        agentMap_                    = new HashMap<>();
   private Map<String, Principal>    principalMap_                = new HashMap<>();
   private DynamicComponentContainer dynamicContainer_;
+  private final LatencyHistogram    latency_                     = new LatencyHistogram();
   
   /* package */ Pod(PodManager manager, JsonNode config) throws InvalidConfigException
   {
@@ -95,9 +102,10 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
     keyAuthUrl_     = getOptionalUrlNode(config, KEY_AUTH_URL);
     podApiUrl_      = getOptionalUrlNode(config, POD_API_URL);
     
-    addUrlEndpoint(TYPE_KEY_MANAGER, "Key Manager", keyManagerUrl_);
-    addUrlEndpoint(TYPE_SESSION_AUTH, "Session Auth", sessionAuthUrl_);
-    addUrlEndpoint(TYPE_KEY_AUTH, "Key Auth", keyAuthUrl_);
+    Mutation children = mutateChildren()
+        .addUrlEndpoint(TYPE_KEY_MANAGER, "Key Manager", keyManagerUrl_)
+        .addUrlEndpoint(TYPE_SESSION_AUTH, "Session Auth", sessionAuthUrl_)
+        .addUrlEndpoint(TYPE_KEY_AUTH, "Key Auth", keyAuthUrl_);
     
     podId_ = getOptionalLongNode(config, POD_ID);
     
@@ -113,7 +121,7 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
           {         
             Agent agent = new Agent(this, node);
             
-            addAgent(agent);
+            addAgent(agent, children);
           }
         }
       }
@@ -123,6 +131,8 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
       }
     }
     
+    children.apply();
+    
     JsonNode principalsNode = config.get(PRINCIPALS);
     
     if(principalsNode != null)
@@ -152,6 +162,16 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
   }
   
   public Agent addAgent(Agent agent)
+  {
+    Mutation children = mutateChildren();
+    
+    addAgent(agent, children);
+    children.apply();
+    
+    return agent;
+  }
+  
+  private void addAgent(Agent agent, Mutation children)
   {
     Agent oldAgent = agentMap_.put(agent.getName(), agent);
 
@@ -160,9 +180,7 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
       oldAgent.modelUpdated(agent);
     }
     
-    replaceChild(oldAgent, agent);
-    
-    return agent;
+    children.replaceChild(oldAgent, agent);
   }
   
   public Agent addAgent(Agent.Builder agentBuilder) throws InvalidConfigException
@@ -363,6 +381,98 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
     }
   }
 
+  @Override
+  public void storeStatus(StatusFile statusFile, String key) throws IOException
+  {
+    super.storeStatus(statusFile, key);
+    
+    statusFile.put(key + "#" + POD_ID, null, podId_ == null ? null : podId_.toString());
+    
+    synchronized (agentMap_)
+    {
+      for(Agent agent : agentMap_.values())
+        agent.storeStatus(statusFile, Agent.TYPE_NAME + "/" + agent.getName());
+    }
+    
+    synchronized (principalMap_)
+    {
+      for(Principal principal : principalMap_.values())
+        principal.storeStatus(statusFile, Principal.TYPE_NAME + "/" + principal.getName());
+    }
+  }
+  
+  @Override
+  public void loadStatus(StatusFile statusFile, String key)
+  {
+    super.loadStatus(statusFile, key);
+    
+    StatusFile.Entry podId = statusFile.get(key + "#" + POD_ID);
+    
+    if(podId != null)
+    {
+      try
+      {
+        podId_ = podId.getValue() == null ? null : Long.valueOf(podId.getValue());
+      }
+      catch(NumberFormatException e)
+      {
+        addError("Invalid pod ID in status file \"" + podId.getValue() + "\"");
+      }
+    }
+    
+    synchronized (agentMap_)
+    {
+      for(Agent agent : agentMap_.values())
+        agent.loadStatus(statusFile, Agent.TYPE_NAME + "/" + agent.getName());
+    }
+    
+    synchronized (principalMap_)
+    {
+      for(Principal principal : principalMap_.values())
+        principal.loadStatus(statusFile, Principal.TYPE_NAME + "/" + principal.getName());
+    }
+  }
+  
+  /**
+   * Store this pod, the config is written only if it has changed and the mutable state
+   * is updated in place in the status file.
+   */
+  @Override
+  public void store(File configDir) throws IOException
+  {
+    ObjectNode config = JsonNodeFactory.instance.objectNode();
+    
+    storeConfig(config, false);
+    store(configDir, config);
+    
+    try(StatusFile statusFile = new StatusFile(new File(configDir, STATUS_FILE_NAME)))
+    {
+      storeStatus(statusFile, STATUS_KEY);
+    }
+  }
+  
+  /**
+   * Load the mutable state of this pod from the status file in the given directory,
+   * if there is one. Config files written before the status file existed hold this
+   * state themselves, and it is left as read from them.
+   * 
+   * @param configDir The config directory of this pod.
+   * 
+   * @throws IOException If the status file cannot be read.
+   */
+  /* package */ void loadStatus(File configDir) throws IOException
+  {
+    File file = new File(configDir, STATUS_FILE_NAME);
+    
+    if(file.exists())
+    {
+      try(StatusFile statusFile = new StatusFile(file))
+      {
+        loadStatus(statusFile, STATUS_KEY);
+      }
+    }
+  }
+
   @Override
   public IPodManager getManager()
   {
@@ -384,6 +494,12 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
     return podUrl_ == null ? webUrl_ : podUrl_;
   }
 
+  @Override
+  public LatencyHistogram getLatency()
+  {
+    return latency_;
+  }
+
   @Override
   public Long getPodId()
   {
@@ -472,6 +588,20 @@ public class Pod extends SslServer implements IPod, ISrtSelectable
         setExisting);
   }
 
+  @Override
+  public Mutation mutateComponents()
+  {
+    return getDynamicContainer().mutateChildren();
+  }
+
+  @Override
+  public IModelObject getComponent(String name,
+      IModelObjectConstructor<? extends IModelObject> constructor,
+      @Nullable ISetter<IModelObject> setExisting, Mutation components)
+  {
+    return getDynamicContainer().getComponent(name, constructor, setExisting, components);
+  }
+
   @Override
   public Class<? extends IModelObject> getSelectionType()
   {
@@ -25,11 +25,15 @@ package org.symphonyoss.symphony.tools.rest.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
+import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -39,11 +43,26 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class PodManager extends FileSystemModelObjectManager implements IPodManager
 {
   private Map<String, Pod>                     podMap_    = new HashMap<>();
+  private volatile Set<IPod>                   allPods_   = Collections.emptySet();
   private boolean                              allLoaded_;
+  private final PodPersister                   persister_ = PodPersister.getInstance();
+  private final IConsole                       console_;
 
   public PodManager(File configDir)
+  {
+    this(configDir, null);
+  }
+  
+  /**
+   * 
+   * @param configDir The directory in which pods are stored.
+   * @param console   The console to which failures to save pods in the background are
+   *                  reported, or null if they are only added to the pod.
+   */
+  public PodManager(File configDir, @Nullable IConsole console)
   {
     super(null, "Pod Manager", "PodManager", configDir);
+    console_ = console;
   }
   
   @Override
@@ -94,7 +113,15 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
   {
     loadAll();
     
-    return new HashSet<IPod>(podMap_.values());
+    return allPods_;
+  }
+
+  /*
+   * Publish a new immutable set of all pods, must be called holding the podMap_ lock.
+   */
+  private void podsChanged()
+  {
+    allPods_ = Collections.unmodifiableSet(new HashSet<IPod>(podMap_.values()));
   }
 
   @Override
@@ -104,6 +131,8 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
     {
       synchronized(podMap_)
       {
+        Mutation children = mutateChildren();
+        
         for(File file : getConfigDir().listFiles())
         {
           if(podMap_.get(file.getName()) == null)
@@ -112,7 +141,7 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
             {
               Pod newPod = loadPod(file);
               podMap_.put(file.getName(), newPod);
-              addChild(newPod);
+              children.addChild(newPod);
             }
             catch(IOException | InvalidConfigException e)
             {
@@ -120,6 +149,10 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
             }
           }
         }
+        
+        children.apply();
+        podsChanged();
+        allLoaded_ = true;
       }
     }
   }
@@ -138,6 +171,7 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
           Pod pod = loadPod(configDir);
           
           podMap_.put(hostName, pod);
+          podsChanged();
           addChild(pod);
           
           return pod;
@@ -158,15 +192,17 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
     ObjectMapper mapper = new ObjectMapper();
     
     JsonNode jsonNode = mapper.readTree(podConfig);
+    Pod      pod      = new Pod(this, jsonNode);
+    
+    pod.loadStatus(configDir);
     
-    return new Pod(this, jsonNode);
+    return pod;
   }
 
   @Override
   public IPod save(IPod pod) throws IOException
   {
-    File configDir = getConfigPath(pod.getName());
-    pod.store(configDir);
+    persister_.save(getConfigPath(pod.getName()), pod, console_);
     
     return pod;
   }
@@ -183,12 +219,13 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
       newPod.addAgent(agentBuilder);
     }
     
-    newPod.store(configDir);
+    persister_.save(configDir, newPod, console_);
     
     Pod oldPod;
     synchronized (podMap_)
     {
       oldPod = podMap_.put(podConfig.getName(), newPod);
+      podsChanged();
       replaceChild(oldPod, newPod);
     }
     
@@ -200,15 +237,23 @@ public class PodManager extends FileSystemModelObjectManager implements IPodMana
     return newPod;
   }
   
+  @Override
+  public void flush() throws IOException
+  {
+    persister_.flush(this);
+  }
+  
   public void deletePod(Pod oldPod) throws IOException
   {
     File configDir = getConfigPath(oldPod.getName());
     
+    persister_.cancel(configDir);
     deleteRecursively(configDir);
     
     synchronized (podMap_)
     {
       podMap_.remove(oldPod.getName());
+      podsChanged();
       removeChild(oldPod);
     }
     
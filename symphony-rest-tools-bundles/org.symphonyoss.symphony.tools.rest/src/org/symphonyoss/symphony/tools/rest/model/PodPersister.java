@@ -0,0 +1,229 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.symphonyoss.symphony.tools.rest.console.IConsole;
+
+/**
+ * Writes pods to disk on a thread of its own, so that the threads which update them
+ * never wait for I/O.
+ * 
+ * There is one instance per process, shared by every PodManager, so that creating a
+ * PodManager does not create a thread or a shutdown hook.
+ * 
+ * A pod saved again before its previous save has been written is only written once,
+ * with its state at the time of the write. Anything still pending is written by
+ * flush(), and by a shutdown hook. Failures of writes made in the background are
+ * reported to the console given when the pod was saved.
+ * 
+ * @author bruce.skingle
+ *
+ */
+/* package */ class PodPersister
+{
+  private static final long                 COALESCE_MILLIS = 200;
+  private static final PodPersister         INSTANCE        = new PodPersister("PodManager Persister");
+
+  private final Map<File, Write>            pending_        = new LinkedHashMap<>();
+  private final Object                      writeLock_      = new Object();
+  private final ScheduledExecutorService    executor_;
+  private boolean                           scheduled_;
+
+  private static class Write
+  {
+    private final IPod      pod_;
+    private final IConsole  console_;
+    
+    private Write(IPod pod, @Nullable IConsole console)
+    {
+      pod_ = pod;
+      console_ = console;
+    }
+  }
+  
+  private PodPersister(String name)
+  {
+    executor_ = Executors.newSingleThreadScheduledExecutor((runnable) ->
+    {
+      Thread thread = new Thread(runnable, name);
+      
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> flushAll(), name + " Shutdown"));
+  }
+  
+  /**
+   * 
+   * @return The persister of this process.
+   */
+  /* package */ static PodPersister getInstance()
+  {
+    return INSTANCE;
+  }
+  
+  /**
+   * Schedule a write of the given pod.
+   * 
+   * @param configDir The directory in which to store the pod.
+   * @param pod       The pod to store.
+   * @param console   The console to which a failure to write the pod in the background
+   *                  is reported, or null if it is only added to the pod.
+   */
+  /* package */ void save(File configDir, IPod pod, @Nullable IConsole console)
+  {
+    synchronized(pending_)
+    {
+      pending_.put(configDir, new Write(pod, console));
+      
+      if(!scheduled_)
+      {
+        scheduled_ = true;
+        executor_.schedule(() -> flushAll(), COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+  
+  /**
+   * Cancel any pending write to the given directory, waiting for a write already in
+   * progress to complete.
+   * 
+   * @param configDir The directory of a pod which is being deleted.
+   */
+  /* package */ void cancel(File configDir)
+  {
+    synchronized(writeLock_)
+    {
+      synchronized(pending_)
+      {
+        pending_.remove(configDir);
+      }
+    }
+  }
+  
+  /**
+   * Write all pending pods of the given manager on the calling thread.
+   * 
+   * @param manager The manager whose pods are to be written.
+   * 
+   * @throws IOException If any pod could not be written, every pod is attempted.
+   */
+  /* package */ void flush(IPodManager manager) throws IOException
+  {
+    synchronized(writeLock_)
+    {
+      Map<File, Write> writes = new LinkedHashMap<>();
+      
+      synchronized(pending_)
+      {
+        Iterator<Map.Entry<File, Write>> it = pending_.entrySet().iterator();
+        
+        while(it.hasNext())
+        {
+          Map.Entry<File, Write> entry = it.next();
+          
+          if(entry.getValue().pod_.getManager() == manager)
+          {
+            writes.put(entry.getKey(), entry.getValue());
+            it.remove();
+          }
+        }
+      }
+      
+      IOException failure = write(writes, false);
+      
+      if(failure != null)
+        throw failure;
+    }
+  }
+  
+  /*
+   * Write all pending pods, reporting any failures to their consoles.
+   */
+  private void flushAll()
+  {
+    synchronized(writeLock_)
+    {
+      Map<File, Write> writes;
+      
+      synchronized(pending_)
+      {
+        writes = new LinkedHashMap<>(pending_);
+        pending_.clear();
+        scheduled_ = false;
+      }
+      
+      write(writes, true);
+    }
+  }
+  
+  /*
+   * Write the given pods, must be called holding writeLock_.
+   * 
+   * Returns the first failure, with any others suppressed by it, or null.
+   */
+  private IOException write(Map<File, Write> writes, boolean report)
+  {
+    IOException failure = null;
+    
+    for(Map.Entry<File, Write> entry : writes.entrySet())
+    {
+      Write write = entry.getValue();
+      
+      try
+      {
+        write.pod_.store(entry.getKey());
+      }
+      catch(IOException e)
+      {
+        if(write.pod_ instanceof ModelObject)
+          ((ModelObject)write.pod_).addError("Failed to save config: " + e.getMessage());
+        
+        if(report && write.console_ != null)
+          write.console_.error(e, "Failed to save config of %s", write.pod_.getName());
+        
+        if(failure == null)
+          failure = e;
+        else
+          failure.addSuppressed(e);
+      }
+    }
+    
+    return failure;
+  }
+}
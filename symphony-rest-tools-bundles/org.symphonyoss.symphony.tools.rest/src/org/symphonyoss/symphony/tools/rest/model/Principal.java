@@ -24,14 +24,15 @@
 package org.symphonyoss.symphony.tools.rest.model;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.net.URL;
 import java.security.cert.CertificateParsingException;
 
-import org.symphonyoss.symphony.jcurl.JCurl;
-import org.symphonyoss.symphony.jcurl.JCurl.Response;
 import org.symphonyoss.symphony.tools.rest.Srt;
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.ITransport;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
 import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -150,7 +151,44 @@ public class Principal extends ModelObject
     }
   }
 
-  public static Principal newInstance(IConsole console, IPod pod, String skey, String kmsession) throws IOException
+  @Override
+  public void storeStatus(StatusFile statusFile, String key) throws IOException
+  {
+    super.storeStatus(statusFile, key);
+    
+    statusFile.put(key + "#" + SKEY, null, skey_);
+    statusFile.put(key + "#" + KMSESSION, null, kmsession_);
+  }
+  
+  @Override
+  public void loadStatus(StatusFile statusFile, String key)
+  {
+    super.loadStatus(statusFile, key);
+    
+    StatusFile.Entry skey       = statusFile.get(key + "#" + SKEY);
+    StatusFile.Entry kmsession  = statusFile.get(key + "#" + KMSESSION);
+    
+    if(skey != null)
+      skey_ = skey.getValue();
+    
+    if(kmsession != null)
+      kmsession_ = kmsession.getValue();
+  }
+
+  /**
+   * Validate the given session and add the principal it belongs to to the given pod.
+   * 
+   * @param console   The console to report progress on.
+   * @param pod       The pod which issued the session.
+   * @param skey      The session token.
+   * @param kmsession The key manager token.
+   * @param transport The transport of the caller, so that its connections and TLS sessions are shared.
+   * 
+   * @return The new principal.
+   * 
+   * @throws IOException If the pod cannot be saved.
+   */
+  public static Principal newInstance(IConsole console, IPod pod, String skey, String kmsession, ITransport transport) throws IOException
   {
     Builder builder = Principal.newBuilder()
     .setSkey(skey)
@@ -158,20 +196,21 @@ public class Principal extends ModelObject
     
     console.printfln("Validating session");
     
-    JCurl jcurl = JCurl.builder()
-        .header(Srt.SESSION_TOKEN, skey)
-        .extract(KMSESSION, KMSESSION)
-        .build();
-    
     try
     {
-      HttpURLConnection con = jcurl.connect(pod.getPodApiUrl() + SESSION_INFO);
+      TransportResponse response = transport.execute(TransportRequest.newBuilder()
+          .setUrl(new URL(pod.getPodApiUrl() + SESSION_INFO))
+          .addHeader(Srt.SESSION_TOKEN, skey)
+          .addExtract(KMSESSION, KMSESSION)
+          .build());
       
-      Response response = jcurl.processResponse(con);
       JsonNode json = response.getJsonNode();
       
       console.println(json);
       
+      if(json == null)
+        throw new InvalidConfigException("Session info request failed with HTTP status " + response.getHttpStatus());
+      
       // {"id":206158450786,"emailAddress":"bruce+qa4@symphony.com","firstName":"Bruce","lastName":"Sk","displayName":"Bruce Sk","company":"companyNameFour","username":"bruce","avatars":[{"size":"original","url":"../avatars/static/orig/default.png"},{"size":"small","url":"../avatars/static/150/default.png"}]}
       
       builder.setUserId(getRequiredLongNode(json, "id"));
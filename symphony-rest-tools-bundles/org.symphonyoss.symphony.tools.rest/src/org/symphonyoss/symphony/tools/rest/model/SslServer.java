@@ -36,6 +36,7 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
@@ -51,7 +52,8 @@ public class SslServer extends ModelObjectContainer implements ISslServerConfig
   
   private static final String   PKCS12                = "pkcs12";
 
-  private final Set<X509Certificate> trustCerts_       = new HashSet<>();
+  /** Immutable, replaced with a new copy on each change so that readers need no lock. */
+  private volatile Set<X509Certificate> trustCerts_    = Collections.emptySet();
 
   
   public SslServer(IModelObjectContainer parent, String typeName, JsonNode config) throws InvalidConfigException
@@ -131,7 +133,15 @@ public class SslServer extends ModelObjectContainer implements ISslServerConfig
   @Override
   public Set<X509Certificate>  getTrustCerts()
   {
-    return new HashSet<X509Certificate>(trustCerts_);
+    return trustCerts_;
+  }
+  
+  private synchronized void addTrustCerts(Collection<X509Certificate> certs)
+  {
+    Set<X509Certificate> trustCerts = new HashSet<>(trustCerts_);
+    
+    trustCerts.addAll(certs);
+    trustCerts_ = Collections.unmodifiableSet(trustCerts);
   }
 
   public void importTrustStore(File trustStoreFile, String trustStorePassword)
@@ -145,17 +155,20 @@ public class SslServer extends ModelObjectContainer implements ISslServerConfig
       {
         trustStore.load(stream, password);
         
-        Enumeration<String> en = trustStore.aliases();
+        Enumeration<String>   en    = trustStore.aliases();
+        Set<X509Certificate>  certs = new HashSet<>();
         
         while(en.hasMoreElements())
         {
           Certificate cert = trustStore.getCertificate(en.nextElement());
           
           if(cert instanceof X509Certificate)
-            trustCerts_.add((X509Certificate) cert);
+            certs.add((X509Certificate) cert);
           else
             throw new ProgramFault("Unexpected certificate type " + cert.getClass().getName());
         }
+        
+        addTrustCerts(certs);
       }
     }
     catch (IOException | KeyStoreException | NoSuchAlgorithmException | CertificateException e)
@@ -0,0 +1,285 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+/**
+ * A small file of fixed size slots holding the mutable state of a pod, its status,
+ * status messages, pod ID and session tokens.
+ * 
+ * This state changes far more often than the pod config, so it is kept apart from it and
+ * each value is updated in place by rewriting the one slot which holds it. Each slot
+ * carries a checksum so that a slot torn by a crash part way through a write is ignored
+ * when the file is next read, the value it held is simply lost.
+ * 
+ * Keys are limited to 128 bytes and values to 888 bytes of UTF-8, longer values are
+ * truncated.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class StatusFile implements Closeable
+{
+  private static final int               MAGIC          = 0x53525453; // "SRTS"
+  private static final int               VERSION        = 1;
+  private static final int               HEADER_SIZE    = 16;
+  private static final int               SLOT_SIZE      = 1024;
+
+  private static final int               CRC            = 0;
+  private static final int               STATUS         = 4;
+  private static final int               KEY_LENGTH     = 5;
+  private static final int               VALUE_LENGTH   = 6;
+  private static final int               KEY            = 8;
+  private static final int               VALUE          = 136;
+  private static final int               MAX_KEY        = VALUE - KEY;
+  private static final int               MAX_VALUE      = SLOT_SIZE - VALUE;
+
+  private static final byte              NO_STATUS      = -1;
+  private static final ComponentStatus[] STATUS_VALUES  = ComponentStatus.values();
+
+  private final FileChannel              channel_;
+  private final Map<String, Integer>     slotMap_       = new HashMap<>();
+  private final Map<String, Entry>       entryMap_      = new HashMap<>();
+  private final Deque<Integer>           freeSlots_     = new ArrayDeque<>();
+  private final ByteBuffer               buffer_        = ByteBuffer.allocate(SLOT_SIZE);
+  private int                            slotCount_;
+
+  /**
+   * The value held in one slot.
+   */
+  public static class Entry
+  {
+    private final ComponentStatus status_;
+    private final String          value_;
+    
+    private Entry(ComponentStatus status, String value)
+    {
+      status_ = status;
+      value_ = value;
+    }
+
+    public @Nullable ComponentStatus getStatus()
+    {
+      return status_;
+    }
+
+    public @Nullable String getValue()
+    {
+      return value_;
+    }
+    
+    private boolean equals(ComponentStatus status, String value)
+    {
+      return status_ == status && Objects.equals(value_, value);
+    }
+  }
+  
+  /**
+   * Open the given status file, creating it if it does not exist.
+   * 
+   * A file with an unrecognised header is treated as empty, it only holds state which
+   * will be refreshed by the next check.
+   * 
+   * @param file The status file.
+   * 
+   * @throws IOException If the file cannot be read.
+   */
+  public StatusFile(File file) throws IOException
+  {
+    channel_ = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    
+    try
+    {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      
+      if(channel_.read(header, 0) == HEADER_SIZE && header.getInt(0) == MAGIC
+          && header.getInt(4) == VERSION && header.getInt(8) == SLOT_SIZE)
+      {
+        slotCount_ = (int)((channel_.size() - HEADER_SIZE) / SLOT_SIZE);
+        
+        for(int slot=0 ; slot<slotCount_ ; slot++)
+          readSlot(slot);
+      }
+      else
+      {
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putInt(SLOT_SIZE).putInt(0).flip();
+        
+        channel_.truncate(0);
+        channel_.write(header, 0);
+      }
+    }
+    catch(IOException e)
+    {
+      channel_.close();
+      throw e;
+    }
+  }
+
+  private void readSlot(int slot) throws IOException
+  {
+    buffer_.clear();
+    channel_.read(buffer_, position(slot));
+    
+    int keyLength   = buffer_.get(KEY_LENGTH) & 0xff;
+    int valueLength = buffer_.getShort(VALUE_LENGTH);
+    
+    if(buffer_.getInt(CRC) != checksum() || keyLength > MAX_KEY || valueLength > MAX_VALUE)
+    {
+      freeSlots_.add(slot);
+      return;
+    }
+    
+    byte[]  bytes   = buffer_.array();
+    String  key     = new String(bytes, KEY, keyLength, StandardCharsets.UTF_8);
+    byte    status  = buffer_.get(STATUS);
+    
+    slotMap_.put(key, slot);
+    entryMap_.put(key, new Entry(
+        status >= 0 && status < STATUS_VALUES.length ? STATUS_VALUES[status] : null,
+        valueLength < 0 ? null : new String(bytes, VALUE, valueLength, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * 
+   * @param key The key of the required value.
+   * 
+   * @return The value stored under the given key, or null if there is none.
+   */
+  public synchronized @Nullable Entry get(String key)
+  {
+    return entryMap_.get(key);
+  }
+
+  /**
+   * Store a value, which is only written if it differs from the one already held.
+   * 
+   * @param key     The key of the value.
+   * @param status  A component status, may be null.
+   * @param value   A text value, may be null.
+   * 
+   * @return true if the value was written.
+   * 
+   * @throws IOException If the value cannot be written.
+   */
+  public synchronized boolean put(String key, @Nullable ComponentStatus status, @Nullable String value) throws IOException
+  {
+    Entry entry = entryMap_.get(key);
+    
+    if(entry != null && entry.equals(status, value))
+      return false;
+    
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    
+    if(keyBytes.length > MAX_KEY)
+      throw new IllegalArgumentException("Status key \"" + key + "\" is too long");
+    
+    byte[]  valueBytes  = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    int     valueLength = valueBytes == null ? -1 : truncate(valueBytes, MAX_VALUE);
+    Integer slot        = slotMap_.get(key);
+    
+    if(slot == null)
+      slot = freeSlots_.isEmpty() ? slotCount_++ : freeSlots_.remove();
+    
+    buffer_.clear();
+    buffer_.put(STATUS, status == null ? NO_STATUS : (byte)status.ordinal());
+    buffer_.put(KEY_LENGTH, (byte)keyBytes.length);
+    buffer_.putShort(VALUE_LENGTH, (short)valueLength);
+    buffer_.position(KEY);
+    buffer_.put(keyBytes);
+    buffer_.position(VALUE);
+    
+    if(valueLength > 0)
+      buffer_.put(valueBytes, 0, valueLength);
+    
+    while(buffer_.hasRemaining())
+      buffer_.put((byte)0);
+    
+    buffer_.putInt(CRC, checksum());
+    buffer_.clear();
+    
+    channel_.write(buffer_, position(slot));
+    
+    slotMap_.put(key, slot);
+    entryMap_.put(key, new Entry(status, valueLength == -1 ? null : new String(valueBytes, 0, valueLength, StandardCharsets.UTF_8)));
+    
+    return true;
+  }
+  
+  /*
+   * The length of the longest prefix of the given UTF-8 bytes which fits in max bytes
+   * without splitting a character.
+   */
+  private static int truncate(byte[] bytes, int max)
+  {
+    if(bytes.length <= max)
+      return bytes.length;
+    
+    int length = max;
+    
+    while(length > 0 && (bytes[length] & 0xc0) == 0x80)
+      length--;
+    
+    return length;
+  }
+  
+  private int checksum()
+  {
+    CRC32 crc = new CRC32();
+    
+    crc.update(buffer_.array(), STATUS, SLOT_SIZE - STATUS);
+    
+    return (int)crc.getValue();
+  }
+  
+  private static long position(int slot)
+  {
+    return HEADER_SIZE + (long)slot * SLOT_SIZE;
+  }
+
+  @Override
+  public synchronized void close() throws IOException
+  {
+    channel_.close();
+  }
+}
@@ -0,0 +1,823 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+/**
+ * An append only store of the status transitions and check latencies of model objects.
+ * 
+ * Events are written as fixed size binary records to one segment file per UTC day, and
+ * are also rolled up into one minute and one hour buckets, which are written to segment
+ * files of their own as each bucket is completed. Old segments are deleted after the
+ * retention period of their resolution, so the raw events are kept for a few days, the
+ * one minute rollups for a couple of weeks and the hourly rollups indefinitely.
+ * 
+ * Series names and status messages are written once to a dictionary and records refer
+ * to them by number. Messages may contain exception text, which can differ on every
+ * failure, so they are truncated to MAX_MESSAGE_LENGTH characters and once the dictionary
+ * holds MAX_NAMES entries any new message is recorded as an empty one.
+ * 
+ * Queries memory map the segment files which overlap the requested period and scan them.
+ * Rollup buckets which have not yet been completed are included from memory.
+ * 
+ * Incomplete buckets are written when the history is closed. If it is reopened before
+ * they are complete they are read back, and overwritten in place when they are written
+ * again, so that a restart does not split a bucket in two.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class StatusHistory implements AutoCloseable
+{
+  private static final String            DICTIONARY         = "names.dat";
+  private static final String            SUFFIX             = ".dat";
+  private static final DateTimeFormatter DAY_FORMAT         = DateTimeFormatter.BASIC_ISO_DATE;
+  private static final long              DAY_MILLIS         = TimeUnit.DAYS.toMillis(1);
+  private static final int               NONE               = -1;
+  private static final int               MAX_MESSAGE_LENGTH = 200;
+  /* package */ static final int         MAX_NAMES          = 10000;
+  private static final ComponentStatus[] STATUS_VALUES      = ComponentStatus.values();
+
+  /**
+   * The resolutions in which history is kept.
+   */
+  public enum Resolution
+  {
+    /** Every event, 24 bytes each. */
+    RAW("raw", 0, 24, 3),
+    
+    /** One minute rollups, 32 bytes per active series per minute. */
+    MINUTE("1m", TimeUnit.MINUTES.toMillis(1), 32, 14),
+    
+    /** One hour rollups, 32 bytes per active series per hour. */
+    HOUR("1h", TimeUnit.HOURS.toMillis(1), 32, 0);
+    
+    private final String prefix_;
+    private final long   bucketMillis_;
+    private final int    recordSize_;
+    private final int    retentionDays_;
+    
+    private Resolution(String prefix, long bucketMillis, int recordSize, int retentionDays)
+    {
+      prefix_ = prefix;
+      bucketMillis_ = bucketMillis;
+      recordSize_ = recordSize;
+      retentionDays_ = retentionDays;
+    }
+
+    /**
+     * 
+     * @return The width of a bucket, or 0 for raw events.
+     */
+    public long getBucketMillis()
+    {
+      return bucketMillis_;
+    }
+
+    /**
+     * 
+     * @return The number of days for which history is kept, or 0 for ever.
+     */
+    public int getRetentionDays()
+    {
+      return retentionDays_;
+    }
+  }
+  
+  private final File                          dir_;
+  private final FileChannel                   dictionary_;
+  private final Map<String, Integer>          nameIds_    = new HashMap<>();
+  private final List<String>                  names_      = new ArrayList<>();
+  private final Segment[]                     segments_   = new Segment[Resolution.values().length];
+  private final Map<Integer, Bucket[]>        buckets_    = new HashMap<>();
+  private final Map<Integer, ComponentStatus> lastStatus_ = new HashMap<>();
+  private final ByteBuffer                    buffer_     = ByteBuffer.allocate(32);
+
+  /**
+   * Open the history in the given directory, creating it if necessary.
+   * 
+   * @param dir The directory in which history is kept.
+   * 
+   * @throws IOException If the history cannot be opened.
+   */
+  public StatusHistory(File dir) throws IOException
+  {
+    dir_ = dir;
+    dir_.mkdirs();
+    
+    dictionary_ = FileChannel.open(new File(dir_, DICTIONARY).toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    
+    loadDictionary();
+  }
+  
+  /**
+   * Return the name of the series for the given object, which is the name of its pod
+   * followed by its own name if it is not the pod itself.
+   * 
+   * @param modelObject A model object.
+   * 
+   * @return The name of its series.
+   */
+  public static String getSeriesName(IModelObject modelObject)
+  {
+    IModelObject pod = modelObject;
+    
+    while(!(pod instanceof IPod) && pod.getParent() != null)
+      pod = pod.getParent();
+    
+    return pod == modelObject ? pod.getName() : pod.getName() + "/" + modelObject.getName();
+  }
+  
+  /**
+   * Record a change in the status of a series.
+   * 
+   * @param series      The name of the series.
+   * @param timeMillis  The time of the change.
+   * @param status      The new status, null is recorded as NotReady.
+   * @param message     The new status message.
+   * 
+   * @throws IOException If the event cannot be written.
+   */
+  public synchronized void recordStatus(String series, long timeMillis, ComponentStatus status, String message) throws IOException
+  {
+    int       seriesId  = getId(series);
+    int       messageId = getMessageId(message);
+    Bucket[]  buckets   = getBuckets(seriesId, timeMillis);
+    
+    if(status == null)
+      status = ComponentStatus.NotReady;
+    
+    lastStatus_.put(seriesId, status);
+    writeRaw(timeMillis, seriesId, messageId, NONE, status);
+    
+    for(Bucket bucket : buckets)
+    {
+      bucket.transitions_++;
+      bucket.last_ = status;
+      
+      if(status.isMoreSevereThan(bucket.worst_))
+        bucket.worst_ = status;
+    }
+  }
+  
+  /**
+   * Record the latency of a check of a series.
+   * 
+   * @param series      The name of the series.
+   * @param timeMillis  The time of the check.
+   * @param micros      The latency of the check in microseconds.
+   * 
+   * @throws IOException If the event cannot be written.
+   */
+  public synchronized void recordLatency(String series, long timeMillis, long micros) throws IOException
+  {
+    int             seriesId  = getId(series);
+    int             value     = (int)Math.min(Integer.MAX_VALUE, Math.max(0, micros));
+    Bucket[]        buckets   = getBuckets(seriesId, timeMillis);
+    ComponentStatus status    = lastStatus_.getOrDefault(seriesId, ComponentStatus.NotReady);
+    
+    writeRaw(timeMillis, seriesId, NONE, value, status);
+    
+    for(Bucket bucket : buckets)
+    {
+      bucket.count_++;
+      bucket.sumMicros_ += value;
+      bucket.maxMicros_ = Math.max(bucket.maxMicros_, value);
+    }
+  }
+  
+  /**
+   * Return the history of the given series between the given times.
+   * 
+   * Samples are returned in the order in which they were written, which is time order
+   * for raw events and for the buckets of any one series.
+   * 
+   * @param series      The name of the series.
+   * @param resolution  The resolution required.
+   * @param fromMillis  The start of the period, inclusive.
+   * @param toMillis    The end of the period, exclusive.
+   * 
+   * @return The samples in the given period.
+   * 
+   * @throws IOException If the history cannot be read.
+   */
+  public synchronized List<Sample> query(String series, Resolution resolution, long fromMillis, long toMillis) throws IOException
+  {
+    List<Sample> samples  = new ArrayList<>();
+    Integer      seriesId = nameIds_.get(series);
+    
+    if(seriesId == null)
+      return samples;
+    
+    Bucket[] buckets  = buckets_.get(seriesId);
+    Bucket   current  = resolution == Resolution.RAW || buckets == null ? null : buckets[resolution.ordinal() - 1];
+    long     skip     = current == null ? NONE : current.start_;
+    
+    for(long day = Math.floorDiv(fromMillis, DAY_MILLIS) ; day <= Math.floorDiv(toMillis - 1, DAY_MILLIS) ; day++)
+    {
+      File file = getSegmentFile(resolution, day);
+      
+      if(file.exists())
+        scan(file, resolution, seriesId, fromMillis, toMillis, skip, samples);
+    }
+    
+    // The current bucket replaces any copy of it written by an earlier close.
+    if(current != null && current.start_ >= fromMillis && current.start_ < toMillis)
+      samples.add(current.toSample());
+    
+    return samples;
+  }
+  
+  /**
+   * Write all incomplete rollup buckets and close the history. The buckets are completed
+   * by the next instance if it is opened before they end.
+   * 
+   * @throws IOException If the buckets cannot be written.
+   */
+  @Override
+  public synchronized void close() throws IOException
+  {
+    try
+    {
+      for(Bucket[] buckets : buckets_.values())
+      {
+        for(Bucket bucket : buckets)
+          writeBucket(bucket);
+      }
+      
+      buckets_.clear();
+    }
+    finally
+    {
+      for(Segment segment : segments_)
+      {
+        if(segment != null)
+          segment.channel_.close();
+      }
+      
+      dictionary_.close();
+    }
+  }
+  
+  private void writeRaw(long timeMillis, int seriesId, int messageId, int value, ComponentStatus status) throws IOException
+  {
+    buffer_.clear();
+    buffer_.putLong(timeMillis);
+    buffer_.putInt(seriesId);
+    buffer_.putInt(messageId);
+    buffer_.putInt(value);
+    buffer_.put((byte)status.ordinal());
+    buffer_.put((byte)0);
+    buffer_.putShort((short)0);
+    
+    write(Resolution.RAW, timeMillis);
+  }
+  
+  private void writeBucket(Bucket bucket) throws IOException
+  {
+    buffer_.clear();
+    buffer_.putLong(bucket.start_);
+    buffer_.putInt(bucket.seriesId_);
+    buffer_.putInt(bucket.count_);
+    buffer_.putLong(bucket.sumMicros_);
+    buffer_.putInt(bucket.maxMicros_);
+    buffer_.put((byte)bucket.worst_.ordinal());
+    buffer_.put((byte)bucket.last_.ordinal());
+    buffer_.putShort((short)Math.min(Short.MAX_VALUE, bucket.transitions_));
+    
+    if(bucket.position_ == NONE)
+      write(bucket.resolution_, bucket.start_);
+    else
+      overwrite(bucket.resolution_, bucket.start_, bucket.position_);
+  }
+  
+  private void write(Resolution resolution, long timeMillis) throws IOException
+  {
+    long    day     = Math.floorDiv(timeMillis, DAY_MILLIS);
+    Segment segment = segments_[resolution.ordinal()];
+    
+    if(segment == null || segment.day_ != day)
+    {
+      // Late rollup buckets for the previous day go to that day's segment.
+      if(segment != null && day < segment.day_)
+      {
+        try(FileChannel channel = openSegment(resolution, day))
+        {
+          writeBuffer(channel);
+        }
+        return;
+      }
+      
+      if(segment != null)
+        segment.channel_.close();
+      
+      segment = new Segment(day, openSegment(resolution, day));
+      segments_[resolution.ordinal()] = segment;
+      
+      expire(resolution, day);
+    }
+    
+    writeBuffer(segment.channel_);
+  }
+
+  /*
+   * Write the buffer over the record at the given position of the segment for the given time.
+   */
+  private void overwrite(Resolution resolution, long timeMillis, long position) throws IOException
+  {
+    long    day     = Math.floorDiv(timeMillis, DAY_MILLIS);
+    Segment segment = segments_[resolution.ordinal()];
+    
+    buffer_.flip();
+    
+    if(segment != null && segment.day_ == day)
+    {
+      writeBuffer(segment.channel_, position);
+    }
+    else
+    {
+      try(FileChannel channel = openSegment(resolution, day))
+      {
+        writeBuffer(channel, position);
+      }
+    }
+  }
+
+  private void writeBuffer(FileChannel channel, long position) throws IOException
+  {
+    while(buffer_.hasRemaining())
+      channel.write(buffer_, position + buffer_.position());
+  }
+
+  private void writeBuffer(FileChannel channel) throws IOException
+  {
+    buffer_.flip();
+    
+    while(buffer_.hasRemaining())
+      channel.write(buffer_);
+  }
+  
+  /*
+   * Open the segment for the given day, positioned for an append. Records are written
+   * at the position of the channel rather than in append mode, so that incomplete
+   * buckets can be overwritten in place.
+   */
+  private FileChannel openSegment(Resolution resolution, long day) throws IOException
+  {
+    FileChannel channel = FileChannel.open(getSegmentFile(resolution, day).toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    
+    try
+    {
+      long size = channel.size();
+      
+      // Drop any partial record left by a crash, which would misalign every later one.
+      if(size % resolution.recordSize_ != 0)
+      {
+        size -= size % resolution.recordSize_;
+        channel.truncate(size);
+      }
+      
+      channel.position(size);
+      
+      return channel;
+    }
+    catch(IOException e)
+    {
+      channel.close();
+      throw e;
+    }
+  }
+  
+  private File getSegmentFile(Resolution resolution, long day)
+  {
+    return new File(dir_, resolution.prefix_ + "-" + LocalDate.ofEpochDay(day).format(DAY_FORMAT) + SUFFIX);
+  }
+  
+  /*
+   * Delete the segments of the given resolution which are older than its retention period.
+   */
+  private void expire(Resolution resolution, long today)
+  {
+    if(resolution.retentionDays_ == 0)
+      return;
+    
+    String  prefix  = resolution.prefix_ + "-";
+    File[]  files   = dir_.listFiles((d, name) -> name.startsWith(prefix) && name.endsWith(SUFFIX));
+    
+    if(files == null)
+      return;
+    
+    for(File file : files)
+    {
+      String name = file.getName();
+      
+      try
+      {
+        long day = LocalDate.parse(name.substring(prefix.length(), name.length() - SUFFIX.length()), DAY_FORMAT).toEpochDay();
+        
+        if(day <= today - resolution.retentionDays_)
+          file.delete();
+      }
+      catch(RuntimeException e)
+      {
+        // Not one of ours, leave it alone.
+      }
+    }
+  }
+  
+  private void scan(File file, Resolution resolution, int seriesId, long fromMillis, long toMillis, long skip,
+      List<Sample> samples) throws IOException
+  {
+    try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      int              recordSize = resolution.recordSize_;
+      long             size       = channel.size() - channel.size() % recordSize;
+      MappedByteBuffer map        = channel.map(MapMode.READ_ONLY, 0, size);
+      
+      for(int position = 0 ; position < size ; position += recordSize)
+      {
+        long time = map.getLong(position);
+        
+        if(map.getInt(position + 8) != seriesId || time < fromMillis || time >= toMillis || time == skip)
+          continue;
+        
+        if(resolution == Resolution.RAW)
+        {
+          int             messageId = map.getInt(position + 12);
+          int             value     = map.getInt(position + 16);
+          ComponentStatus status    = STATUS_VALUES[map.get(position + 20)];
+          
+          if(value == NONE)
+            samples.add(new Sample(time, status, status, names_.get(messageId == NONE ? 0 : messageId), 0, 0, 0, 1));
+          else
+            samples.add(new Sample(time, status, status, null, 1, value, value, 0));
+        }
+        else
+        {
+          samples.add(new Sample(time, STATUS_VALUES[map.get(position + 29)], STATUS_VALUES[map.get(position + 28)], null,
+              map.getInt(position + 12), map.getLong(position + 16), map.getInt(position + 24), map.getShort(position + 30)));
+        }
+      }
+    }
+  }
+  
+  /*
+   * Load the last bucket of the given series which was written to the segment for the
+   * given time, which is an incomplete bucket written by close() if it is the current
+   * one. The status of the series is restored from it in either case.
+   */
+  private void restore(Bucket bucket, long timeMillis) throws IOException
+  {
+    Resolution  resolution  = bucket.resolution_;
+    long        start       = timeMillis - Math.floorMod(timeMillis, resolution.bucketMillis_);
+    File        file        = getSegmentFile(resolution, Math.floorDiv(timeMillis, DAY_MILLIS));
+    
+    if(!file.exists())
+      return;
+    
+    try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      int              recordSize = resolution.recordSize_;
+      long             size       = channel.size() - channel.size() % recordSize;
+      MappedByteBuffer map        = channel.map(MapMode.READ_ONLY, 0, size);
+      
+      for(int position = (int)size - recordSize ; position >= 0 ; position -= recordSize)
+      {
+        if(map.getInt(position + 8) != bucket.seriesId_)
+          continue;
+        
+        ComponentStatus last = STATUS_VALUES[map.get(position + 29)];
+        
+        lastStatus_.putIfAbsent(bucket.seriesId_, last);
+        
+        if(map.getLong(position) == start)
+        {
+          bucket.reset(start, last);
+          bucket.count_ = map.getInt(position + 12);
+          bucket.sumMicros_ = map.getLong(position + 16);
+          bucket.maxMicros_ = map.getInt(position + 24);
+          bucket.worst_ = STATUS_VALUES[map.get(position + 28)];
+          bucket.transitions_ = map.getShort(position + 30);
+          bucket.position_ = position;
+        }
+        
+        return;
+      }
+    }
+  }
+  
+  /*
+   * Return the current buckets of the given series for each rollup resolution, writing
+   * any which the given time has moved past.
+   */
+  private Bucket[] getBuckets(int seriesId, long timeMillis) throws IOException
+  {
+    Bucket[] buckets = buckets_.get(seriesId);
+    
+    if(buckets == null)
+    {
+      buckets = new Bucket[] { new Bucket(seriesId, Resolution.MINUTE), new Bucket(seriesId, Resolution.HOUR) };
+      buckets_.put(seriesId, buckets);
+      
+      for(Bucket bucket : buckets)
+        restore(bucket, timeMillis);
+    }
+    
+    for(Bucket bucket : buckets)
+    {
+      long start = timeMillis - Math.floorMod(timeMillis, bucket.resolution_.bucketMillis_);
+      
+      if(bucket.start_ != start)
+      {
+        if(bucket.start_ != NONE)
+          writeBucket(bucket);
+        
+        bucket.reset(start, lastStatus_.getOrDefault(seriesId, ComponentStatus.NotReady));
+      }
+    }
+    
+    return buckets;
+  }
+  
+  private void loadDictionary() throws IOException
+  {
+    // Message id 0 is reserved for the empty message.
+    names_.add("");
+    nameIds_.put("", 0);
+    
+    long size = dictionary_.size();
+    
+    if(size == 0)
+    {
+      appendName("");
+      return;
+    }
+    
+    MappedByteBuffer map = dictionary_.map(MapMode.READ_ONLY, 0, size);
+    
+    // Skip the reserved entry.
+    map.position(2 + map.getShort(0));
+    
+    while(map.remaining() >= 2)
+    {
+      int length = map.getShort() & 0xFFFF;
+      
+      if(map.remaining() < length)
+        break;
+      
+      byte[] bytes = new byte[length];
+      
+      map.get(bytes);
+      
+      String name = new String(bytes, StandardCharsets.UTF_8);
+      
+      nameIds_.put(name, names_.size());
+      names_.add(name);
+    }
+    
+    // Drop any partial entry left by a crash.
+    dictionary_.truncate(map.position());
+    dictionary_.position(map.position());
+  }
+  
+  private int getId(String name) throws IOException
+  {
+    Integer id = nameIds_.get(name);
+    
+    if(id == null)
+    {
+      id = names_.size();
+      appendName(name);
+      names_.add(name);
+      nameIds_.put(name, id);
+    }
+    
+    return id;
+  }
+
+  private int getMessageId(String message) throws IOException
+  {
+    if(message == null || message.isEmpty())
+      return NONE;
+    
+    if(message.length() > MAX_MESSAGE_LENGTH)
+      message = message.substring(0, MAX_MESSAGE_LENGTH);
+    
+    Integer id = nameIds_.get(message);
+    
+    if(id != null)
+      return id;
+    
+    // Series names are always added, there are only as many as there are model objects.
+    if(names_.size() >= MAX_NAMES)
+      return NONE;
+    
+    return getId(message);
+  }
+
+  private void appendName(String name) throws IOException
+  {
+    byte[]      bytes   = name.getBytes(StandardCharsets.UTF_8);
+    int         length  = Math.min(bytes.length, 0xFFFF);
+    ByteBuffer  buf     = ByteBuffer.allocate(2 + length);
+    
+    buf.putShort((short)length);
+    buf.put(bytes, 0, length);
+    buf.flip();
+    
+    dictionary_.position(dictionary_.size());
+    
+    while(buf.hasRemaining())
+      dictionary_.write(buf);
+  }
+  
+  private static class Segment
+  {
+    private final long        day_;
+    private final FileChannel channel_;
+    
+    private Segment(long day, FileChannel channel)
+    {
+      day_ = day;
+      channel_ = channel;
+    }
+  }
+  
+  private static class Bucket
+  {
+    private final int         seriesId_;
+    private final Resolution  resolution_;
+    private long              start_    = NONE;
+    private long              position_ = NONE;
+    private int               count_;
+    private long              sumMicros_;
+    private int               maxMicros_;
+    private int               transitions_;
+    private ComponentStatus   worst_;
+    private ComponentStatus   last_;
+    
+    private Bucket(int seriesId, Resolution resolution)
+    {
+      seriesId_ = seriesId;
+      resolution_ = resolution;
+    }
+    
+    private void reset(long start, ComponentStatus status)
+    {
+      start_ = start;
+      position_ = NONE;
+      count_ = 0;
+      sumMicros_ = 0;
+      maxMicros_ = 0;
+      transitions_ = 0;
+      worst_ = status;
+      last_ = status;
+    }
+    
+    private Sample toSample()
+    {
+      return new Sample(start_, last_, worst_, null, count_, sumMicros_, maxMicros_, transitions_);
+    }
+  }
+  
+  /**
+   * A raw event or a rollup bucket.
+   */
+  public static class Sample
+  {
+    private final long            timeMillis_;
+    private final ComponentStatus status_;
+    private final ComponentStatus worstStatus_;
+    private final String          message_;
+    private final int             count_;
+    private final long            sumMicros_;
+    private final int             maxMicros_;
+    private final int             transitions_;
+    
+    private Sample(long timeMillis, ComponentStatus status, ComponentStatus worstStatus, String message, int count,
+        long sumMicros, int maxMicros, int transitions)
+    {
+      timeMillis_ = timeMillis;
+      status_ = status;
+      worstStatus_ = worstStatus;
+      message_ = message;
+      count_ = count;
+      sumMicros_ = sumMicros;
+      maxMicros_ = maxMicros;
+      transitions_ = transitions;
+    }
+
+    /**
+     * 
+     * @return The time of a raw event or the start of a bucket.
+     */
+    public long getTimeMillis()
+    {
+      return timeMillis_;
+    }
+
+    /**
+     * 
+     * @return The status after a raw event, or at the end of a bucket.
+     */
+    public ComponentStatus getStatus()
+    {
+      return status_;
+    }
+
+    /**
+     * 
+     * @return The most severe status during a bucket, or the status after a raw event.
+     */
+    public ComponentStatus getWorstStatus()
+    {
+      return worstStatus_;
+    }
+
+    /**
+     * 
+     * @return The new status message of a status change, otherwise null.
+     */
+    public String getMessage()
+    {
+      return message_;
+    }
+
+    /**
+     * 
+     * @return The number of latencies recorded.
+     */
+    public int getCount()
+    {
+      return count_;
+    }
+
+    /**
+     * 
+     * @return The mean latency in microseconds, or 0 if none were recorded.
+     */
+    public long getMeanMicros()
+    {
+      return count_ == 0 ? 0 : sumMicros_ / count_;
+    }
+
+    /**
+     * 
+     * @return The maximum latency in microseconds.
+     */
+    public int getMaxMicros()
+    {
+      return maxMicros_;
+    }
+
+    /**
+     * 
+     * @return The number of status changes in a bucket, 1 for a raw status change.
+     */
+    public int getTransitions()
+    {
+      return transitions_;
+    }
+  }
+}
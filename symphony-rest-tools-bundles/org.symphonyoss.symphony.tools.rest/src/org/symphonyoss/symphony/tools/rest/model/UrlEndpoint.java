@@ -25,9 +25,12 @@ package org.symphonyoss.symphony.tools.rest.model;
 
 import java.net.URL;
 
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
+
 public class UrlEndpoint extends ModelObject implements IUrlEndpoint
 {
-  private URL url_;
+  private URL                    url_;
+  private final LatencyHistogram latency_ = new LatencyHistogram();
 
   public UrlEndpoint(IModelObjectContainer parent, String typeName, String name, URL url)
   {
@@ -61,5 +64,11 @@ public class UrlEndpoint extends ModelObject implements IUrlEndpoint
     return url_;
   }
 
+  @Override
+  public LatencyHistogram getLatency()
+  {
+    return latency_;
+  }
+
 
 }
@@ -23,6 +23,15 @@
 
 package org.symphonyoss.symphony.tools.rest.model.osmosis;
 
+/**
+ * A listener to changes in the status of a component.
+ * 
+ * Called synchronously on the thread which changed the status, with the lock on the
+ * component held, so implementations must not block.
+ * 
+ * @author Bruce Skingle
+ *
+ */
 public interface IComponentListener
 {
   void componentStatusChanged(IComponent component);
@@ -0,0 +1,106 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+
+/**
+ * The interval between checks of a single object, which adapts to the results.
+ * 
+ * Right after the status changes the object is checked again after the minimum
+ * interval. Each check which finds the same status doubles the interval, up to a
+ * ceiling which depends on the severity of the status: the maximum interval while
+ * the object is OK, the base interval while it is at Warning and half the base
+ * interval for anything worse. So objects which have been OK for a long time are
+ * checked rarely and failures are followed closely.
+ * 
+ * Not thread safe, each instance is used by one repeating check.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class AdaptiveInterval
+{
+  private final long      baseMillis_;
+  private final long      minMillis_;
+  private final long      maxMillis_;
+
+  private ComponentStatus lastStatus_;
+  private long            intervalMillis_;
+
+  /**
+   * Constructor.
+   * 
+   * @param baseMillis  The interval after the first check.
+   * @param maxMillis   The longest interval, for objects which are stable and OK.
+   *                    If this is not more than baseMillis the interval never changes.
+   */
+  public AdaptiveInterval(long baseMillis, long maxMillis)
+  {
+    baseMillis_ = baseMillis;
+    maxMillis_ = Math.max(baseMillis, maxMillis);
+    minMillis_ = maxMillis_ == baseMillis_ ? baseMillis_ : Math.max(1000, baseMillis / 4);
+    intervalMillis_ = baseMillis;
+  }
+  
+  /**
+   * Record the result of a check and return the interval before the next one.
+   * 
+   * @param status  The status found by the check.
+   * 
+   * @return The interval in milliseconds before the next check.
+   */
+  public long next(ComponentStatus status)
+  {
+    if(lastStatus_ == null)
+      intervalMillis_ = baseMillis_;
+    else if(status != lastStatus_)
+      intervalMillis_ = minMillis_;
+    else
+      intervalMillis_ = Math.min(intervalMillis_ * 2, getCeiling(status));
+    
+    lastStatus_ = status;
+    
+    return intervalMillis_;
+  }
+  
+  private long getCeiling(ComponentStatus status)
+  {
+    if(maxMillis_ == baseMillis_)
+      return baseMillis_;
+    
+    switch(status)
+    {
+      case OK:
+        return maxMillis_;
+        
+      case Warning:
+        return baseMillis_;
+        
+      default:
+        return Math.max(minMillis_, baseMillis_ / 2);
+    }
+  }
+}
@@ -27,7 +27,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.security.Key;
 import java.security.KeyStore;
@@ -48,14 +47,13 @@ import java.util.regex.Pattern;
 import javax.net.ssl.SSLHandshakeException;
 import javax.security.auth.x500.X500Principal;
 
-import org.symphonyoss.symphony.jcurl.JCurl;
-import org.symphonyoss.symphony.jcurl.JCurl.Builder;
-import org.symphonyoss.symphony.jcurl.JCurl.HttpMethod;
 import org.symphonyoss.symphony.tools.rest.Srt;
 import org.symphonyoss.symphony.tools.rest.SrtCommand;
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.IPod;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
 import org.symphonyoss.symphony.tools.rest.util.IObjective;
 import org.symphonyoss.symphony.tools.rest.util.home.ISrtHome;
 
@@ -387,24 +385,24 @@ public class CheckCerts extends SrtCommand
   {
     try
     {
-      Builder builder = getJCurl()
-          .trustAllCertificates(true)
-          .trustAllHostnames(true)
+      TransportRequest.Builder builder = newRequest()
+          .setUrl(url)
+          .setTlsConfig(getTlsConfig()
+              .setTrustAllCertificates(true)
+              .setTrustAllHostnames(true)
+              .build())
           ;
       
       if(authenticate)
-        builder.method(HttpMethod.POST);
+        builder.setMethod(TransportRequest.POST);
       
-      JCurl jCurl = builder
-          .build();
+      TransportResponse response = getTransport().execute(builder.build());
       
-      HttpURLConnection connection = jCurl.connect(url);
+      printTimings(response);
       
-      println(name + " is reachable bypasssing server cert checks, status: " + connection.getResponseCode());
+      println(name + " is reachable bypasssing server cert checks, status: " + response.getHttpStatus());
       
-      JCurl.Response jcr = jCurl.processResponse(connection);
-
-      Certificate[] certs = jcr.getServerCertificates();
+      Certificate[] certs = response.getServerCertificates();
 
       println("Server cert chain is:");
       for(Certificate cert : certs)
@@ -448,24 +446,25 @@ public class CheckCerts extends SrtCommand
     
     try
     {
-      Builder builder = getJCurl();
+      TransportRequest.Builder builder = newRequest()
+          .setUrl(url);
       
       if(authenticate)
-        builder.method(HttpMethod.POST);
+        builder.setMethod(TransportRequest.POST);
+      
+      TransportResponse response = getTransport().execute(builder.build());
       
-      JCurl jCurl = builder
-          .build();
-      HttpURLConnection connection = jCurl.connect(url);
+      printTimings(response);
       
       if(authenticate)
       {
-        if(connection.getResponseCode() == 200)
+        if(response.getHttpStatus() == 200)
         {
           if(objective!= null)
             objective.setObjectiveStatus(ComponentStatus.OK, AUTHENTICATED);
           return printf("%s is reachable%n", name, CERTS_ARE_GOOD);
         }
-        else if(connection.getResponseCode() == 401)
+        else if(response.getHttpStatus() == 401)
         {
           if(objective!= null)
             objective.setObjectiveStatus(ComponentStatus.Failed, CERTS_ARE_BAD_ACCOUNT);
@@ -474,14 +473,14 @@ public class CheckCerts extends SrtCommand
         else
         {
           if(objective!= null)
-            objective.setObjectiveStatus(ComponentStatus.Error, CERTS_ARE_BAD_UNKNOWN, connection.getResponseCode());
-          return error("%s is reachable, with unexpected status: %d", name, connection.getResponseCode());
+            objective.setObjectiveStatus(ComponentStatus.Error, CERTS_ARE_BAD_UNKNOWN, response.getHttpStatus());
+          return error("%s is reachable, with unexpected status: %d", name, response.getHttpStatus());
         }
       }
       if(objective!= null)
         objective.setObjectiveStatus(ComponentStatus.OK, CERTS_ARE_GOOD_SERVER);
       
-      return printf("%s is reachable, status: %d%n", name, connection.getResponseCode(), CERTS_ARE_GOOD_SERVER);
+      return printf("%s is reachable, status: %d%n", name, response.getHttpStatus(), CERTS_ARE_GOOD_SERVER);
     }
     catch(SSLHandshakeException e)
     {
@@ -490,7 +489,7 @@ public class CheckCerts extends SrtCommand
       
       return error("%s is NOT reachable - SSL Problem%n%s%n", name, CERTS_ARE_BAD_TRUST);
     }
-    catch(IOException e)
+    catch(IOException | CertificateParsingException e)
     {
       if(objective != null)
         objective.setObjectiveStatus(ComponentStatus.Failed, WE_CANT_TELL);
@@ -24,32 +24,37 @@
 package org.symphonyoss.symphony.tools.rest.probe;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.security.cert.CertificateParsingException;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
 
-import org.symphonyoss.symphony.jcurl.JCurl;
-import org.symphonyoss.symphony.jcurl.JCurl.Response;
 import org.symphonyoss.symphony.tools.rest.Srt;
 import org.symphonyoss.symphony.tools.rest.SrtCommand;
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.IModelObject;
 import org.symphonyoss.symphony.tools.rest.model.IPod;
+import org.symphonyoss.symphony.tools.rest.model.IUrlEndpoint;
 import org.symphonyoss.symphony.tools.rest.model.ModelObject;
+import org.symphonyoss.symphony.tools.rest.model.ModelObjectContainer.Mutation;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.IComponent;
+import org.symphonyoss.symphony.tools.rest.transport.DeadlineExceededException;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
 import org.symphonyoss.symphony.tools.rest.util.IObjective;
 import org.symphonyoss.symphony.tools.rest.util.home.ISrtHome;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
 
 public class CheckPod extends SrtCommand
 {
-  private static final String PROGRAM_NAME       = "CheckPod";
-  private static final String CANNOT_CONNECT     = "Cannot Connect";
+  private static final String      PROGRAM_NAME   = "CheckPod";
+  private static final String      CANNOT_CONNECT = "Cannot Connect";
+  private static final JsonFactory JSON_FACTORY   = new JsonFactory();
 
   private IPod                pod_;
   private boolean             structureChange_;
@@ -131,16 +136,26 @@ public class CheckPod extends SrtCommand
       
       pod_.visit((component) -> 
       {
-        component.resetStatus();
+        // Endpoints are not checked here, MonitorPods checks them separately.
+        if(!(component instanceof IUrlEndpoint))
+          component.resetStatus();
       });
       
       URL url = createURL(pod_.getPodUrl(),
           Srt.POD_HEALTHCHECK_PATH);
       
-      JCurl jCurl = getJCurl().build();
-      HttpURLConnection connection = jCurl.connect(url);
+      long              start    = System.nanoTime();
+      TransportResponse response = getTransport().execute(newRequest()
+          .setUrl(url)
+          .addExpectedStatus(200)
+          .addExpectedStatus(500)
+          .setParseJson(false)
+          .build());
       
-      int responseCode = connection.getResponseCode();
+      pod_.getLatency().record(System.nanoTime() - start);
+      printTimings(response);
+      
+      int responseCode = response.getHttpStatus();
       
       switch(responseCode)
       {
@@ -150,57 +165,81 @@ public class CheckPod extends SrtCommand
           
         default:
           println("Healthcheck failed.");
-          pod_.setComponentStatus(ComponentStatus.Failed, "Error " + connection.getResponseCode());
+          pod_.setComponentStatus(ComponentStatus.Failed, "Error " + responseCode);
           pod_.getManager().modelObjectChanged(pod_);
           return;
       }
   
-      Response response = jCurl.processResponse(connection);
-      JsonNode healthJson = response.getJsonNode();
-  
-      if (healthJson == null)
-      {
-        println("This looks a lot like a Symphony Pod, but it isn't");
-        pod_.setComponentStatus(ComponentStatus.Failed, "Non-JSON response from HealthCheck");
-        pod_.getManager().modelObjectChanged(pod_);
-        return;
-      }
-  
-      if (!healthJson.isObject())
+      byte[]  body              = response.getBody();
+      String  contentType       = response.getContentType();
+      int     failedComponents  = 0;
+      int     totalComponents   = 0;
+      
+      if(body == null || contentType == null || !contentType.endsWith("json"))
       {
-        println("This looks like a Symphony Pod, but the healthcheck returns something other than an object");
-        println(healthJson);
-        pod_.setComponentStatus(ComponentStatus.Failed, String.format("Received a JSON %s from HealthCheck, but we expect an object", healthJson.getNodeType()));
-        pod_.getManager().modelObjectChanged(pod_);
+        nonJsonHealthCheck();
         return;
       }
       
-      Iterator<String> it = healthJson.fieldNames();
-      int failedComponents = 0;
-      int totalComponents = 0;
+      /*
+       * The healthcheck is parsed as a stream, updating each component as its field is
+       * read, rather than building a tree which is thrown away as soon as it is walked.
+       * New components are added to the pod in one structural change at the end.
+       */
+      Mutation components = pod_.mutateComponents();
       
-      while(it.hasNext())
+      try(JsonParser parser = JSON_FACTORY.createParser(body))
       {
-        String name = it.next();
-        boolean healthy = healthJson.get(name).asBoolean();
+        JsonToken token = parser.nextToken();
         
-        printf("%30s %s\n", name, healthy);
-        
-        pod_.getComponent(name, 
-            (parent, componentName) -> 
-            {
-              ModelObject component = new ModelObject(pod_, IComponent.GENERIC_COMPONENT, componentName);
-              
-              structureChange_ = true;
-              return component;
-            },
-            (existingComponent) -> changedComponents_.add(existingComponent)
-        ).setComponentStatus(healthy ? ComponentStatus.OK : ComponentStatus.Failed, "");
+        if(token == null)
+        {
+          nonJsonHealthCheck();
+          return;
+        }
         
-        if(!healthy)
-          failedComponents++;
+        if(token != JsonToken.START_OBJECT)
+        {
+          println("This looks like a Symphony Pod, but the healthcheck returns something other than an object");
+          println(response.getBodyAsString());
+          pod_.setComponentStatus(ComponentStatus.Failed, String.format("Received a JSON %s from HealthCheck, but we expect an object", getNodeType(token)));
+          pod_.getManager().modelObjectChanged(pod_);
+          return;
+        }
         
-        totalComponents++;
+        while(parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+          String  name    = parser.getCurrentName();
+          boolean healthy = asBoolean(parser, parser.nextToken());
+          
+          printf("%30s %s\n", name, healthy);
+          
+          pod_.getComponent(name, 
+              (parent, componentName) -> 
+              {
+                ModelObject component = new ModelObject(pod_, IComponent.GENERIC_COMPONENT, componentName);
+                
+                structureChange_ = true;
+                return component;
+              },
+              (existingComponent) -> changedComponents_.add(existingComponent),
+              components
+          ).setComponentStatus(healthy ? ComponentStatus.OK : ComponentStatus.Failed, "");
+          
+          if(!healthy)
+            failedComponents++;
+          
+          totalComponents++;
+        }
+      }
+      catch(JsonProcessingException e)
+      {
+        nonJsonHealthCheck();
+        return;
+      }
+      finally
+      {
+        components.apply();
       }
       
       switch(responseCode)
@@ -255,6 +294,13 @@ public class CheckPod extends SrtCommand
         }
       }
     }
+    catch(DeadlineExceededException e)
+    {
+      error("Healthcheck did not complete before the deadline");
+      pod_.setComponentStatus(ComponentStatus.Failed, DEADLINE_EXCEEDED);
+      podObjective_.setObjectiveStatus(ComponentStatus.Failed, DEADLINE_EXCEEDED);
+      pod_.getManager().modelObjectChanged(pod_);
+    }
     catch(IOException | CertificateParsingException e)
     {
       error(e, "Cannot connect to pod");
@@ -263,4 +309,69 @@ public class CheckPod extends SrtCommand
       pod_.getManager().modelObjectChanged(pod_);
     }
   }
+  
+  private void nonJsonHealthCheck()
+  {
+    println("This looks a lot like a Symphony Pod, but it isn't");
+    pod_.setComponentStatus(ComponentStatus.Failed, "Non-JSON response from HealthCheck");
+    pod_.getManager().modelObjectChanged(pod_);
+  }
+  
+  /*
+   * The same conversion as JsonNode.asBoolean(), skipping any structured value.
+   */
+  private static boolean asBoolean(JsonParser parser, JsonToken token) throws IOException
+  {
+    if(token == null)
+      return false;
+    
+    switch(token)
+    {
+      case VALUE_TRUE:
+        return true;
+        
+      case VALUE_STRING:
+        return "true".equals(parser.getText().trim());
+        
+      case VALUE_NUMBER_INT:
+        return parser.getLongValue() != 0;
+        
+      case START_OBJECT:
+      case START_ARRAY:
+        parser.skipChildren();
+        return false;
+        
+      default:
+        return false;
+    }
+  }
+  
+  /*
+   * The name of the JsonNodeType which a value starting with the given token would have.
+   */
+  private static String getNodeType(JsonToken token)
+  {
+    switch(token)
+    {
+      case START_ARRAY:
+        return JsonNodeType.ARRAY.toString();
+        
+      case VALUE_STRING:
+        return JsonNodeType.STRING.toString();
+        
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return JsonNodeType.NUMBER.toString();
+        
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return JsonNodeType.BOOLEAN.toString();
+        
+      case VALUE_NULL:
+        return JsonNodeType.NULL.toString();
+        
+      default:
+        return token.toString();
+    }
+  }
 }
@@ -0,0 +1,191 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The endpoints found by a previous probe of a host, saved in SRT_HOME so that
+ * a later probe can check them directly rather than scanning again.
+ * 
+ * Entries older than the TTL are ignored. A probe made with a client certificate
+ * may find endpoints which one without it does not, so entries are kept separately
+ * for each keystore, see getKeystoreIdentity().
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class DiscoveryCache
+{
+  public static final String WEB_URL          = "webUrl";
+  public static final String POD_URL          = "podUrl";
+  public static final String POD_API_URL      = "podApiUrl";
+  public static final String SESSION_AUTH_URL = "sessionAuthUrl";
+  public static final String KEY_MANAGER_URL  = "keyManagerUrl";
+  public static final String KEY_AUTH_URL     = "keyAuthUrl";
+  public static final String AGENT_API_URL    = "agentApiUrl";
+  public static final String POD_ID           = "podId";
+  
+  private static final String TIMESTAMP       = "timestamp";
+  
+  private final File         file_;
+  private final long         ttlMillis_;
+  private ObjectNode         json_ = JsonNodeFactory.instance.objectNode();
+
+  /**
+   * Constructor.
+   * 
+   * @param file      The file in which the cache is stored.
+   * @param ttlMillis The time for which a saved entry is valid.
+   */
+  public DiscoveryCache(File file, long ttlMillis)
+  {
+    file_ = file;
+    ttlMillis_ = ttlMillis;
+  }
+  
+  /**
+   * Return the identity of the given keystore, under which a probe made with it is cached.
+   * 
+   * @param keystore  The keystore file name, may be null or empty.
+   * @param storetype The keystore type.
+   * 
+   * @return The identity of the given keystore, or null if no keystore is given.
+   */
+  public static @Nullable String getKeystoreIdentity(@Nullable String keystore, String storetype)
+  {
+    if(keystore == null || keystore.length() == 0)
+      return null;
+    
+    File file = new File(keystore);
+    
+    try
+    {
+      return file.getCanonicalPath() + ":" + storetype;
+    }
+    catch(IOException e)
+    {
+      return file.getAbsolutePath() + ":" + storetype;
+    }
+  }
+  
+  /**
+   * Load the saved entry.
+   * 
+   * @return true if there is a saved entry which has not expired.
+   */
+  public boolean load()
+  {
+    if(ttlMillis_ <= 0 || !file_.isFile())
+      return false;
+    
+    try
+    {
+      JsonNode json = new ObjectMapper().readTree(file_);
+      
+      if(!json.isObject() || System.currentTimeMillis() - json.path(TIMESTAMP).asLong() > ttlMillis_)
+        return false;
+      
+      json_ = (ObjectNode) json;
+      
+      return true;
+    }
+    catch(IOException e)
+    {
+      // Treat a damaged cache as a miss, it will be overwritten by the next full probe.
+      return false;
+    }
+  }
+  
+  /**
+   * Save the current entry.
+   * 
+   * @throws IOException If the file cannot be written.
+   */
+  public void save() throws IOException
+  {
+    json_.put(TIMESTAMP, System.currentTimeMillis());
+    
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file_, json_);
+  }
+  
+  /**
+   * Delete any saved entry, so that the next probe does a full scan.
+   */
+  public void invalidate()
+  {
+    file_.delete();
+    json_ = JsonNodeFactory.instance.objectNode();
+  }
+  
+  public @Nullable URL getUrl(String name)
+  {
+    JsonNode node = json_.get(name);
+    
+    if(node == null || !node.isTextual())
+      return null;
+    
+    try
+    {
+      return new URL(node.asText());
+    }
+    catch(MalformedURLException e)
+    {
+      return null;
+    }
+  }
+  
+  public DiscoveryCache setUrl(String name, @Nullable URL url)
+  {
+    if(url == null)
+      json_.remove(name);
+    else
+      json_.put(name, url.toString());
+    
+    return this;
+  }
+  
+  public int getPodId()
+  {
+    return json_.path(POD_ID).asInt();
+  }
+  
+  public DiscoveryCache setPodId(int podId)
+  {
+    json_.put(POD_ID, podId);
+    
+    return this;
+  }
+}
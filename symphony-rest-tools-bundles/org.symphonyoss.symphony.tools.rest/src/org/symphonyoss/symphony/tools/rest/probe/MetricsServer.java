@@ -0,0 +1,302 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.symphonyoss.symphony.tools.rest.model.IModelObject;
+import org.symphonyoss.symphony.tools.rest.model.IPod;
+import org.symphonyoss.symphony.tools.rest.model.IPodManager;
+import org.symphonyoss.symphony.tools.rest.model.IUrlEndpoint;
+import org.symphonyoss.symphony.tools.rest.model.ModelTreeSpliterator;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
+
+/**
+ * A minimal HTTP listener which serves the status of the model in OpenMetrics text format,
+ * for scraping by Prometheus or similar.
+ * 
+ * Every model object under the pod manager is exported as a stateset of its ComponentStatus,
+ * and every IUrlEndpoint, which includes pods and agents as well as their endpoints, has a
+ * counter of checks and a gauge of the latency of the last check. The body is written straight to the socket while
+ * walking the live model, without being built up in memory first.
+ * 
+ * Requests are served one at a time on a single daemon thread, which is plenty for a scraper.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class MetricsServer implements AutoCloseable
+{
+  public static final String  PATH                  = "/metrics";
+  
+  private static final String CONTENT_TYPE          = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+  private static final int    READ_TIMEOUT_MILLIS   = 5000;
+  private static final String STATUS                = "srt_component_status";
+  private static final String CHECKS                = "srt_endpoint_checks";
+  private static final String LAST_CHECK            = "srt_endpoint_last_check_seconds";
+
+  private final IPodManager   podManager_;
+  private final ServerSocket  serverSocket_;
+  private final Thread        thread_;
+
+  /**
+   * Start serving metrics.
+   * 
+   * @param podManager  The model to export.
+   * @param address     The address to bind to, normally the loopback address.
+   * @param port        The port to listen on, or 0 for any free port.
+   * 
+   * @throws IOException If the port cannot be bound.
+   */
+  public MetricsServer(IPodManager podManager, InetAddress address, int port) throws IOException
+  {
+    podManager_ = podManager;
+    serverSocket_ = new ServerSocket(port, 50, address);
+    
+    thread_ = new Thread(() -> run(), "MetricsServer " + getPort());
+    thread_.setDaemon(true);
+    thread_.start();
+  }
+  
+  /**
+   * 
+   * @return The port on which metrics are served.
+   */
+  public int getPort()
+  {
+    return serverSocket_.getLocalPort();
+  }
+
+  @Override
+  public void close()
+  {
+    try
+    {
+      serverSocket_.close();
+    }
+    catch (IOException e)
+    {
+      // Nothing more we can do
+    }
+  }
+  
+  private void run()
+  {
+    while(!serverSocket_.isClosed())
+    {
+      try(Socket socket = serverSocket_.accept())
+      {
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        handle(socket);
+      }
+      catch(SocketException e)
+      {
+        // Closed, or the client went away.
+      }
+      catch(IOException | RuntimeException e)
+      {
+        // The scraper will try again.
+      }
+    }
+  }
+
+  private void handle(Socket socket) throws IOException
+  {
+    BufferedReader  in          = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+    Writer          out         = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    String          requestLine = in.readLine();
+    String          line;
+    
+    if(requestLine == null)
+      return;
+    
+    do
+    {
+      line = in.readLine();
+    } while(line != null && !line.isEmpty());
+    
+    String[] parts  = requestLine.split(" ");
+    String   method = parts[0];
+    String   path   = parts.length > 1 ? parts[1] : "";
+    
+    if(!"GET".equals(method) && !"HEAD".equals(method))
+    {
+      writeHeader(out, "405 Method Not Allowed", "text/plain");
+    }
+    else if(!PATH.equals(path))
+    {
+      writeHeader(out, "404 Not Found", "text/plain");
+    }
+    else
+    {
+      writeHeader(out, "200 OK", CONTENT_TYPE);
+      
+      if("GET".equals(method))
+        write(out);
+    }
+    
+    out.flush();
+  }
+
+  private void writeHeader(Writer out, String status, String contentType) throws IOException
+  {
+    out.write("HTTP/1.1 " + status + "\r\n");
+    out.write("Content-Type: " + contentType + "\r\n");
+    out.write("Connection: close\r\n");
+    out.write("\r\n");
+  }
+  
+  /**
+   * Write the metrics for the current state of the model.
+   * 
+   * @param out The destination.
+   * 
+   * @throws IOException If the write fails.
+   */
+  public void write(Writer out) throws IOException
+  {
+    out.write("# TYPE " + STATUS + " stateset\n");
+    out.write("# HELP " + STATUS + " The status of each pod and of every object under it.\n");
+    
+    visitAll((modelObject) ->
+    {
+      ComponentStatus current = modelObject.getComponentStatus();
+      
+      for(ComponentStatus status : ComponentStatus.values())
+      {
+        writeSample(out, STATUS, modelObject, "," + STATUS + "=\"" + status + "\"", status == current ? "1" : "0");
+      }
+    });
+    
+    out.write("# TYPE " + CHECKS + " counter\n");
+    out.write("# HELP " + CHECKS + " The number of checks of each URL endpoint, including pods and agents, which received a response.\n");
+    
+    visitAll((modelObject) ->
+    {
+      if(modelObject instanceof IUrlEndpoint)
+        writeSample(out, CHECKS + "_total", modelObject, "", String.valueOf(((IUrlEndpoint)modelObject).getLatency().getCount()));
+    });
+    
+    out.write("# TYPE " + LAST_CHECK + " gauge\n");
+    out.write("# UNIT " + LAST_CHECK + " seconds\n");
+    out.write("# HELP " + LAST_CHECK + " The latency of the last check of each URL endpoint, including pods and agents.\n");
+    
+    visitAll((modelObject) ->
+    {
+      if(modelObject instanceof IUrlEndpoint)
+      {
+        LatencyHistogram latency = ((IUrlEndpoint)modelObject).getLatency();
+        
+        if(latency.getCount() > 0)
+          writeSample(out, LAST_CHECK, modelObject, "", String.valueOf(latency.getLastMicros() / 1000000.0));
+      }
+    });
+    
+    out.write("# EOF\n");
+  }
+  
+  private void writeSample(Writer out, String metric, IModelObject modelObject, String extraLabels, String value)
+  {
+    IModelObject pod = modelObject;
+    
+    while(!(pod instanceof IPod) && pod.getParent() != null)
+      pod = pod.getParent();
+    
+    try
+    {
+      out.write(metric);
+      out.write("{pod=\"");
+      out.write(escape(pod.getName()));
+      out.write("\",type=\"");
+      out.write(escape(modelObject.getTypeName()));
+      out.write("\",name=\"");
+      out.write(escape(modelObject.getName()));
+      out.write("\"");
+      out.write(extraLabels);
+      out.write("} ");
+      out.write(value);
+      out.write("\n");
+    }
+    catch(IOException e)
+    {
+      throw new WriteFailedException(e);
+    }
+  }
+  
+  /*
+   * Visit every object under every pod, unwrapping any write failure.
+   */
+  private void visitAll(Consumer<IModelObject> visitor) throws IOException
+  {
+    try
+    {
+      for(IPod pod : podManager_.getAll())
+        ModelTreeSpliterator.stream(pod).forEach(visitor);
+    }
+    catch(WriteFailedException e)
+    {
+      throw e.getCause();
+    }
+  }
+  
+  private static String escape(String value)
+  {
+    if(value == null)
+      return "";
+    
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+  
+  /*
+   * Carries an IOException out of a visitor.
+   */
+  private static class WriteFailedException extends RuntimeException
+  {
+    private static final long serialVersionUID = 1L;
+
+    private WriteFailedException(IOException cause)
+    {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause()
+    {
+      return (IOException)super.getCause();
+    }
+  }
+}
@@ -0,0 +1,635 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.security.cert.CertificateParsingException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.net.ssl.SSLException;
+
+import org.symphonyoss.symphony.tools.rest.SrtDaemonCommand;
+import org.symphonyoss.symphony.tools.rest.console.BufferedConsole;
+import org.symphonyoss.symphony.tools.rest.console.Console;
+import org.symphonyoss.symphony.tools.rest.model.IModelListener;
+import org.symphonyoss.symphony.tools.rest.model.IModelObject;
+import org.symphonyoss.symphony.tools.rest.model.IModelObjectContainer;
+import org.symphonyoss.symphony.tools.rest.model.IPod;
+import org.symphonyoss.symphony.tools.rest.model.IUrlEndpoint;
+import org.symphonyoss.symphony.tools.rest.model.StatusHistory;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.DeadlineExceededException;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
+import org.symphonyoss.symphony.tools.rest.util.Deadline;
+import org.symphonyoss.symphony.tools.rest.util.HashedWheelTimer;
+import org.symphonyoss.symphony.tools.rest.util.command.Flag;
+import org.symphonyoss.symphony.tools.rest.util.command.Switch;
+import org.symphonyoss.symphony.tools.rest.util.home.ISrtHome;
+
+/**
+ * Repeatedly checks the health of every configured pod from a single long running process.
+ * 
+ * The pod model is loaded once and kept in memory. Each pod is checked by a CheckPod command
+ * every --interval seconds and each of its endpoints (agents, key manager, session auth and
+ * key auth) is checked separately every --endpointInterval seconds. After each check the
+ * status of the checked object and its components is compared with the previous check and
+ * listeners are notified only of those which have changed.
+ * 
+ * The interval adapts to the results of the checks, see {@link AdaptiveInterval}. An object
+ * which has been OK for a while is checked less often, backing off exponentially up to
+ * --maxInterval seconds, and one which has just changed status or is unhealthy is checked
+ * more often.
+ * 
+ * Checks are scheduled on a hashed wheel timer so that thousands of endpoints can be
+ * monitored without a thread or a sorted queue entry each. The first check of each object
+ * is spread randomly over its interval and each later check is jittered so that checks
+ * do not bunch up over time.
+ * 
+ * If --metricsPort is set the status of the model is also served in OpenMetrics format
+ * on that port of the loopback interface, see {@link MetricsServer}.
+ * 
+ * Every status transition and check latency is recorded in the {@link StatusHistory} in
+ * $SRT_HOME/history. The history is closed by a shutdown hook, so that the incomplete
+ * rollup buckets are written when the daemon is stopped by a signal.
+ * 
+ * In watch mode the output of the individual checks is discarded and only the changes
+ * are printed.
+ * 
+ * The daemon runs until it is stopped, so --deadline applies to each check, starting
+ * when that check starts, rather than to the daemon itself.
+ */
+public class MonitorPods extends SrtDaemonCommand
+{
+  private static final String               PROGRAM_NAME                      = "MonitorPods";
+  private static final int                  DEFAULT_INTERVAL_SECONDS          = 60;
+  private static final int                  DEFAULT_ENDPOINT_INTERVAL_SECONDS = 300;
+  private static final int                  DEFAULT_MAX_INTERVAL_SECONDS      = 3600;
+  private static final int                  DEFAULT_PARALLELISM               = 8;
+  private static final double               JITTER                            = 0.1;
+  private static final long                 TICK_MILLIS                       = 100;
+  private static final int                  WHEEL_SIZE                        = 1024;
+  private static final String               WATCH_FORMAT                      = "%s %-30s %-30s %-10s %s";
+
+  private Switch                            watch_;
+  private int                               intervalSeconds_                  = DEFAULT_INTERVAL_SECONDS;
+  private int                               endpointIntervalSeconds_          = DEFAULT_ENDPOINT_INTERVAL_SECONDS;
+  private int                               maxIntervalSeconds_               = DEFAULT_MAX_INTERVAL_SECONDS;
+  private int                               parallelism_                      = DEFAULT_PARALLELISM;
+  private int                               metricsPort_;
+  private StatusHistory                     history_;
+  private final Map<IModelObject, String>   lastStatus_                       = new WeakHashMap<>();
+  private final List<IModelListener>        listeners_                        = new CopyOnWriteArrayList<>();
+  
+  public static void main(String[] argv) throws IOException
+  {
+    new MonitorPods(argv).run();
+  }
+
+  public MonitorPods(Console console, ISrtHome srtHome)
+  {
+    super(PROGRAM_NAME, console, srtHome);
+  }
+
+  public MonitorPods(String[] argv)
+  {
+    super(PROGRAM_NAME, argv);
+  }
+
+  @Override
+  protected void init()
+  {
+    super.init();
+
+    withKeystore(false);
+    withTruststore(false);
+    
+    watch_ = new Switch('w', "Watch", "Print only changes in status", 1)
+        .withLongName("watch");
+    
+    getParser()
+      .withSwitch(watch_)
+      .withFlag(new Flag<Integer>("Interval Seconds", Integer.class, (v) -> intervalSeconds_ = v, () -> DEFAULT_INTERVAL_SECONDS)
+          .withName("interval"))
+      .withFlag(new Flag<Integer>("Endpoint Interval Seconds", Integer.class, (v) -> endpointIntervalSeconds_ = v, () -> DEFAULT_ENDPOINT_INTERVAL_SECONDS)
+          .withName("endpointInterval"))
+      .withFlag(new Flag<Integer>("Max Interval Seconds", Integer.class, (v) -> maxIntervalSeconds_ = v, () -> DEFAULT_MAX_INTERVAL_SECONDS)
+          .withName("maxInterval"))
+      .withFlag(new Flag<Integer>("Parallelism", Integer.class, (v) -> parallelism_ = v, () -> DEFAULT_PARALLELISM)
+          .withName("parallelism"))
+      .withFlag(new Flag<Integer>("Metrics Port", Integer.class, (v) -> metricsPort_ = v, () -> 0)
+          .withName("metricsPort"));
+  }
+  
+  /**
+   * Add a listener which is notified when the status of a pod or one of its components
+   * changes, or a component is added. Checks which do not change the status of an object
+   * are not notified.
+   * 
+   * Unlike listeners added to the model, these are called synchronously on the thread
+   * which ran the check, with the lock on this MonitorPods held, so that changes are
+   * delivered in order. Listeners must not block.
+   * 
+   * @param listener A listener.
+   */
+  public void addListener(IModelListener listener)
+  {
+    listeners_.add(listener);
+  }
+  
+  public void removeListener(IModelListener listener)
+  {
+    listeners_.remove(listener);
+  }
+
+  /**
+   * The daemon itself has no deadline, see createCheckDeadline().
+   */
+  @Override
+  protected Deadline createDeadline()
+  {
+    return Deadline.NONE;
+  }
+  
+  /*
+   * The deadline set by --deadline for a check which starts now.
+   */
+  private Deadline createCheckDeadline()
+  {
+    return super.createDeadline();
+  }
+
+  @Override
+  public void execute()
+  {
+    Set<IPod> pods = getSrtHome().getPodManager().getAll();
+    
+    if(pods.isEmpty())
+    {
+      error("No pods are configured, use ProbePod to add some.");
+      return;
+    }
+    
+    if(watch_.getCount() > 0)
+      addListener(new WatchPrinter());
+    
+    MetricsServer metricsServer = null;
+    
+    if(metricsPort_ > 0)
+    {
+      try
+      {
+        metricsServer = new MetricsServer(getSrtHome().getPodManager(), InetAddress.getLoopbackAddress(), metricsPort_);
+        printfln("Serving metrics on http://%s:%d%s", InetAddress.getLoopbackAddress().getHostAddress(),
+            metricsServer.getPort(), MetricsServer.PATH);
+      }
+      catch(IOException e)
+      {
+        error(e, "Cannot listen for metrics on port %d", metricsPort_);
+        return;
+      }
+    }
+    
+    // The daemon is normally stopped by a signal, which skips the finally below.
+    Thread historyCloser = new Thread(this::closeHistory, PROGRAM_NAME + " Shutdown");
+    
+    try
+    {
+      history_ = new StatusHistory(getSrtHome().getHistoryDir());
+      addListener(new HistoryRecorder());
+      Runtime.getRuntime().addShutdownHook(historyCloser);
+    }
+    catch(IOException e)
+    {
+      error(e, "Cannot open status history, history will not be recorded");
+    }
+    
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism_), (runnable) ->
+    {
+      Thread thread = new Thread(runnable, PROGRAM_NAME);
+      
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    
+    try(HashedWheelTimer timer = new HashedWheelTimer(PROGRAM_NAME + " Timer", TICK_MILLIS, WHEEL_SIZE, executor))
+    {
+      for(IPod pod : pods)
+      {
+        schedule(timer, intervalSeconds_, pod, () ->
+        {
+          checkPod(pod);
+          
+          return CompletableFuture.completedFuture(null);
+        });
+        
+        if(endpointIntervalSeconds_ > 0)
+        {
+          for(IModelObject child : pod.getChildren())
+          {
+            if(child instanceof IUrlEndpoint && ((IUrlEndpoint)child).getUrl() != null)
+            {
+              IUrlEndpoint endpoint = (IUrlEndpoint)child;
+              
+              schedule(timer, endpointIntervalSeconds_, endpoint, () -> checkEndpoint(pod, endpoint, executor));
+            }
+          }
+        }
+      }
+      
+      flush();
+      
+      while(!isTaskCanceled())
+      {
+        try
+        {
+          Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+      
+      if(metricsServer != null)
+        metricsServer.close();
+      
+      closeHistory();
+      
+      try
+      {
+        Runtime.getRuntime().removeShutdownHook(historyCloser);
+      }
+      catch(IllegalStateException e)
+      {
+        // Already shutting down, the hook has run or is running.
+      }
+    }
+  }
+  
+  /**
+   * Schedule the given check to run at a random point in the first interval and then
+   * repeatedly with a jittered interval, which adapts to the status of the checked
+   * object. The timeout is rescheduled in place, so each check costs constant time
+   * however many are scheduled.
+   * 
+   * The check returns a future which completes when it is done, which may be after it
+   * returns, and the next check is scheduled from then.
+   */
+  private void schedule(HashedWheelTimer timer, int intervalSeconds, IModelObject subject, Supplier<CompletableFuture<?>> check)
+  {
+    long                        intervalMillis  = TimeUnit.SECONDS.toMillis(Math.max(1, intervalSeconds));
+    AdaptiveInterval            interval        = new AdaptiveInterval(intervalMillis, TimeUnit.SECONDS.toMillis(maxIntervalSeconds_));
+    HashedWheelTimer.Timeout[]  timeout         = new HashedWheelTimer.Timeout[1];
+    Runnable                    reschedule      = () ->
+    {
+      if(!isTaskCanceled())
+        timeout[0].reschedule(jitter(interval.next(subject.getComponentStatus())));
+    };
+    
+    timeout[0] = timer.schedule(() ->
+    {
+      try
+      {
+        check.get().whenComplete((result, e) -> reschedule.run());
+      }
+      catch(RuntimeException e)
+      {
+        reschedule.run();
+        throw e;
+      }
+    }, ThreadLocalRandom.current().nextLong(intervalMillis));
+  }
+  
+  private static long jitter(long intervalMillis)
+  {
+    long range = (long)(intervalMillis * JITTER);
+    
+    return intervalMillis - range + ThreadLocalRandom.current().nextLong(2 * range + 1);
+  }
+  
+  /*
+   * The daemon has no deadline of its own for the check to inherit, and --deadline is
+   * copied with the other flags, so the check starts its own deadline when it starts.
+   */
+  private void checkPod(IPod pod)
+  {
+    BufferedConsole console = new BufferedConsole();
+    CheckPod        check   = new CheckPod(console, getSrtHome());
+    List<Flag<?>>   flags   = new ArrayList<>();
+    
+    for(Flag<?> flag : getParser().getFlags())
+    {
+      if(!flag.getNames().isEmpty())
+        flags.add(flag);
+    }
+    
+    setFlags(check, flags);
+    setSwitches(check, verbose_, nonBlocking_);
+    setSwitch(check, 1, check.getQuiet());
+    shareTransport(check);
+    
+    long checks = pod.getLatency().getCount();
+    
+    check.getParser().getArgSetter().set(pod.getName());
+    check.doExecute();
+    
+    synchronized(this)
+    {
+      if(pod.getLatency().getCount() > checks)
+        recordLatency(pod);
+      
+      if(watch_.getCount() == 0)
+      {
+        console.writeTo(this);
+        flush();
+      }
+      
+      publishTransitions(pod, pod);
+    }
+  }
+  
+  /**
+   * Check that the given endpoint answers HTTP requests. Any HTTP response counts as
+   * success since endpoints which need authentication answer unauthenticated requests
+   * with an error.
+   * 
+   * The request is sent with send() rather than execute(), so that with a non-blocking
+   * transport no thread is held while it is in flight. The result is handled on the
+   * given executor rather than on the thread of the transport.
+   * 
+   * @return A future which completes when the result has been handled.
+   */
+  private CompletableFuture<Void> checkEndpoint(IPod pod, IUrlEndpoint endpoint, Executor executor)
+  {
+    Deadline  deadline  = createCheckDeadline();
+    long      start     = System.nanoTime();
+    
+    return getTransport().send(newRequest()
+          .setUrl(endpoint.getUrl())
+          .setDeadline(deadline)
+          .build())
+        .handleAsync((response, cause) ->
+        {
+          endpointChecked(pod, endpoint, deadline, System.nanoTime() - start, response, cause);
+          
+          return null;
+        }, executor);
+  }
+  
+  private void endpointChecked(IPod pod, IUrlEndpoint endpoint, Deadline deadline, long nanos,
+      TransportResponse response, Throwable cause)
+  {
+    URL             url = endpoint.getUrl();
+    ComponentStatus status;
+    String          message;
+    
+    if(cause instanceof CompletionException && cause.getCause() != null)
+      cause = cause.getCause();
+    
+    if(cause == null)
+    {
+      endpoint.getLatency().record(nanos);
+      getTransport().getLatencies().record(url, nanos);
+      
+      status = ComponentStatus.OK;
+      message = "HTTP " + response.getHttpStatus();
+    }
+    else if(cause instanceof DeadlineExceededException ||
+        (cause instanceof SocketTimeoutException && deadline.isExpired()))
+    {
+      status = ComponentStatus.Failed;
+      message = DEADLINE_EXCEEDED;
+    }
+    else if(cause instanceof SSLException)
+    {
+      status = ComponentStatus.Warning;
+      message = "TLS handshake failed: " + cause.getMessage();
+    }
+    else if(cause instanceof IOException || cause instanceof CertificateParsingException)
+    {
+      status = ComponentStatus.Stopped;
+      message = "Cannot connect: " + cause.getMessage();
+    }
+    else
+    {
+      status = ComponentStatus.Failed;
+      message = "Check failed: " + cause;
+    }
+    
+    // The message is used as a format, exception messages may contain a '%'.
+    endpoint.setComponentStatus(status, message.replace("%", "%%"));
+    
+    synchronized(this)
+    {
+      if(status == ComponentStatus.OK)
+        recordLatency(endpoint);
+      
+      if(watch_.getCount() == 0)
+      {
+        printfln("%s %s %s %s", url, status, message, endpoint.getLatency());
+        flush();
+      }
+      
+      publishTransitions(pod, endpoint);
+    }
+  }
+  
+  /**
+   * Notify listeners of the given object and each of its descendants whose status
+   * differs from the last check. Every object is reported the first time it is seen.
+   * 
+   * Called with the lock on this held, since checks run concurrently.
+   * 
+   * @param pod         The pod containing the checked object.
+   * @param checked     An object which has just been checked.
+   */
+  private void publishTransitions(IPod pod, IModelObject checked)
+  {
+    List<IModelObject> changed      = new ArrayList<>();
+    boolean[]          newChildren  = new boolean[1];
+    
+    visitTree(checked, (modelObject) ->
+    {
+      String status   = modelObject.getComponentStatus() + " " + modelObject.getComponentStatusMessage();
+      String previous = lastStatus_.put(modelObject, status);
+      
+      if(previous == null && modelObject != pod)
+        newChildren[0] = true;
+      
+      if(!Objects.equals(status, previous))
+        changed.add(modelObject);
+    });
+    
+    for(IModelListener listener : listeners_)
+    {
+      if(newChildren[0])
+        listener.modelObjectStructureChanged(pod);
+      
+      for(IModelObject modelObject : changed)
+        listener.modelObjectChanged(modelObject);
+    }
+  }
+  
+  /*
+   * Called with the lock on this held.
+   */
+  private void recordLatency(IUrlEndpoint endpoint)
+  {
+    if(history_ == null)
+      return;
+    
+    try
+    {
+      history_.recordLatency(StatusHistory.getSeriesName(endpoint), System.currentTimeMillis(),
+          endpoint.getLatency().getLastMicros());
+    }
+    catch(IOException e)
+    {
+      historyFailed(e);
+    }
+  }
+  
+  private void historyFailed(IOException e)
+  {
+    error(e, "Failed to write status history, history will no longer be recorded");
+    closeHistory();
+  }
+  
+  private synchronized void closeHistory()
+  {
+    if(history_ != null)
+    {
+      try
+      {
+        history_.close();
+      }
+      catch(IOException e)
+      {
+        error(e, "Failed to close status history");
+      }
+      
+      history_ = null;
+    }
+  }
+  
+  /*
+   * Endpoints are checked separately, so the tree of a pod is the pod, its components and
+   * anything other than an endpoint below that.
+   */
+  private void visitTree(IModelObject modelObject, Consumer<IModelObject> visitor)
+  {
+    visitor.accept(modelObject);
+    
+    if(modelObject instanceof IModelObjectContainer)
+    {
+      for(IModelObject child : ((IModelObjectContainer)modelObject).getChildren())
+      {
+        if(!(child instanceof IUrlEndpoint))
+          visitTree(child, visitor);
+      }
+    }
+  }
+  
+  /*
+   * Listeners are called with the lock on MonitorPods held.
+   */
+  private class HistoryRecorder implements IModelListener
+  {
+    @Override
+    public void modelObjectChanged(IModelObject modelObject)
+    {
+      if(history_ == null)
+        return;
+      
+      try
+      {
+        history_.recordStatus(StatusHistory.getSeriesName(modelObject), System.currentTimeMillis(),
+            modelObject.getComponentStatus(), modelObject.getComponentStatusMessage());
+      }
+      catch(IOException e)
+      {
+        historyFailed(e);
+      }
+    }
+
+    @Override
+    public void modelObjectStructureChanged(IModelObject modelObject)
+    {
+      // New components are reported as changes.
+    }
+  }
+  
+  private class WatchPrinter implements IModelListener
+  {
+    private final SimpleDateFormat timeFormat_ = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    
+    @Override
+    public void modelObjectChanged(IModelObject modelObject)
+    {
+      IModelObject  pod     = modelObject;
+      
+      while(!(pod instanceof IPod) && pod.getParent() != null)
+        pod = pod.getParent();
+      
+      printfln(WATCH_FORMAT, timeFormat_.format(new Date()),
+          pod.getName(),
+          pod == modelObject ? "" : modelObject.getName(),
+          modelObject.getComponentStatus(), modelObject.getComponentStatusMessage());
+      flush();
+    }
+
+    @Override
+    public void modelObjectStructureChanged(IModelObject modelObject)
+    {
+      // The new components are reported as changes.
+    }
+  }
+}
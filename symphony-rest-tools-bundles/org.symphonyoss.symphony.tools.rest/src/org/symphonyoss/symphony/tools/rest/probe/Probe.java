@@ -26,29 +26,30 @@ package org.symphonyoss.symphony.tools.rest.probe;
 import java.net.MalformedURLException;
 import java.net.URL;
 
-import org.symphonyoss.symphony.jcurl.JCurl;
-import org.symphonyoss.symphony.jcurl.JCurl.Response;
+import org.symphonyoss.symphony.tools.rest.transport.PhaseTimings;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
 import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
 public class Probe
 {
-  private final int      port_;
-  private final String   basePath_;
-
-  private final String   hostName_;
-  private final URL      baseUrl_;
-
-  private URL            probeUrl_;
-  private String         expectedContentType_;
-
-  private int            httpStatus_;
-  private JCurl.Response jcurlResponse_;
-  private boolean        failed_ = true;
-  private boolean        failedCertAuth_;
-  private boolean        unhealthy_;
-  private boolean        valid_;
+  private final int               port_;
+  private final String            basePath_;
+
+  private final String            hostName_;
+  private final URL               baseUrl_;
+
+  private URL                     probeUrl_;
+  private String                  expectedContentType_;
+
+  private int                     httpStatus_;
+  private TransportResponse       response_;
+  private PhaseTimings            timings_;
+  private boolean                 failed_ = true;
+  private boolean                 failedCertAuth_;
+  private boolean                 unhealthy_;
+  private boolean                 valid_;
     
   public Probe(String name, String suffix, String domain, int port,
       String basePath)
@@ -69,6 +70,20 @@ public class Probe
     }
   }
   
+  /**
+   * Create a probe of an endpoint whose base URL is already known.
+   * 
+   * @param baseUrl The base URL of the endpoint.
+   */
+  public Probe(URL baseUrl)
+  {
+    port_ = baseUrl.getPort() == -1 ? baseUrl.getDefaultPort() : baseUrl.getPort();
+    basePath_ = baseUrl.getPath();
+    hostName_ = baseUrl.getHost();
+    baseUrl_ = baseUrl;
+    probeUrl_ = baseUrl_;
+  }
+  
   public Probe setProbePath(String probePath, String expectedContentType)
   {
     String base = baseUrl_.toString();
@@ -89,7 +104,8 @@ public class Probe
     failed_ = true;
     unhealthy_ = false;
     valid_ = false;
-    jcurlResponse_ = null;
+    response_ = null;
+    timings_ = null;
     
     return this;
   }
@@ -106,10 +122,10 @@ public class Probe
 
   public JsonNode getJsonNode()
   {
-    if(jcurlResponse_ == null)
+    if(response_ == null)
       return null;
     
-    return jcurlResponse_.getJsonNode();
+    return response_.getJsonNode();
   }
 
   public String getHostName()
@@ -132,14 +148,29 @@ public class Probe
     return expectedContentType_;
   }
 
-  public JCurl.Response getJcurlResponse()
+  public TransportResponse getResponse()
+  {
+    return response_;
+  }
+
+  public TransportResponse setResponse(TransportResponse response)
+  {
+    return response_ = response;
+  }
+
+  /**
+   * 
+   * @return The time taken by each phase of the last request made by this probe,
+   * or null if it did not receive a response.
+   */
+  public PhaseTimings getTimings()
   {
-    return jcurlResponse_;
+    return timings_;
   }
 
-  public Response setJcurlResponse(JCurl.Response jcurlResponse)
+  public PhaseTimings setTimings(PhaseTimings timings)
   {
-    return jcurlResponse_ = jcurlResponse;
+    return timings_ = timings;
   }
 
   public int getHttpStatus()
@@ -169,7 +200,7 @@ public class Probe
 
   public boolean isResponseTypeValid()
   {
-    return expectedContentType_ == null || jcurlResponse_.getContentType().equals(expectedContentType_);
+    return expectedContentType_ == null || expectedContentType_.equals(response_.getContentType());
   }
 
   public String getHostNameAndPort()
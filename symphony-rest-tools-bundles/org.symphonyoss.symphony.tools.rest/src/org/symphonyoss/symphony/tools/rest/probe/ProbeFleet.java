@@ -0,0 +1,263 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.probe;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.symphonyoss.symphony.tools.rest.SrtCommand;
+import org.symphonyoss.symphony.tools.rest.console.BufferedConsole;
+import org.symphonyoss.symphony.tools.rest.console.IConsole;
+import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.util.IObjective;
+import org.symphonyoss.symphony.tools.rest.util.command.Flag;
+import org.symphonyoss.symphony.tools.rest.util.home.ISrtHome;
+
+/**
+ * Probes a list of hosts concurrently, saving the configuration of each pod found.
+ * 
+ * Each host is probed by a separate ProbePod command which shares the SrtHome, and therefore
+ * the PodManager, of this command.
+ * 
+ * The output of each probe is held until it completes. It is shown for a probe which failed,
+ * and in verbose mode for every probe.
+ */
+public class ProbeFleet extends SrtCommand
+{
+  private static final String PROGRAM_NAME        = "ProbeFleet";
+  private static final int    DEFAULT_PARALLELISM = 4;
+  private static final String SUMMARY_FORMAT      = "%-30s %-35s %-10s %s";
+
+  private final List<String>  hostNames_          = new ArrayList<>();
+  private String              hostsFile_          = "";
+  private int                 parallelism_        = DEFAULT_PARALLELISM;
+  
+  // Set by init(), which is called from the super constructor, so these have no initializers.
+  private Flag<String>        hostsFlag_;
+  private Flag<Integer>       parallelismFlag_;
+  
+  public static void main(String[] argv) throws IOException
+  {
+    new ProbeFleet(argv).run();
+  }
+
+  public ProbeFleet(IConsole console, ISrtHome srtHome)
+  {
+    super(PROGRAM_NAME, console, srtHome);
+  }
+
+  public ProbeFleet(String[] argv)
+  {
+    super(PROGRAM_NAME, argv);
+  }
+
+  @Override
+  protected void init()
+  {
+    super.init();
+
+    withKeystore(false);
+    withTruststore(false);
+    
+    hostsFlag_ = new Flag<String>("Host List File", String.class, (v) -> hostsFile_ = v)
+        .withName("hosts");
+    parallelismFlag_ = new Flag<Integer>("Parallelism", Integer.class, (v) -> parallelism_ = v, () -> DEFAULT_PARALLELISM)
+        .withName("parallelism");
+    
+    getParser()
+      .withFlag(new Flag<String>("Host Names", String.class, (v) -> hostNames_.add(v))
+          .withDuplicatesAllowed(true))
+      .withFlag(hostsFlag_)
+      .withFlag(parallelismFlag_);
+  }
+
+  @Override
+  public void execute()
+  {
+    Set<String> hostNames = new LinkedHashSet<>(hostNames_);
+    
+    if(hostsFile_.length() > 0)
+    {
+      try(BufferedReader in = new BufferedReader(new FileReader(hostsFile_)))
+      {
+        String line;
+        
+        while((line = in.readLine()) != null)
+        {
+          line = line.trim();
+          
+          if(line.length() > 0 && !line.startsWith("#"))
+            hostNames.add(line);
+        }
+      }
+      catch(IOException e)
+      {
+        error(e, "Unable to read host list file \"%s\"", hostsFile_);
+        return;
+      }
+    }
+    
+    if(hostNames.isEmpty())
+    {
+      error("No host names given.");
+      return;
+    }
+    
+    beginTask(hostNames.size(), "Probing %d hosts", hostNames.size());
+    
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism_, hostNames.size())),
+        (runnable) ->
+        {
+          Thread thread = new Thread(runnable, PROGRAM_NAME);
+          
+          thread.setDaemon(true);
+          
+          return thread;
+        });
+    
+    List<ProbePod>          probes  = new ArrayList<>(hostNames.size());
+    List<Future<ProbePod>>  futures = new ArrayList<>(hostNames.size());
+    
+    try
+    {
+      for(String hostName : hostNames)
+      {
+        ProbePod probe = createProbe(hostName);
+        
+        probes.add(probe);
+        futures.add(executor.submit(() ->
+        {
+          probe.doExecute();
+          
+          return probe;
+        }));
+      }
+      
+      for(int i=0 ; i<futures.size() ; i++)
+      {
+        ProbePod  probe   = probes.get(i);
+        boolean   failed  = false;
+        
+        try
+        {
+          futures.get(i).get();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        catch (ExecutionException e)
+        {
+          failed = true;
+          error(e.getCause(), "Probe of %s terminated unexpectedly.", getHostName(probe));
+        }
+        
+        for(IObjective probeObjective : probe.getObjectives())
+        {
+          if(probeObjective.getComponentStatus() != ComponentStatus.OK)
+            failed = true;
+        }
+        
+        // The output of a failed probe says why it failed.
+        if(failed || verbose_.getCount() > 0)
+          ((BufferedConsole)probe.getConsole()).writeTo(this);
+        
+        // The FQDN is only known once the probe has started.
+        IObjective objective = createObjective(getHostName(probe));
+        
+        for(IObjective probeObjective : probe.getObjectives())
+        {
+          objective.setObjectiveStatus(probeObjective.getComponentStatus(), "%s: %s",
+              probeObjective.getLabel(), probeObjective.getComponentStatusMessage());
+        }
+        
+        if(taskWorked(1))
+          return;
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+    
+    title("Summary");
+    printfln(SUMMARY_FORMAT, "Host", "Objective", "Status", "Message");
+    
+    for(ProbePod probe : probes)
+    {
+      String hostName = getHostName(probe);
+      
+      for(IObjective objective : probe.getObjectives())
+      {
+        printfln(SUMMARY_FORMAT, hostName, objective.getLabel(), objective.getComponentStatus(),
+            objective.getComponentStatusMessage());
+        
+        hostName = "";
+      }
+    }
+  }
+
+  /*
+   * The name of a probe is the short host name once it has started, so label its
+   * results with the FQDN, or the name it was given if it failed to start.
+   */
+  private static String getHostName(ProbePod probe)
+  {
+    return probe.getFqdn() == null ? probe.getName() : probe.getFqdn();
+  }
+
+  private ProbePod createProbe(String hostName)
+  {
+    BufferedConsole console = new BufferedConsole();
+    ProbePod        probe   = new ProbePod(console, getSrtHome());
+    List<Flag<?>>   flags   = new ArrayList<>();
+    
+    for(Flag<?> flag : getParser().getFlags())
+    {
+      // The fleet flags are not passed on to the probes.
+      if(!flag.getNames().isEmpty() && flag != hostsFlag_ && flag != parallelismFlag_)
+        flags.add(flag);
+    }
+    
+    setFlags(probe, flags);
+    setSwitches(probe, verbose_, nonBlocking_, getQuiet());
+    shareTransport(probe);
+    setSwitch(probe, 1, probe.getOverwriteConfig());
+    
+    probe.getParser().getArgSetter().set(hostName);
+    
+    return probe;
+  }
+}
@@ -25,7 +25,7 @@ package org.symphonyoss.symphony.tools.rest.probe;
 
 import java.io.IOException;
 import java.net.ConnectException;
-import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
@@ -33,27 +33,42 @@ import java.net.UnknownHostException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateParsingException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 
 import javax.annotation.Nonnull;
 import javax.net.ssl.SSLHandshakeException;
 
-import org.symphonyoss.symphony.jcurl.JCurl;
-import org.symphonyoss.symphony.jcurl.JCurl.Builder;
-import org.symphonyoss.symphony.jcurl.JCurl.HttpMethod;
 import org.symphonyoss.symphony.tools.rest.Srt;
 import org.symphonyoss.symphony.tools.rest.SrtCommand;
+import org.symphonyoss.symphony.tools.rest.console.BufferedConsole;
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.Agent;
 import org.symphonyoss.symphony.tools.rest.model.IPod;
 import org.symphonyoss.symphony.tools.rest.model.InvalidConfigException;
 import org.symphonyoss.symphony.tools.rest.model.Pod;
 import org.symphonyoss.symphony.tools.rest.model.osmosis.ComponentStatus;
+import org.symphonyoss.symphony.tools.rest.transport.DeadlineExceededException;
+import org.symphonyoss.symphony.tools.rest.transport.HostResolver;
+import org.symphonyoss.symphony.tools.rest.transport.ReachabilityScanner;
+import org.symphonyoss.symphony.tools.rest.transport.TlsConfig;
+import org.symphonyoss.symphony.tools.rest.transport.TransportRequest;
+import org.symphonyoss.symphony.tools.rest.transport.TransportResponse;
 import org.symphonyoss.symphony.tools.rest.util.IObjective;
 import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
 import org.symphonyoss.symphony.tools.rest.util.SubTaskMonitor;
+import org.symphonyoss.symphony.tools.rest.util.command.Flag;
 import org.symphonyoss.symphony.tools.rest.util.command.Switch;
 import org.symphonyoss.symphony.tools.rest.util.home.ISrtHome;
 
@@ -72,6 +87,16 @@ public class ProbePod extends SrtCommand
   private static final int AUTH_PROBE_WORK = 1;
   private static final int AGENT_PROBE_WORK = 1;
   private static final int SAVE_CONFIG_WORK = 2;
+  
+  /** The maximum number of probes in a single scan which are run concurrently. */
+  private static final int MAX_CONCURRENT_PROBES = 8;
+  
+  /** The shares of the remaining deadline given to the pod, key auth and agent phases. */
+  private static final double POD_PHASE_SHARE      = 0.6;
+  private static final double KEY_AUTH_PHASE_SHARE = 0.5;
+  private static final double AGENT_PHASE_SHARE    = 1.0;
+  
+  private static final int DEFAULT_DISCOVERY_TTL_SECONDS = 3600;
 
   private static final String WEBSITE_NOT_POD = "This is a website but not a pod";
 
@@ -97,6 +122,7 @@ public class ProbePod extends SrtCommand
   private Set<X509Certificate>  serverCerts_ = new HashSet<>();
   
   private Switch               overwriteConfig_;
+  private int                  discoveryTtlSeconds_;
 
   private IObjective podObjective_;
 
@@ -113,6 +139,11 @@ public class ProbePod extends SrtCommand
   private String sessionToken_;
 
   private String keymanagerToken_;
+
+  private ExecutorService probeExecutor_;
+  
+  /** Whether each host:port accepted a TCP connection, for those which have been pre-scanned. */
+  private Map<String, Boolean> reachable_ = new ConcurrentHashMap<>();
   
   public static void main(String[] argv) throws IOException
   {
@@ -142,7 +173,12 @@ public class ProbePod extends SrtCommand
     overwriteConfig_ = new Switch('s', "Overwrite Config", "Overwrite any existingsaved config for this pod", 1);
     
     getParser()
-      .withSwitch(overwriteConfig_);
+      .withSwitch(overwriteConfig_)
+      .withFlag(new Flag<Integer>("Discovery Cache TTL Seconds", Integer.class, (v) -> discoveryTtlSeconds_ = v,
+          () -> DEFAULT_DISCOVERY_TTL_SECONDS)
+          .withName("discoveryTtl"));
+    
+    discoveryTtlSeconds_ = DEFAULT_DISCOVERY_TTL_SECONDS;
     
     podObjective_ = createObjective("Locate Pod");
     sessionAuthObjective_ = createObjective("Locate Session Auth Endpoint");
@@ -152,18 +188,42 @@ public class ProbePod extends SrtCommand
     agentObjective_ = createObjective("Locate Agent");
   }
   
+  public Switch getOverwriteConfig()
+  {
+    return overwriteConfig_;
+  }
+  
   @Override
-  protected Builder getJCurl()
+  protected TlsConfig.Builder getTlsConfig()
   {
-    Builder builder = super.getJCurl()
-        .trustAllHostnames(true)
-        .trustAllCertificates(true);
-    
-    return builder;
+    return super.getTlsConfig()
+        .setTrustAllHostnames(true)
+        .setTrustAllCertificates(true);
   }
 
   @Override
   public void execute()
+  {
+    probeExecutor_ = Executors.newFixedThreadPool(MAX_CONCURRENT_PROBES, (runnable) ->
+    {
+      Thread thread = new Thread(runnable, PROGRAM_NAME + " " + getFqdn());
+      
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    
+    try
+    {
+      probe();
+    }
+    finally
+    {
+      probeExecutor_.shutdownNow();
+    }
+  }
+  
+  private void probe()
   {
     podConfig_.setName(getFqdn());
     
@@ -193,9 +253,31 @@ public class ProbePod extends SrtCommand
     podApiObjective_.setObjectiveStatus(ComponentStatus.Starting, PROBING);
     sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Starting, PROBING);
 
+    DiscoveryCache discoveryCache = new DiscoveryCache(getSrtHome().getDiscoveryFile(getFqdn(),
+        DiscoveryCache.getKeystoreIdentity(getKeystore(), getStoretype())), discoveryTtlSeconds_ * 1000L);
+    
+    if(verifyCachedDiscovery(discoveryCache))
+    {
+      taskWorked((PROBE_POD_WORK  * POD_PORTS.length) + AUTH_PROBE_WORK + AGENT_PROBE_WORK);
+      printSummary();
+      saveConfig(pod, discoveryCache);
+      
+      return;
+    }
+    
     println("Probing for Pod");
     println("===============");
     
+    startPhase(POD_PHASE_SHARE);
+    
+    List<Probe> prescanProbes = new ArrayList<>();
+    
+    for(int port : POD_PORTS)
+      prescanProbes.add(new Probe(getName(), "", getDomain(), port, "/"));
+    
+    prescanProbes.addAll(createAgentProbes(getName(), getDomain()));
+    prescan(prescanProbes);
+    
     int skippedWork = PROBE_POD_WORK  * POD_PORTS.length;
     
     for(int port : POD_PORTS)
@@ -218,11 +300,11 @@ public class ProbePod extends SrtCommand
     {
       flush();
       error("Probe did not even find a website.");
-      podObjective_.setObjectiveStatus(ComponentStatus.Failed, NO_WEB_SERVER);
+      podObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(NO_WEB_SERVER));
       
-      podObjective_.setObjectiveStatus(ComponentStatus.Failed, NO_WEB_SERVER);
-      podApiObjective_.setObjectiveStatus(ComponentStatus.Failed, NO_WEB_SERVER);
-      sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, NO_WEB_SERVER);
+      podObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(NO_WEB_SERVER));
+      podApiObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(NO_WEB_SERVER));
+      sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(NO_WEB_SERVER));
       
       return;
     }
@@ -238,9 +320,9 @@ public class ProbePod extends SrtCommand
       printf(format, "Web URL", podConfig_.getWebUrl());
       println();
       
-      podObjective_.setObjectiveStatus(ComponentStatus.Failed, WEBSITE_NOT_POD);
-      podApiObjective_.setObjectiveStatus(ComponentStatus.Failed, WEBSITE_NOT_POD);
-      sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, WEBSITE_NOT_POD);
+      podObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(WEBSITE_NOT_POD));
+      podApiObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(WEBSITE_NOT_POD));
+      sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(WEBSITE_NOT_POD));
       
       return;
     }
@@ -252,13 +334,13 @@ public class ProbePod extends SrtCommand
       podObjective_.setObjectiveStatusOK();
       
       if(podConfig_.getPodApiUrl() == null)
-        podApiObjective_.setObjectiveStatus(ComponentStatus.Failed, UNABLE_TO_LOCATE_URL);
+        podApiObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(UNABLE_TO_LOCATE_URL));
       else
         podApiObjective_.setObjectiveStatusOK();
       
       if(podConfig_.getSessionAuthUrl() == null)
       {
-        sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, UNABLE_TO_LOCATE_URL);
+        sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(UNABLE_TO_LOCATE_URL));
       }
       else
       {
@@ -328,6 +410,7 @@ public class ProbePod extends SrtCommand
       println("Probing for API Keyauth");
       println("=======================");
 
+      startPhase(KEY_AUTH_PHASE_SHARE);
       keyAuthObjective_.setObjectiveStatus(ComponentStatus.Starting, PROBING);
       SubTaskMonitor subTaskMonitor = new SubTaskMonitor(getConsole(), "Probing for API Keyauth", AUTH_PROBE_WORK);
       
@@ -348,7 +431,7 @@ public class ProbePod extends SrtCommand
       
       if(podConfig_.getSessionAuthUrl() == null)
       {
-        keyAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, UNABLE_TO_LOCATE_URL);
+        keyAuthObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(UNABLE_TO_LOCATE_URL));
       }
       else
       {
@@ -366,6 +449,7 @@ public class ProbePod extends SrtCommand
         return;
 
 
+      startPhase(AGENT_PHASE_SHARE);
       agentObjective_.setObjectiveStatus(ComponentStatus.Starting, PROBING);
       subTaskMonitor = new SubTaskMonitor(getConsole(), "Probing for API Agent", AUTH_PROBE_WORK);
       println();
@@ -384,52 +468,25 @@ public class ProbePod extends SrtCommand
       }
       else
       {
-        agentObjective_.setObjectiveStatus(ComponentStatus.Failed, UNABLE_TO_LOCATE_URL);
+        agentObjective_.setObjectiveStatus(ComponentStatus.Failed, failure(UNABLE_TO_LOCATE_URL));
       }
       
       if(subTaskMonitor.worked(1))
         return;
       
-      println();
-      println("Probe Successful");
-      println("================");
-      
-      String  format = "%-20s=%s\n";
-      
-      printf(format, "Web URL", podConfig_.getWebUrl());
-      printf(format, "Pod URL", podConfig_.getPodUrl());
-      printf(format, "Pod ID", podId_);
-      printf(format, "Key Manager URL", podConfig_.getKeyManagerUrl());
-      printf(format, "Session Auth URL", podConfig_.getSessionAuthUrl());
-      printf(format, "Key Auth URL", podConfig_.getKeyAuthUrl());
-      printf(format, "Pod API URL", podConfig_.getPodApiUrl());
-      printf(format, "Agent API URL", agentConfig_.getAgentApiUrl());
-      
-      
-
-      if(getKeystore() != null)
-      {
-        println();
-        printf(format, "Client cert", getKeystore());
-        
-        if(sessionInfoResult_.isFailed())
-        {
-          println("This cert was not accepted for authentication");
-        }
-        else
-        {
-          println("We authenticated as");
-          for(String field : Srt.SESSION_INFO_FIELDS)
-            printf(format, "userInfo." + field, sessionInfoResult_.getJcurlResponse().getTag(field));
-        }
-      }
-      println();
+      printSummary();
     }
     
     if(isTaskCanceled())
       return;
 
-        
+    saveConfig(pod, discoveryCache);
+  }
+
+  private void saveConfig(IPod pod, DiscoveryCache discoveryCache)
+  {
+    saveDiscoveryCache(discoveryCache);
+    
     println("Root server certs:");
     for (X509Certificate cert : podConfig_.getTrustCerts())
       println(cert.getSubjectX500Principal().getName());
@@ -444,7 +501,7 @@ public class ProbePod extends SrtCommand
 
     if(pod==null || overwriteConfig_.getCount()>0)
     {
-      System.err.println("OK");
+      println("OK");
     }
     
     if(pod==null || overwriteConfig_.getCount()>0)
@@ -469,6 +526,220 @@ public class ProbePod extends SrtCommand
     }
   }
 
+  /**
+   * Check the endpoints found by a previous probe, with one request to each.
+   * 
+   * @param discoveryCache The cache of the endpoints found by a previous probe.
+   * 
+   * @return true if there is a current cache entry and every endpoint in it responded as
+   * expected, in which case the pod and agent config have been set from the cache and no
+   * scan is needed.
+   */
+  private boolean verifyCachedDiscovery(DiscoveryCache discoveryCache)
+  {
+    if(!discoveryCache.load())
+      return false;
+    
+    URL webUrl          = discoveryCache.getUrl(DiscoveryCache.WEB_URL);
+    URL podUrl          = discoveryCache.getUrl(DiscoveryCache.POD_URL);
+    URL podApiUrl       = discoveryCache.getUrl(DiscoveryCache.POD_API_URL);
+    URL sessionAuthUrl  = discoveryCache.getUrl(DiscoveryCache.SESSION_AUTH_URL);
+    URL keyManagerUrl   = discoveryCache.getUrl(DiscoveryCache.KEY_MANAGER_URL);
+    URL keyAuthUrl      = discoveryCache.getUrl(DiscoveryCache.KEY_AUTH_URL);
+    URL agentApiUrl     = discoveryCache.getUrl(DiscoveryCache.AGENT_API_URL);
+    
+    if(webUrl == null || podUrl == null || podApiUrl == null || sessionAuthUrl == null ||
+        keyManagerUrl == null || keyAuthUrl == null || agentApiUrl == null)
+      return false;
+    
+    println("Checking Endpoints From Previous Probe");
+    println("======================================");
+    
+    Probe healthCheckResult = new Probe(podUrl).setProbePath(Srt.POD_HEALTHCHECK_PATH, Srt.MIME_JSON);
+    
+    doProbe(newRequest(), healthCheckResult, 200, 500);
+    
+    JsonNode healthJson = healthCheckResult.getJsonNode();
+    
+    if(healthCheckResult.isFailed() || healthJson == null || !healthJson.isObject())
+      return discoveryCacheStale(discoveryCache);
+    
+    podHealthy_ = true;
+    healthJson.fields().forEachRemaining((field) ->
+    {
+      if (!field.getValue().asBoolean())
+      {
+        println(field.getKey() + " is UNHEALTHY");
+        podHealthy_ = false;
+      }
+    });
+    
+    Probe sessionAuthResult = new Probe(sessionAuthUrl).setProbePath(Srt.AUTHENTICATE_PATH, Srt.MIME_JSON);
+    
+    doProbe(newAuthRequest(), sessionAuthResult);
+    
+    if(sessionAuthResult.isFailed() && !sessionAuthResult.isFailedCertAuth())
+      return discoveryCacheStale(discoveryCache);
+    
+    if(!sessionAuthResult.isFailed() && sessionAuthResult.getResponse().getTag(Srt.TOKEN) != null)
+    {
+      sessionToken_ = sessionAuthResult.getResponse().getTag(Srt.TOKEN);
+      getSrtHome().saveSessionToken(getFqdn(), Srt.SESSION_TOKEN, sessionToken_);
+    }
+    
+    TransportRequest.Builder builder = newRequest();
+    
+    for(String field : Srt.SESSION_INFO_FIELDS)
+      builder.addExtract(field, field);
+    
+    sessionInfoResult_ = new Probe(podApiUrl).setProbePath("/v2/sessioninfo", Srt.MIME_JSON);
+    
+    doProbe(cookieAuth(builder), sessionInfoResult_);
+    
+    // A full probe accepts the pod API URL even if we cannot authenticate, but something must answer.
+    if(sessionInfoResult_.isFailed() && sessionInfoResult_.getHttpStatus() == 0)
+      return discoveryCacheStale(discoveryCache);
+    
+    Probe podInfoResult = new Probe(podUrl).setProbePath("/webcontroller/public/podInfo", Srt.MIME_JSON);
+    
+    doProbe(cookieAuth(newRequest()), podInfoResult);
+    
+    JsonNode podInfoJsonData = podInfoResult.getJsonNode() == null ? null : podInfoResult.getJsonNode().get("data");
+    
+    if(podInfoResult.isFailed() || podInfoJsonData == null || !podInfoJsonData.isObject())
+      return discoveryCacheStale(discoveryCache);
+    
+    Probe keyAuthResult = new Probe(keyAuthUrl).setProbePath(Srt.AUTHENTICATE_PATH, Srt.MIME_JSON);
+    
+    doProbe(newAuthRequest(), keyAuthResult);
+    
+    if(keyAuthResult.isFailed() && !keyAuthResult.isFailedCertAuth())
+      return discoveryCacheStale(discoveryCache);
+    
+    if(!keyAuthResult.isFailed() && keyAuthResult.getResponse().getTag(Srt.TOKEN) != null)
+    {
+      keymanagerToken_ = keyAuthResult.getResponse().getTag(Srt.TOKEN);
+      getSrtHome().saveSessionToken(getFqdn(), Srt.KEYMANAGER_TOKEN, keymanagerToken_);
+    }
+    
+    Probe agentResult = new Probe(agentApiUrl);
+    
+    probeAgent(this, agentResult);
+    
+    if(!agentResult.isValid())
+      return discoveryCacheStale(discoveryCache);
+    
+    println("All endpoints from the previous probe are OK, skipping the scan.");
+    
+    podId_ = podInfoJsonData.path("podId").asInt(discoveryCache.getPodId());
+    podConfig_.setWebUrl(webUrl);
+    podConfig_.setPodUrl(podUrl);
+    podConfig_.setPodApiUrl(podApiUrl);
+    podConfig_.setSessionAuthUrl(sessionAuthUrl);
+    podConfig_.setKeyManagerUrl(keyManagerUrl);
+    podConfig_.setKeyAuthUrl(keyAuthUrl);
+    agentConfig_.setName(agentApiUrl.getHost());
+    agentConfig_.setAgentApiUrl(agentApiUrl);
+    
+    podObjective_.setObjectiveStatusOK();
+    podApiObjective_.setObjectiveStatusOK();
+    keyManagerObjective_.setObjectiveStatusOK();
+    agentObjective_.setObjectiveStatusOK();
+    
+    if(sessionToken_ == null)
+      sessionAuthObjective_.setObjectiveStatus(ComponentStatus.Warning, UNABLE_TO_AUTHENTICATE);
+    else
+      sessionAuthObjective_.setObjectiveStatusOK();
+    
+    if(keymanagerToken_ == null)
+      keyAuthObjective_.setObjectiveStatus(ComponentStatus.Warning, UNABLE_TO_AUTHENTICATE);
+    else
+      keyAuthObjective_.setObjectiveStatusOK();
+    
+    return true;
+  }
+  
+  private boolean discoveryCacheStale(DiscoveryCache discoveryCache)
+  {
+    println("Endpoints from the previous probe have changed, running a full probe.");
+    println();
+    
+    discoveryCache.invalidate();
+    
+    return false;
+  }
+  
+  /**
+   * Save the endpoints found by this probe so that the next one can check them directly.
+   * Nothing is saved unless every endpoint was found, so that the next probe scans for
+   * those which were not.
+   * 
+   * @param discoveryCache The cache to save.
+   */
+  private void saveDiscoveryCache(DiscoveryCache discoveryCache)
+  {
+    if(podConfig_.getWebUrl() == null || podConfig_.getPodUrl() == null || podConfig_.getPodApiUrl() == null ||
+        podConfig_.getSessionAuthUrl() == null || podConfig_.getKeyManagerUrl() == null ||
+        podConfig_.getKeyAuthUrl() == null || agentConfig_.getAgentApiUrl() == null)
+      return;
+    
+    try
+    {
+      discoveryCache
+        .setUrl(DiscoveryCache.WEB_URL,          podConfig_.getWebUrl())
+        .setUrl(DiscoveryCache.POD_URL,          podConfig_.getPodUrl())
+        .setUrl(DiscoveryCache.POD_API_URL,      podConfig_.getPodApiUrl())
+        .setUrl(DiscoveryCache.SESSION_AUTH_URL, podConfig_.getSessionAuthUrl())
+        .setUrl(DiscoveryCache.KEY_MANAGER_URL,  podConfig_.getKeyManagerUrl())
+        .setUrl(DiscoveryCache.KEY_AUTH_URL,     podConfig_.getKeyAuthUrl())
+        .setUrl(DiscoveryCache.AGENT_API_URL,    agentConfig_.getAgentApiUrl())
+        .setPodId(podId_)
+        .save();
+    }
+    catch (IOException e)
+    {
+      error(e, "Failed to save discovery cache:");
+    }
+  }
+
+  private void printSummary()
+  {
+    println();
+    println("Probe Successful");
+    println("================");
+    
+    String  format = "%-20s=%s\n";
+    
+    printf(format, "Web URL", podConfig_.getWebUrl());
+    printf(format, "Pod URL", podConfig_.getPodUrl());
+    printf(format, "Pod ID", podId_);
+    printf(format, "Key Manager URL", podConfig_.getKeyManagerUrl());
+    printf(format, "Session Auth URL", podConfig_.getSessionAuthUrl());
+    printf(format, "Key Auth URL", podConfig_.getKeyAuthUrl());
+    printf(format, "Pod API URL", podConfig_.getPodApiUrl());
+    printf(format, "Agent API URL", agentConfig_.getAgentApiUrl());
+    
+    
+
+    if(getKeystore() != null)
+    {
+      println();
+      printf(format, "Client cert", getKeystore());
+      
+      if(sessionInfoResult_.isFailed())
+      {
+        println("This cert was not accepted for authentication");
+      }
+      else
+      {
+        println("We authenticated as");
+        for(String field : Srt.SESSION_INFO_FIELDS)
+          printf(format, "userInfo." + field, sessionInfoResult_.getResponse().getTag(field));
+      }
+    }
+    println();
+  }
+
   private URL getUrl(ScanResponse scanResponse, String token)
   {
     URL url = null;
@@ -518,7 +789,7 @@ public class ProbePod extends SrtCommand
     
     if (probe.isFailed())
     {
-      if (probeNonSSL(port))
+      if (isReachable(probe) && probeNonSSL(port))
         println("This is a non-SSL website");
       else
         println("This is not a website");
@@ -553,8 +824,7 @@ public class ProbePod extends SrtCommand
     Probe healthCheckResult = new Probe(getName(), "", getDomain(), port,
         "/").setProbePath(Srt.POD_HEALTHCHECK_PATH, Srt.MIME_JSON);
     
-    JCurl jcurl = getJCurl().build();
-    doProbe(jcurl, healthCheckResult, 200, 500);
+    doProbe(newRequest(), healthCheckResult, 200, 500);
 
     if (healthCheckResult.isFailed())
     {
@@ -626,17 +896,17 @@ public class ProbePod extends SrtCommand
       
       podConfig_.setSessionAuthUrl(getUrl(sessionAuthResponse_, Srt.TOKEN));
       
-      Builder builder = getJCurl();
+      TransportRequest.Builder builder = newRequest();
       
       for(String field : Srt.SESSION_INFO_FIELDS)
-        builder.extract(field, field);
+        builder.addExtract(field, field);
       
       cookieAuth(builder);
       
       sessionInfoResult_ = new Probe(getName(), getDomain(), "", port,
           "/pod").setProbePath("/v2/sessioninfo", Srt.MIME_JSON);
       
-      doProbe(builder.build(), sessionInfoResult_);
+      doProbe(builder, sessionInfoResult_);
       
       println("JSON=" + sessionInfoResult_.getJsonNode());
       
@@ -652,23 +922,21 @@ public class ProbePod extends SrtCommand
         println("found pod API endpoint at " + podConfig_.getPodApiUrl());
         
         for(String field : Srt.SESSION_INFO_FIELDS)
-          printf("%-20s=%s\n", field, sessionInfoResult_.getJcurlResponse().getTag(field));
+          printf("%-20s=%s\n", field, sessionInfoResult_.getResponse().getTag(field));
       }
     }
     
     if(subTaskMonitor.worked(1))
       return;
     
-    Builder builder = getJCurl()
-        .expect(401)
-        .expect(200);
+    TransportRequest.Builder builder = newRequest();
     
     cookieAuth(builder);
     
     Probe checkAuthResult = new Probe(getName(), getDomain(), "", port,
         "/").setProbePath("/login/checkauth?type=user", Srt.MIME_JSON);
     
-    doProbe(builder.build(), checkAuthResult, 200, 401);
+    doProbe(builder, checkAuthResult, 200, 401);
     
     if(subTaskMonitor.worked(1))
       return;
@@ -706,14 +974,14 @@ public class ProbePod extends SrtCommand
       println("keyManagerUrl is " + podConfig_.getKeyManagerUrl());
     }
     
-    builder = getJCurl();
+    builder = newRequest();
     
     cookieAuth(builder);
     
     Probe podInfoResult = new Probe(getName(), getDomain(), "", port,
         "/").setProbePath("/webcontroller/public/podInfo", Srt.MIME_JSON);
     
-    doProbe(builder.build(), podInfoResult);
+    doProbe(builder, podInfoResult);
     
     if(subTaskMonitor.worked(1))
       return;
@@ -774,66 +1042,183 @@ public class ProbePod extends SrtCommand
 
   private @Nonnull ScanResponse probeAuth(String title, String basePath, String name, String domain)
   {
-    ScanResponse  response = new ScanResponse(title);
+    List<Probe> probes = new ArrayList<>();
     
     for(String suffix : SUFFIXES)
     {
       for(int authPort : AUTH_PORTS)
       {
-        Probe probe = new Probe(name, suffix, domain, authPort,
-            basePath);
-        
-        JCurl jcurl = getJCurl()
-            .method(JCurl.HttpMethod.POST)
-            .extract(Srt.TOKEN, Srt.TOKEN)
-            .build();
-        
-        probe.setProbePath("/v1/authenticate", Srt.MIME_JSON);
-        
-        doProbe(jcurl, probe);
-        
-        if(!probe.isFailed())
-        {
-          probe.setValid(true);
-        }
-        
-        response.add(probe);
+        probes.add(new Probe(name, suffix, domain, authPort,
+            basePath).setProbePath("/v1/authenticate", Srt.MIME_JSON));
       }
     }
     
-    return response;
+    return scan(new ScanResponse(title), probes, (console, probe) ->
+    {
+      doProbe(console, newAuthRequest(), probe);
+      
+      if(!probe.isFailed())
+      {
+        probe.setValid(true);
+      }
+    });
+  }
+  
+  private TransportRequest.Builder newAuthRequest()
+  {
+    return newRequest()
+        .setMethod(TransportRequest.POST)
+        .addExtract(Srt.TOKEN, Srt.TOKEN);
   }
   
   private @Nonnull ScanResponse probeAgent(String name, String domain)
   {
-    ScanResponse  response = new ScanResponse("Agent API");
+    return scan(new ScanResponse("Agent API"), createAgentProbes(name, domain), (console, probe) -> probeAgent(console, probe));
+  }
+  
+  private List<Probe> createAgentProbes(String name, String domain)
+  {
+    List<Probe> probes = new ArrayList<>();
     
     for(String suffix : SUFFIXES)
     {
       for(int authPort : AgentPorts)
       {
-        Probe agentProbe = new Probe(name, suffix, domain, authPort,
-            "/agent");
-            
-        probeAgent(agentProbe);
+        probes.add(new Probe(name, suffix, domain, authPort,
+            "/agent"));
+      }
+    }
+    
+    return probes;
+  }
+  
+  /**
+   * Check which of the given probes' ports accept TCP connections.
+   * 
+   * All of the ports are tried at once with a plain connect, so that ports on which nothing
+   * is listening, or which are blocked by a firewall, cost one connect timeout in total
+   * rather than one each. Ports which have already been scanned are skipped.
+   * 
+   * @param probes The probes whose ports should be scanned.
+   */
+  private void prescan(List<Probe> probes)
+  {
+    Map<InetSocketAddress, String> endpoints = new HashMap<>();
+    
+    for(Probe probe : probes)
+    {
+      if(!reachable_.containsKey(probe.getHostNameAndPort()))
+        endpoints.put(InetSocketAddress.createUnresolved(probe.getHostName(), probe.getPort()), probe.getHostNameAndPort());
+    }
+    
+    if(endpoints.isEmpty())
+      return;
+    
+    try
+    {
+      Set<InetSocketAddress> reachable = new ReachabilityScanner(getDeadline().limitTimeout(getConnectTimeoutMillis()))
+          .scan(endpoints.keySet());
+      
+      for(Entry<InetSocketAddress, String> entry : endpoints.entrySet())
+        reachable_.put(entry.getValue(), reachable.contains(entry.getKey()));
+      
+      println(String.format("Pre-scan found %d of %d ports open", reachable.size(), endpoints.size()));
+    }
+    catch(IOException e)
+    {
+      // Leave these ports unscanned, the full probes will find out for themselves.
+      error(e, "Unable to pre-scan ports");
+    }
+  }
+  
+  /**
+   * @param message The reason for a failure.
+   * 
+   * @return The given message, or DEADLINE_EXCEEDED if the failure was because the
+   * deadline for the current phase expired.
+   */
+  private String failure(String message)
+  {
+    return isDeadlineExceeded() ? DEADLINE_EXCEEDED : message;
+  }
+  
+  /**
+   * @param probe A probe.
+   * 
+   * @return false if the probe's port was pre-scanned and did not accept a connection.
+   */
+  private boolean isReachable(Probe probe)
+  {
+    return !Boolean.FALSE.equals(reachable_.get(probe.getHostNameAndPort()));
+  }
+  
+  /**
+   * Run the given probes concurrently and add them to the given ScanResponse.
+   * 
+   * The output of each probe is buffered and written to the console, and each probe is
+   * added to the response, in the order in which the probes were given. The result is
+   * therefore the same as if the probes had been run one after another.
+   * 
+   * @param response  The ScanResponse to which the probes are added.
+   * @param probes    The probes to run.
+   * @param prober    Runs a single probe, writing any output to the given console.
+   * 
+   * @return The given ScanResponse.
+   */
+  private @Nonnull ScanResponse scan(ScanResponse response, List<Probe> probes, BiConsumer<IConsole, Probe> prober)
+  {
+    prescan(probes);
+    
+    List<Future<BufferedConsole>> futures = new ArrayList<>(probes.size());
+    
+    for(Probe probe : probes)
+    {
+      futures.add(probeExecutor_.submit(() ->
+      {
+        BufferedConsole console = new BufferedConsole();
         
-        response.add(agentProbe);
+        prober.accept(console, probe);
+        
+        return console;
+      }));
+    }
+    
+    for(int i=0 ; i<probes.size() ; i++)
+    {
+      try
+      {
+        futures.get(i).get().writeTo(this);
+      }
+      catch (InterruptedException e)
+      {
+        for(Future<BufferedConsole> future : futures)
+          future.cancel(true);
+        
+        Thread.currentThread().interrupt();
+        
+        return response;
       }
+      catch (ExecutionException e)
+      {
+        error(e.getCause(), "Probe of %s terminated unexpectedly.", probes.get(i).getProbeUrl());
+      }
+      
+      response.add(probes.get(i));
     }
     
     return response;
   }
   
-  private void probeAgent(Probe probe)
+  private void probeAgent(IConsole console, Probe probe)
   {
-    Builder builder = getJCurl()
-        .method(HttpMethod.POST)
-        .data("{ \"message\": \"Hello World\"}");
+    TransportRequest.Builder builder = newRequest()
+        .setMethod(TransportRequest.POST)
+        .setData("{ \"message\": \"Hello World\"}");
     
     headerAuth(builder);
 
     probe.setProbePath("/v1/util/echo", Srt.MIME_JSON);
-    doProbe(builder.build(), probe);
+    doProbe(console, builder, probe);
     
     if(probe.isFailed())
       return;
@@ -899,57 +1284,60 @@ public class ProbePod extends SrtCommand
 
   private void doProbe(Probe probe)
   {
-    doProbe(getJCurl().build(), probe);
+    doProbe(newRequest(), probe);
   }
   
-  private void doProbe(JCurl jcurl, Probe probe, int ...expectedStatus)
+  private void doProbe(TransportRequest.Builder builder, Probe probe, int ...expectedStatus)
+  {
+    doProbe(this, builder, probe, expectedStatus);
+  }
+  
+  private void doProbe(IConsole console, TransportRequest.Builder builder, Probe probe, int ...expectedStatus)
   {
     try
     {
-      println("Probing " + probe.getProbeUrl() + "...");
-      
-      HttpURLConnection connection = jcurl.connect(probe.getProbeUrl());
-
-      boolean ok = false;
-      int status = connection.getResponseCode();
+      console.println("Probing " + probe.getProbeUrl() + "...");
       
-      probe.setHttpStatus(status);
+      // Fails immediately for every port after the first if the host does not exist.
+      HostResolver.getDefault().resolve(probe.getHostName());
       
-      if(expectedStatus.length == 0)
-      {
-        ok = status == 200;
-      }
-      else
+      if(!isReachable(probe))
       {
-        for(int exp : expectedStatus)
-        {
-          if(status == exp)
-          {
-            ok = true;
-            break;
-          }
-        }
+        console.println("Cannot connect to " + probe.getHostNameAndPort());
+        return;
       }
       
-      if (!ok)
+      for(int exp : expectedStatus)
+        builder.addExpectedStatus(exp);
+      
+      TransportRequest  request  = builder.setUrl(probe.getProbeUrl()).build();
+      TransportResponse response = getTransport().execute(request);
+      
+      probe.setHttpStatus(response.getHttpStatus());
+      probe.setTimings(response.getTimings());
+      printTimings(console, response);
+      
+      if (!request.isExpectedStatus(response.getHttpStatus()))
       {
-        println("Failed with HTTP status " + probe.getHttpStatus());
+        console.println("Failed with HTTP status " + probe.getHttpStatus());
         return;
       }
 
-      JCurl.Response jcr = probe.setJcurlResponse(jcurl.processResponse(connection));
+      probe.setResponse(response);
 
-      Certificate[] certs = jcr.getServerCertificates();
+      Certificate[] certs = response.getServerCertificates();
 
-      X509Certificate cert = (X509Certificate) certs[certs.length - 1];
-      podConfig_.addTrustCert(cert);
-
-      println("Root server cert " + cert.getSubjectX500Principal().getName());
-      
-      cert = (X509Certificate) certs[0];
+      X509Certificate rootCert = (X509Certificate) certs[certs.length - 1];
+      X509Certificate endCert = (X509Certificate) certs[0];
       
-      println("End server cert " + cert.getSubjectX500Principal().getName());
-      serverCerts_.add(cert);
+      synchronized (serverCerts_)
+      {
+        podConfig_.addTrustCert(rootCert);
+        serverCerts_.add(endCert);
+      }
+
+      console.println("Root server cert " + rootCert.getSubjectX500Principal().getName());
+      console.println("End server cert " + endCert.getSubjectX500Principal().getName());
 
       if (!probe.isResponseTypeValid())
         return;
@@ -963,46 +1351,74 @@ public class ProbePod extends SrtCommand
       if (msg.contains("bad_certificate") || msg.contains("certificate_unknown"))
       {
         probe.setFailedCertAuth(true);
-        println("Certificate auth required for " + probe.getHostNameAndPort());
+        console.println("Certificate auth required for " + probe.getHostNameAndPort());
       }
       else
-        println("SSL problem to " + probe.getHostNameAndPort());
+        console.println("SSL problem to " + probe.getHostNameAndPort());
     }
     catch (UnknownHostException e)
     {
-      println(probe.getHostName() + " is not a valid host name");
+      console.println(probe.getHostName() + " is not a valid host name");
+    }
+    catch (DeadlineExceededException e)
+    {
+      console.println("Deadline exceeded probing " + probe.getHostNameAndPort());
     }
     catch (SocketTimeoutException | ConnectException e)
     {
-      println("Cannot connect to " + probe.getHostNameAndPort());
+      console.println("Cannot connect to " + probe.getHostNameAndPort());
     }
     catch (CertificateParsingException | IOException e)
     {
-      e.printStackTrace();
+      console.error(e, "Failed to probe %s", probe.getHostNameAndPort());
     }
     finally
     {
-      flush();
+      console.flush();
     }
   }
 
   
   
-  private Builder headerAuth(Builder builder)
+  private TransportRequest.Builder headerAuth(TransportRequest.Builder builder)
   {
-    String token = getTag(sessionAuthResponse_, Srt.TOKEN);
+    String token = getSessionToken();
         
     if(token != null)
-      builder.header(Srt.SESSION_TOKEN, token);
+      builder.addHeader(Srt.SESSION_TOKEN, token);
     
-    token = getTag(keyAuthResponse_, Srt.TOKEN);
+    token = getKeymanagerToken();
     
     if(token != null)
-      builder.header(Srt.KEYMANAGER_TOKEN, token);
+      builder.addHeader(Srt.KEYMANAGER_TOKEN, token);
     
     return builder;
   }
   
+  /**
+   * 
+   * @return The session token from the scan if there was one, otherwise the one obtained
+   * when checking the endpoints from a previous probe.
+   */
+  private String getSessionToken()
+  {
+    String token = getTag(sessionAuthResponse_, Srt.TOKEN);
+    
+    return token == null ? sessionToken_ : token;
+  }
+  
+  /**
+   * 
+   * @return The key manager token from the scan if there was one, otherwise the one obtained
+   * when checking the endpoints from a previous probe.
+   */
+  private String getKeymanagerToken()
+  {
+    String token = getTag(keyAuthResponse_, Srt.TOKEN);
+    
+    return token == null ? keymanagerToken_ : token;
+  }
+  
   private String getTag(ScanResponse scanResponse, String tag)
   {
     if(scanResponse == null)
@@ -1013,26 +1429,26 @@ public class ProbePod extends SrtCommand
     if(probe == null)
       return null;
     
-    return probe.getJcurlResponse().getTag(tag);
+    return probe.getResponse().getTag(tag);
   }
   
-  private Builder cookieAuth(Builder builder)
+  private TransportRequest.Builder cookieAuth(TransportRequest.Builder builder)
   {
-    StringBuilder s = new StringBuilder();
+    StringBuilder s = null;
     
-    String token = getTag(sessionAuthResponse_, Srt.TOKEN);
+    String token = getSessionToken();
     
     if(token != null)
       s = appendCookie(s, "skey", token);
     
-    token = getTag(keyAuthResponse_, Srt.TOKEN);
+    token = getKeymanagerToken();
     
     if(token != null)
       s = appendCookie(s, "kmsession", token);
     
     if(s != null)
     {
-      builder.header("Cookie", s.toString());
+      builder.addHeader("Cookie", s.toString());
     }
     
     return builder;
@@ -1054,17 +1470,15 @@ public class ProbePod extends SrtCommand
 
   private boolean probeNonSSL(int port)
   {
-    JCurl jcurl = getJCurl().build();
-    
     try
     {
       URL url = new URL("http://" + getFqdn() + ":" + port);
       
-      HttpURLConnection connection = jcurl.connect(url);
+      TransportResponse response = getTransport().execute(newRequest().setUrl(url).build());
 
-      println("response from " + url + " = " + connection.getResponseCode());
+      println("response from " + url + " = " + response.getHttpStatus());
 
-      if(connection.getResponseCode() == 200)
+      if(response.getHttpStatus() == 200)
       {
         podConfig_.setWebUrl(url);
         
@@ -1076,7 +1490,7 @@ public class ProbePod extends SrtCommand
     {
       throw new ProgramFault(e);
     }
-    catch (IOException e)
+    catch (IOException | CertificateParsingException e)
     {
       return false;
     }
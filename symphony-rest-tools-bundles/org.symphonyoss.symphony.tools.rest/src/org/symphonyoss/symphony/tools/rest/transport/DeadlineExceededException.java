@@ -0,0 +1,47 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+/**
+ * Thrown when a request cannot be completed before the deadline set on it.
+ * 
+ * This is a SocketTimeoutException so callers which do not distinguish it
+ * treat it as any other timeout.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class DeadlineExceededException extends SocketTimeoutException
+{
+  private static final long serialVersionUID = 1L;
+
+  public DeadlineExceededException(URL url)
+  {
+    super("Deadline exceeded for " + url);
+  }
+}
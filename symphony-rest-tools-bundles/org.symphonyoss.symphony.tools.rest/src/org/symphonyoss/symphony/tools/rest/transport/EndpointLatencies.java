@@ -0,0 +1,79 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.symphonyoss.symphony.tools.rest.util.LatencyHistogram;
+
+/**
+ * The latencies of the requests sent by a transport, with a histogram for each endpoint.
+ * 
+ * An endpoint is identified by the protocol, host, port and first path segment of the
+ * request URL, so https://pod.example.com/sessionauth/v1/authenticate and
+ * https://pod.example.com/sessionauth/v1/logout are both recorded against
+ * https://pod.example.com/sessionauth.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class EndpointLatencies
+{
+  private final Map<String, LatencyHistogram> histograms_ = new ConcurrentSkipListMap<>();
+  
+  /**
+   * Record the latency of a request to the given URL.
+   * 
+   * @param url   The URL of the request.
+   * @param nanos The time from sending the request to receiving the response.
+   */
+  public void record(URL url, long nanos)
+  {
+    histograms_.computeIfAbsent(getEndpoint(url), (k) -> new LatencyHistogram()).record(nanos);
+  }
+  
+  /**
+   * 
+   * @return An unmodifiable map of endpoint to histogram, sorted by endpoint.
+   */
+  public Map<String, LatencyHistogram> getAll()
+  {
+    return Collections.unmodifiableMap(histograms_);
+  }
+  
+  static String getEndpoint(URL url)
+  {
+    String  path  = url.getPath();
+    int     i     = path.indexOf('/', 1);
+    
+    if(i != -1)
+      path = path.substring(0, i);
+    
+    return url.getProtocol() + "://" + url.getAuthority() + path;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of host name lookups.
+ * 
+ * Both successful and failed lookups are cached, each with their own time to live,
+ * so that a name which does not exist costs one lookup however many ports are
+ * probed on it. Concurrent lookups of the same name wait for a single query.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class HostResolver
+{
+  private static final long         POSITIVE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  private static final long         NEGATIVE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  private static final HostResolver DEFAULT             = new HostResolver(POSITIVE_TTL_MILLIS, NEGATIVE_TTL_MILLIS);
+  
+  private final long                positiveTtlNanos_;
+  private final long                negativeTtlNanos_;
+  private final Map<String, Entry>  cache_ = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   * 
+   * @param positiveTtlMillis The time for which a successful lookup is cached.
+   * @param negativeTtlMillis The time for which a failed lookup is cached.
+   */
+  public HostResolver(long positiveTtlMillis, long negativeTtlMillis)
+  {
+    positiveTtlNanos_ = TimeUnit.MILLISECONDS.toNanos(positiveTtlMillis);
+    negativeTtlNanos_ = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+  }
+  
+  /**
+   * @return The process wide resolver.
+   */
+  public static HostResolver getDefault()
+  {
+    return DEFAULT;
+  }
+  
+  /**
+   * Resolve the given host name.
+   * 
+   * @param hostName  A host name or literal IP address.
+   * 
+   * @return The address of the given host.
+   * 
+   * @throws UnknownHostException If the name does not resolve, now or when last looked up.
+   */
+  public InetAddress resolve(String hostName) throws UnknownHostException
+  {
+    long  now   = System.nanoTime();
+    Entry entry = cache_.compute(hostName.toLowerCase(),
+        (key, existing) -> existing == null || existing.isExpired(now) ? new Entry() : existing);
+    
+    return entry.get(hostName);
+  }
+  
+  /**
+   * Return true if the given host name is known not to resolve.
+   * 
+   * This never performs a lookup.
+   * 
+   * @param hostName  A host name.
+   * 
+   * @return true if the last lookup of the given name failed and has not expired.
+   */
+  public boolean isKnownUnresolvable(String hostName)
+  {
+    Entry entry = cache_.get(hostName.toLowerCase());
+    
+    return entry != null && !entry.isExpired(System.nanoTime()) && entry.isFailed();
+  }
+  
+  /**
+   * Discard all cached lookups.
+   */
+  public void clear()
+  {
+    cache_.clear();
+  }
+  
+  /**
+   * Perform an actual lookup.
+   * 
+   * @param hostName  A host name.
+   * 
+   * @return The address of the given host.
+   * 
+   * @throws UnknownHostException If the name does not resolve.
+   */
+  protected InetAddress lookup(String hostName) throws UnknownHostException
+  {
+    return InetAddress.getByName(hostName);
+  }
+  
+  private class Entry
+  {
+    private boolean              resolved_;
+    private long                 expires_;
+    private InetAddress          address_;
+    private UnknownHostException failure_;
+    
+    private synchronized InetAddress get(String hostName) throws UnknownHostException
+    {
+      if(!resolved_)
+      {
+        try
+        {
+          address_ = lookup(hostName);
+          expires_ = System.nanoTime() + positiveTtlNanos_;
+        }
+        catch(UnknownHostException e)
+        {
+          failure_ = e;
+          expires_ = System.nanoTime() + negativeTtlNanos_;
+        }
+        resolved_ = true;
+      }
+      
+      if(failure_ != null)
+        throw new UnknownHostException(failure_.getMessage());
+      
+      return address_;
+    }
+    
+    private synchronized boolean isFailed()
+    {
+      return resolved_ && failure_ != null;
+    }
+    
+    private synchronized boolean isExpired(long now)
+    {
+      return resolved_ && now - expires_ >= 0;
+    }
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An incremental parser for HTTP/1.1 responses, which is fed with
+ * bytes as they arrive from the network.
+ * 
+ * @author bruce.skingle
+ *
+ */
+class HttpResponseParser
+{
+  private static final int MAX_LINE_LENGTH = 64 * 1024;
+  
+  private enum State { STATUS_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER, COMPLETE }
+  
+  private final boolean                   headRequest_;
+  private final StringBuilder             line_    = new StringBuilder();
+  private final ByteArrayOutputStream     body_    = new ByteArrayOutputStream();
+  private Map<String, List<String>>       headers_ = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private State                           state_   = State.STATUS_LINE;
+  private String                          version_;
+  private int                             httpStatus_;
+  private long                            remaining_;
+  private boolean                         untilClose_;
+
+  HttpResponseParser(boolean headRequest)
+  {
+    headRequest_ = headRequest;
+  }
+
+  /**
+   * Consume as much of the given buffer as is needed.
+   * 
+   * @param buf A buffer in read mode.
+   * 
+   * @return true if the response is complete.
+   * 
+   * @throws IOException If the response is malformed.
+   */
+  boolean consume(ByteBuffer buf) throws IOException
+  {
+    while(buf.hasRemaining() && state_ != State.COMPLETE)
+    {
+      switch(state_)
+      {
+        case BODY:
+        case CHUNK_DATA:
+          int length = untilClose_ ? buf.remaining() : (int)Math.min(remaining_, buf.remaining());
+          
+          if(buf.hasArray())
+          {
+            body_.write(buf.array(), buf.arrayOffset() + buf.position(), length);
+            buf.position(buf.position() + length);
+          }
+          else
+          {
+            for(int i=0 ; i<length ; i++)
+              body_.write(buf.get());
+          }
+          
+          if(!untilClose_)
+          {
+            remaining_ -= length;
+            
+            if(remaining_ == 0)
+              state_ = state_ == State.BODY ? State.COMPLETE : State.CHUNK_END;
+          }
+          break;
+          
+        default:
+          String line = readLine(buf);
+          
+          if(line != null)
+            processLine(line);
+      }
+    }
+    
+    return state_ == State.COMPLETE;
+  }
+
+  /**
+   * Indicate that the peer has closed the connection.
+   * 
+   * @return true if the response is complete.
+   */
+  boolean endOfStream()
+  {
+    if(untilClose_ && state_ == State.BODY)
+      state_ = State.COMPLETE;
+    
+    return state_ == State.COMPLETE;
+  }
+  
+  private String readLine(ByteBuffer buf) throws IOException
+  {
+    while(buf.hasRemaining())
+    {
+      char c = (char)(buf.get() & 0xff);
+      
+      if(c == '\n')
+      {
+        int len = line_.length();
+        
+        if(len > 0 && line_.charAt(len - 1) == '\r')
+          line_.setLength(len - 1);
+        
+        String line = line_.toString();
+        
+        line_.setLength(0);
+        
+        return line;
+      }
+      
+      if(line_.length() >= MAX_LINE_LENGTH)
+        throw new ProtocolException("Response line too long");
+      
+      line_.append(c);
+    }
+    
+    return null;
+  }
+
+  private void processLine(String line) throws IOException
+  {
+    switch(state_)
+    {
+      case STATUS_LINE:
+        if(line.isEmpty())
+          break;
+        
+        String[] parts = line.split(" ", 3);
+        
+        if(parts.length < 2 || !parts[0].startsWith("HTTP/"))
+          throw new ProtocolException("Invalid status line \"" + line + "\"");
+        
+        version_ = parts[0];
+        
+        try
+        {
+          httpStatus_ = Integer.parseInt(parts[1]);
+        }
+        catch(NumberFormatException e)
+        {
+          throw new ProtocolException("Invalid status line \"" + line + "\"");
+        }
+        state_ = State.HEADERS;
+        break;
+        
+      case HEADERS:
+        if(line.isEmpty())
+          endOfHeaders();
+        else
+          addHeader(line);
+        break;
+        
+      case CHUNK_SIZE:
+        int i = line.indexOf(';');
+        
+        try
+        {
+          remaining_ = Long.parseLong((i == -1 ? line : line.substring(0, i)).trim(), 16);
+        }
+        catch(NumberFormatException e)
+        {
+          throw new ProtocolException("Invalid chunk size \"" + line + "\"");
+        }
+        state_ = remaining_ == 0 ? State.TRAILER : State.CHUNK_DATA;
+        break;
+        
+      case CHUNK_END:
+        state_ = State.CHUNK_SIZE;
+        break;
+        
+      case TRAILER:
+        if(line.isEmpty())
+          state_ = State.COMPLETE;
+        break;
+        
+      default:
+        throw new IllegalStateException("Unexpected state " + state_);
+    }
+  }
+  
+  private void addHeader(String line) throws IOException
+  {
+    int i = line.indexOf(':');
+    
+    if(i < 1)
+      throw new ProtocolException("Invalid header \"" + line + "\"");
+    
+    headers_.computeIfAbsent(line.substring(0, i).trim(), (k) -> new ArrayList<>())
+      .add(line.substring(i + 1).trim());
+  }
+
+  private void endOfHeaders() throws IOException
+  {
+    if(httpStatus_ >= 100 && httpStatus_ < 200)
+    {
+      // Informational response, the real one follows.
+      headers_ = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      state_ = State.STATUS_LINE;
+      return;
+    }
+    
+    if(headRequest_ || httpStatus_ == 204 || httpStatus_ == 304)
+    {
+      state_ = State.COMPLETE;
+      return;
+    }
+    
+    String transferEncoding = getHeader("Transfer-Encoding");
+    
+    if(transferEncoding != null && transferEncoding.toLowerCase().contains("chunked"))
+    {
+      state_ = State.CHUNK_SIZE;
+      return;
+    }
+    
+    String contentLength = getHeader("Content-Length");
+    
+    if(contentLength == null)
+    {
+      untilClose_ = true;
+      state_ = State.BODY;
+      return;
+    }
+    
+    try
+    {
+      remaining_ = Long.parseLong(contentLength.trim());
+    }
+    catch(NumberFormatException e)
+    {
+      throw new ProtocolException("Invalid Content-Length \"" + contentLength + "\"");
+    }
+    
+    state_ = remaining_ == 0 ? State.COMPLETE : State.BODY;
+  }
+
+  String getHeader(String name)
+  {
+    List<String> values = headers_.get(name);
+    
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+  
+  boolean isComplete()
+  {
+    return state_ == State.COMPLETE;
+  }
+  
+  /**
+   * 
+   * @return true if the connection can be used for another request after this response.
+   */
+  boolean isKeepAlive()
+  {
+    if(state_ != State.COMPLETE || untilClose_)
+      return false;
+    
+    String connection = getHeader("Connection");
+    
+    if("HTTP/1.0".equals(version_))
+      return "keep-alive".equalsIgnoreCase(connection);
+    
+    return !"close".equalsIgnoreCase(connection);
+  }
+
+  int getHttpStatus()
+  {
+    return httpStatus_;
+  }
+
+  Map<String, List<String>> getHeaders()
+  {
+    return headers_;
+  }
+
+  byte[] getBody()
+  {
+    return body_.toByteArray();
+  }
+}
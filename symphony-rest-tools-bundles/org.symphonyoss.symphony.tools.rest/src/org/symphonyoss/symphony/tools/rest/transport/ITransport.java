@@ -0,0 +1,163 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.security.cert.CertificateParsingException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.symphonyoss.symphony.tools.rest.util.Deadline;
+import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
+
+/**
+ * A means of making HTTP requests.
+ * 
+ * Implementations may complete the returned future before send() returns, in which
+ * case the calling thread is blocked for the duration of the exchange, or later
+ * from some other thread.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public interface ITransport extends AutoCloseable
+{
+  /**
+   * Send the given request.
+   * 
+   * Failures are reported by completing the returned future exceptionally, with
+   * the same exceptions which HttpURLConnection would throw (UnknownHostException,
+   * ConnectException, SocketTimeoutException, SSLHandshakeException etc).
+   * 
+   * @param request The request to send.
+   * 
+   * @return A future which completes with the response.
+   */
+  CompletableFuture<TransportResponse> send(TransportRequest request);
+  
+  /**
+   * Send the given request and wait for the response.
+   * 
+   * @param request The request to send.
+   * 
+   * @return The response.
+   * 
+   * @throws DeadlineExceededException    If the deadline of the request expires first.
+   * @throws IOException                  If the request fails.
+   * @throws CertificateParsingException  If the server certificates cannot be parsed.
+   */
+  default TransportResponse execute(TransportRequest request) throws IOException, CertificateParsingException
+  {
+    Deadline deadline = request.getDeadline();
+    
+    if(deadline.isExpired())
+      throw new DeadlineExceededException(request.getUrl());
+    
+    long                                  start   = System.nanoTime();
+    CompletableFuture<TransportResponse>  future  = send(request);
+    
+    try
+    {
+      TransportResponse response = deadline.isBounded() ?
+          future.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS) : future.get();
+      
+      getLatencies().record(request.getUrl(), System.nanoTime() - start);
+      
+      return response;
+    }
+    catch (TimeoutException e)
+    {
+      future.cancel(true);
+      
+      throw new DeadlineExceededException(request.getUrl());
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      
+      throw new InterruptedIOException("Interrupted waiting for " + request.getUrl());
+    }
+    catch (ExecutionException | CompletionException e)
+    {
+      Throwable cause = e.getCause();
+      
+      // A timeout which was limited by the deadline is reported as such.
+      if(cause instanceof SocketTimeoutException && deadline.isExpired())
+        throw new DeadlineExceededException(request.getUrl());
+      
+      if(cause instanceof IOException)
+        throw (IOException) cause;
+      
+      if(cause instanceof CertificateParsingException)
+        throw (CertificateParsingException) cause;
+      
+      if(cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      
+      throw new ProgramFault(cause);
+    }
+  }
+  
+  /**
+   * 
+   * @return The number of requests which have been sent by this transport.
+   */
+  long getRequestCount();
+  
+  /**
+   * 
+   * @return The number of new connections which have been opened by this transport.
+   */
+  long getConnectionCount();
+  
+  /**
+   * 
+   * @return The number of TLS handshakes which did not resume an existing session.
+   */
+  long getFullHandshakeCount();
+  
+  /**
+   * 
+   * @return The number of TLS handshakes which resumed an existing session.
+   */
+  long getResumedHandshakeCount();
+  
+  /**
+   * 
+   * @return The latencies of the requests executed by this transport which received a response.
+   */
+  EndpointLatencies getLatencies();
+  
+  /**
+   * Release any resources held by this transport. Requests in flight are failed.
+   */
+  @Override
+  void close();
+}
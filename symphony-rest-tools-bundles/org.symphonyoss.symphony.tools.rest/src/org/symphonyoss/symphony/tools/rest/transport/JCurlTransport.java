@@ -0,0 +1,461 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.Certificate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+/**
+ * A transport which uses HttpURLConnection, and JCurl to process JSON responses.
+ * 
+ * Requests are executed on the calling thread, which is blocked for the duration
+ * of the exchange, so the future returned by send() is always complete.
+ * 
+ * The connection is opened here rather than by JCurl, because JCurl loads the keystore
+ * and truststore and creates a new SSLSocketFactory for every request. HTTPS connections
+ * are given the socket factory of the shared SSLContext from TlsConfig instead, so the
+ * stores come from the KeyStoreCache, and a connection to an endpoint which has been
+ * connected to before, by any command, resumes the TLS session.
+ * 
+ * HttpURLConnection keeps connections alive in a process wide cache keyed by endpoint
+ * and socket factory. Each transport uses one socket factory per SSLContext, and reads
+ * every response body to the end, so later HTTPS requests from the same command reuse
+ * the connection.
+ * 
+ * The socket factory is wrapped so that the socket created by each connect can be seen,
+ * which is how connections and handshakes are counted. Plain HTTP connections are not
+ * visible, so every plain HTTP request is counted as a new connection.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class JCurlTransport implements ITransport
+{
+  private static final HostnameVerifier TRUST_ALL_HOSTNAMES = (hostname, session) -> true;
+  
+  private final int                                     verbosity_;
+  private final AtomicLong                              requestCount_      = new AtomicLong();
+  private final AtomicLong                              connectionCount_   = new AtomicLong();
+  private final AtomicLong                              fullHandshakes_    = new AtomicLong();
+  private final AtomicLong                              resumedHandshakes_ = new AtomicLong();
+  private final EndpointLatencies                       latencies_         = new EndpointLatencies();
+  private final Map<SSLContext, TrackingSocketFactory>  socketFactories_   = new ConcurrentHashMap<>();
+  private final ThreadLocal<SSLSocket>                  createdSocket_     = new ThreadLocal<>();
+
+  public JCurlTransport()
+  {
+    this(0);
+  }
+  
+  /**
+   * 
+   * @param verbosity The JCurl verbosity level.
+   */
+  public JCurlTransport(int verbosity)
+  {
+    verbosity_ = verbosity;
+  }
+
+  @Override
+  public CompletableFuture<TransportResponse> send(TransportRequest request)
+  {
+    CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+    
+    requestCount_.incrementAndGet();
+    
+    try
+    {
+      future.complete(doSend(request));
+    }
+    catch(IOException | GeneralSecurityException | RuntimeException e)
+    {
+      future.completeExceptionally(e);
+    }
+    
+    return future;
+  }
+  
+  private TransportResponse doSend(TransportRequest request) throws IOException, GeneralSecurityException
+  {
+    PhaseTimings      timings     = new PhaseTimings();
+    long              start       = System.nanoTime();
+    
+    // HttpURLConnection resolves the name itself, this fails fast and times the lookup.
+    HostResolver.getDefault().resolve(request.getUrl().getHost());
+    
+    // Forget any socket left by a connect which failed.
+    createdSocket_.remove();
+    
+    long              resolved    = System.nanoTime();
+    long              startMillis = System.currentTimeMillis();
+    HttpURLConnection connection  = connect(request);
+    long              connected   = System.nanoTime();
+    SSLSocket         socket      = createdSocket_.get();
+    
+    if(socket != null)
+    {
+      createdSocket_.remove();
+      connectionCount_.incrementAndGet();
+      
+      // A resumed session was created by an earlier handshake.
+      (socket.getSession().getCreationTime() < startMillis ? resumedHandshakes_ : fullHandshakes_).incrementAndGet();
+      timings.setConnectNanos(connected - resolved);
+    }
+    else if(connection instanceof HttpsURLConnection)
+    {
+      timings.setReused(true);
+    }
+    else
+    {
+      connectionCount_.incrementAndGet();
+      timings.setConnectNanos(connected - resolved);
+    }
+    
+    if(request.getData() != null)
+    {
+      try(OutputStream out = connection.getOutputStream())
+      {
+        out.write(request.getData().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    
+    int               status      = connection.getResponseCode();
+    long              firstByte   = System.nanoTime();
+    
+    timings.setDnsNanos(resolved - start);
+    timings.setTtfbNanos(firstByte - connected);
+    
+    if(!request.isExpectedStatus(status))
+    {
+      Certificate[] certs = null;
+      
+      if(connection instanceof HttpsURLConnection)
+        certs = ((HttpsURLConnection)connection).getServerCertificates();
+      
+      // The body is not wanted, but must be read for the connection to be kept alive.
+      readBody(connection, status);
+      
+      return new TransportResponse(status, connection.getContentType(), getHeaders(connection), null, null, null, certs, timings);
+    }
+    
+    if(!request.isParseJson())
+      return readResponse(request, connection, status, timings, firstByte);
+    
+    JCurl.Response      response;
+    
+    try
+    {
+      response = getJCurl(request).build().processResponse(connection);
+    }
+    finally
+    {
+      closeBody(connection, status);
+    }
+    
+    timings.setBodyNanos(System.nanoTime() - firstByte);
+    
+    Map<String, String> tags     = new HashMap<>();
+    
+    for(String label : request.getExtracts().keySet())
+    {
+      String value = response.getTag(label);
+      
+      if(value != null)
+        tags.put(label, value);
+    }
+    
+    return new TransportResponse(status, response.getContentType(), getHeaders(connection), null,
+        response.getJsonNode(), tags, response.getServerCertificates(), timings);
+  }
+
+  /*
+   * Read the raw body rather than letting JCurl parse it, for callers which parse it themselves.
+   */
+  private TransportResponse readResponse(TransportRequest request, HttpURLConnection connection, int status,
+      PhaseTimings timings, long firstByte) throws IOException
+  {
+    Certificate[] certs = null;
+    
+    if(connection instanceof HttpsURLConnection)
+      certs = ((HttpsURLConnection)connection).getServerCertificates();
+    
+    byte[]        body  = readBody(connection, status);
+    
+    timings.setBodyNanos(System.nanoTime() - firstByte);
+    
+    return TransportResponse.parse(request, status, getHeaders(connection), body, certs, timings);
+  }
+  
+  /*
+   * Read the body to the end and close the stream, which returns a kept alive connection to the cache.
+   */
+  private byte[] readBody(HttpURLConnection connection, int status) throws IOException
+  {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    
+    try(InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream())
+    {
+      if(in != null)
+      {
+        byte[]  buf = new byte[4096];
+        int     nbytes;
+        
+        while((nbytes = in.read(buf)) != -1)
+          body.write(buf, 0, nbytes);
+      }
+    }
+    
+    return body.toByteArray();
+  }
+  
+  /*
+   * Closing the stream reads any bytes left after the JSON value and releases the connection.
+   */
+  private void closeBody(HttpURLConnection connection, int status) throws IOException
+  {
+    InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    
+    if(in != null)
+      in.close();
+  }
+
+  /*
+   * Open the connection, performing the TCP connect and any TLS handshake.
+   */
+  private HttpURLConnection connect(TransportRequest request) throws IOException, GeneralSecurityException
+  {
+    HttpURLConnection connection = (HttpURLConnection) request.getUrl().openConnection();
+    
+    if(connection instanceof HttpsURLConnection)
+    {
+      HttpsURLConnection  https     = (HttpsURLConnection) connection;
+      TlsConfig           tlsConfig = request.getTlsConfig();
+      SSLContext          context   = tlsConfig == null ? SSLContext.getDefault() : tlsConfig.getSslContext();
+      
+      https.setSSLSocketFactory(socketFactories_.computeIfAbsent(context,
+          (c) -> new TrackingSocketFactory(c.getSocketFactory())));
+      
+      if(tlsConfig != null && tlsConfig.isTrustAllHostnames())
+        https.setHostnameVerifier(TRUST_ALL_HOSTNAMES);
+    }
+    
+    connection.setRequestMethod(request.getMethod());
+    
+    for(Map.Entry<String, String> entry : request.getHeaders().entrySet())
+      connection.setRequestProperty(entry.getKey(), entry.getValue());
+    
+    if(connection.getRequestProperty("Accept") == null)
+      connection.setRequestProperty("Accept", "*/*");
+
+    if (request.getConnectTimeoutMillis() > 0)
+      connection.setConnectTimeout(request.getConnectTimeoutMillis());
+
+    if (request.getReadTimeoutMillis() > 0)
+      connection.setReadTimeout(request.getReadTimeoutMillis());
+    
+    if(request.getData() != null)
+    {
+      connection.setDoOutput(true);
+      
+      // HttpURLConnection silently resends a buffered POST which fails on a kept alive connection.
+      if(!request.isIdempotent())
+        connection.setFixedLengthStreamingMode(request.getData().getBytes(StandardCharsets.UTF_8).length);
+      
+      if(connection.getRequestProperty("Content-Type") == null)
+        connection.setRequestProperty("Content-Type", "application/json");
+    }
+    
+    connection.connect();
+    
+    return connection;
+  }
+
+  /*
+   * JCurl is only used to parse the response and extract the requested values.
+   */
+  private JCurl.Builder getJCurl(TransportRequest request)
+  {
+    JCurl.Builder builder = JCurl.builder();
+    
+    for(Map.Entry<String, String> entry : request.getExtracts().entrySet())
+      builder.extract(entry.getKey(), entry.getValue());
+    
+    for(int status : request.getExpectedStatus())
+      builder.expect(status);
+    
+    if(verbosity_ > 0)
+      builder.verbosity(verbosity_);
+    
+    return builder;
+  }
+
+  private Map<String, List<String>> getHeaders(HttpURLConnection connection)
+  {
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    
+    for(Map.Entry<String, List<String>> entry : connection.getHeaderFields().entrySet())
+    {
+      // The status line is returned with a null key
+      if(entry.getKey() != null)
+        headers.put(entry.getKey(), entry.getValue());
+    }
+    
+    return headers;
+  }
+
+  @Override
+  public long getRequestCount()
+  {
+    return requestCount_.get();
+  }
+
+  /**
+   * Plain HTTP connections are not visible, so every plain HTTP request is counted.
+   */
+  @Override
+  public long getConnectionCount()
+  {
+    return connectionCount_.get();
+  }
+
+  @Override
+  public long getFullHandshakeCount()
+  {
+    return fullHandshakes_.get();
+  }
+
+  @Override
+  public long getResumedHandshakeCount()
+  {
+    return resumedHandshakes_.get();
+  }
+
+  @Override
+  public EndpointLatencies getLatencies()
+  {
+    return latencies_;
+  }
+
+  @Override
+  public void close()
+  {
+  }
+
+  /**
+   * A socket factory which records, for the calling thread, the last socket it created.
+   * 
+   * HttpURLConnection creates the socket and completes the handshake on the thread
+   * which calls connect(), so after that call the socket, if any, has been handshaken.
+   * No socket means that a pooled connection was reused.
+   */
+  private class TrackingSocketFactory extends SSLSocketFactory
+  {
+    private final SSLSocketFactory delegate_;
+    
+    private TrackingSocketFactory(SSLSocketFactory delegate)
+    {
+      delegate_ = delegate;
+    }
+    
+    private Socket track(Socket socket)
+    {
+      if(socket instanceof SSLSocket)
+        createdSocket_.set((SSLSocket) socket);
+      
+      return socket;
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites()
+    {
+      return delegate_.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites()
+    {
+      return delegate_.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException
+    {
+      return track(delegate_.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException
+    {
+      return track(delegate_.createSocket(s, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException
+    {
+      return track(delegate_.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException
+    {
+      return track(delegate_.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException
+    {
+      return track(delegate_.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException
+    {
+      return track(delegate_.createSocket(address, port, localAddress, localPort));
+    }
+  }
+}
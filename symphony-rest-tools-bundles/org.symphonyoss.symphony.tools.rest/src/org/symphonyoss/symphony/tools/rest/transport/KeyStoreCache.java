@@ -0,0 +1,204 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * A process wide cache of the key and trust managers loaded from keystore files.
+ * 
+ * Decoding a PKCS12 file and deriving the key to decrypt its private key entry is
+ * expensive, so managers are cached by the canonical path, modification time and
+ * length of the file together with the store type and password. A file which is
+ * changed on disk therefore gets a new entry, and the stale one is discarded.
+ * 
+ * The cache is used by the SSLContexts of TlsConfig, which both transports use.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class KeyStoreCache
+{
+  private static final Map<StoreKey, KeyManager[]>   KEY_MANAGERS   = new ConcurrentHashMap<>();
+  private static final Map<StoreKey, TrustManager[]> TRUST_MANAGERS = new ConcurrentHashMap<>();
+  
+  private KeyStoreCache()
+  {
+  }
+  
+  /**
+   * Return the key managers for the given keystore.
+   * 
+   * @param fileName  The keystore file name.
+   * @param type      The keystore type, or null for the default type.
+   * @param password  The keystore password, which is also used for the key entries.
+   * 
+   * @return The key managers for the given keystore.
+   * 
+   * @throws GeneralSecurityException  If the keystore is invalid.
+   * @throws IOException                If the keystore cannot be read.
+   */
+  public static KeyManager[] getKeyManagers(String fileName, String type, String password) throws GeneralSecurityException, IOException
+  {
+    StoreKey      key           = new StoreKey(fileName, type, password);
+    KeyManager[]  keyManagers   = KEY_MANAGERS.get(key);
+    
+    if(keyManagers == null)
+    {
+      KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+      
+      kmf.init(loadKeyStore(fileName, type, password), toCharArray(password));
+      keyManagers = kmf.getKeyManagers();
+      
+      KEY_MANAGERS.keySet().removeIf((k) -> k.isStaleVersionOf(key));
+      KEY_MANAGERS.put(key, keyManagers);
+    }
+    
+    return keyManagers;
+  }
+  
+  /**
+   * Return the trust managers for the given truststore.
+   * 
+   * @param fileName  The truststore file name.
+   * @param type      The truststore type, or null for the default type.
+   * @param password  The truststore password.
+   * 
+   * @return The trust managers for the given truststore.
+   * 
+   * @throws GeneralSecurityException  If the truststore is invalid.
+   * @throws IOException                If the truststore cannot be read.
+   */
+  public static TrustManager[] getTrustManagers(String fileName, String type, String password) throws GeneralSecurityException, IOException
+  {
+    StoreKey        key           = new StoreKey(fileName, type, password);
+    TrustManager[]  trustManagers = TRUST_MANAGERS.get(key);
+    
+    if(trustManagers == null)
+    {
+      TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+      
+      tmf.init(loadKeyStore(fileName, type, password));
+      trustManagers = tmf.getTrustManagers();
+      
+      TRUST_MANAGERS.keySet().removeIf((k) -> k.isStaleVersionOf(key));
+      TRUST_MANAGERS.put(key, trustManagers);
+    }
+    
+    return trustManagers;
+  }
+  
+  /**
+   * Return a stamp which changes whenever the given file is changed.
+   * 
+   * @param fileName A file name, may be null.
+   * 
+   * @return A stamp for the current version of the given file, or null if fileName is null or empty.
+   * 
+   * @throws IOException If the file name cannot be resolved.
+   */
+  static String getStamp(String fileName) throws IOException
+  {
+    if(fileName == null || fileName.length() == 0)
+      return null;
+    
+    File file = new File(fileName);
+    
+    return file.getCanonicalPath() + "@" + file.lastModified() + ":" + file.length();
+  }
+  
+  private static KeyStore loadKeyStore(String fileName, String type, String password) throws GeneralSecurityException, IOException
+  {
+    KeyStore keyStore = KeyStore.getInstance(type != null && type.length() > 0 ? type : KeyStore.getDefaultType());
+    
+    try(InputStream in = new FileInputStream(fileName))
+    {
+      keyStore.load(in, toCharArray(password));
+    }
+    
+    return keyStore;
+  }
+  
+  private static char[] toCharArray(String s)
+  {
+    return s == null ? null : s.toCharArray();
+  }
+  
+  private static class StoreKey
+  {
+    private final String path_;
+    private final long   lastModified_;
+    private final long   length_;
+    private final String type_;
+    private final String password_;
+    
+    private StoreKey(String fileName, String type, String password) throws IOException
+    {
+      File file = new File(fileName);
+      
+      path_ = file.getCanonicalPath();
+      lastModified_ = file.lastModified();
+      length_ = file.length();
+      type_ = type;
+      password_ = password;
+    }
+    
+    private boolean isStaleVersionOf(StoreKey other)
+    {
+      return path_.equals(other.path_) && (lastModified_ != other.lastModified_ || length_ != other.length_);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hash(path_, lastModified_, length_, type_, password_);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if(!(obj instanceof StoreKey))
+        return false;
+      
+      StoreKey other = (StoreKey) obj;
+      
+      return path_.equals(other.path_) && lastModified_ == other.lastModified_ && length_ == other.length_ &&
+          Objects.equals(type_, other.type_) && Objects.equals(password_, other.password_);
+    }
+  }
+}
@@ -0,0 +1,645 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.Certificate;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+/**
+ * A non-blocking HTTP connection, optionally over TLS, which carries one exchange
+ * at a time. When a response allows it the connection is returned to the idle pool
+ * of the owning NioTransport so that it can be reused for another request to the
+ * same endpoint.
+ * 
+ * All methods are called only from the selector thread of the owning NioTransport.
+ * 
+ * @author bruce.skingle
+ *
+ */
+class NioConnection
+{
+  private enum State { CONNECTING, SENDING, RECEIVING, IDLE, CLOSED }
+  
+  private static final ByteBuffer EMPTY               = ByteBuffer.allocate(0);
+  private static final int        BUFFER_SIZE         = 16 * 1024;
+  private static final int        IDLE_TIMEOUT_MILLIS = 15000;
+
+  private final NioTransport                         transport_;
+  private final NioTransport.Endpoint                endpoint_;
+  private final SSLEngine                            engine_;
+  
+  private TransportRequest                           request_;
+  private CompletableFuture<TransportResponse>       future_;
+  private PhaseTimings                               timings_;
+  private long                                       phaseStart_;
+  private long                                       sentAt_;
+  private long                                       firstByteAt_;
+  private HttpResponseParser                         parser_;
+  private ByteBuffer                                 requestBytes_;
+  private boolean                                    reused_;
+  private boolean                                    received_;
+  
+  private ByteBuffer                                 netIn_;
+  private ByteBuffer                                 netOut_;
+  private ByteBuffer                                 appIn_;
+  private SocketChannel                              channel_;
+  private SelectionKey                               key_;
+  private State                                      state_ = State.CONNECTING;
+  private long                                       deadline_;
+  private long                                       handshakeStart_;
+  private boolean                                    handshakeDone_;
+  private boolean                                    eof_;
+
+  /**
+   * 
+   * @param transport The owning transport.
+   * @param endpoint  The endpoint to connect to.
+   * @param engine    A client mode SSLEngine for https, or null for http.
+   */
+  NioConnection(NioTransport transport, NioTransport.Endpoint endpoint, SSLEngine engine)
+  {
+    transport_ = transport;
+    endpoint_ = endpoint;
+    engine_ = engine;
+    
+    if(engine_ == null)
+    {
+      netOut_ = ByteBuffer.allocate(BUFFER_SIZE);
+      appIn_ = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+    else
+    {
+      int packetSize = engine_.getSession().getPacketBufferSize();
+      
+      netIn_ = ByteBuffer.allocate(packetSize);
+      netOut_ = ByteBuffer.allocate(packetSize);
+      appIn_ = ByteBuffer.allocate(engine_.getSession().getApplicationBufferSize());
+    }
+  }
+
+  NioTransport.Endpoint getEndpoint()
+  {
+    return endpoint_;
+  }
+  
+  /**
+   * Open a new connection and send the given request.
+   * 
+   * @param selector  The selector of the owning transport.
+   * @param request   The request to send.
+   * @param future    The future to be completed with the response.
+   * @param timings   The timings of the request.
+   */
+  void open(Selector selector, TransportRequest request, CompletableFuture<TransportResponse> future,
+      PhaseTimings timings)
+  {
+    setExchange(request, future, timings, false);
+    phaseStart_ = System.nanoTime();
+    
+    try
+    {
+      channel_ = SocketChannel.open();
+      channel_.configureBlocking(false);
+      channel_.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      key_ = channel_.register(selector, 0, this);
+      setDeadline(request_.getConnectTimeoutMillis());
+      
+      if(channel_.connect(endpoint_.getAddress()))
+        connected();
+      else
+        key_.interestOps(SelectionKey.OP_CONNECT);
+    }
+    catch(IOException | RuntimeException e)
+    {
+      fail(e);
+    }
+  }
+  
+  /**
+   * Send the given request over this idle connection.
+   * 
+   * @param request   The request to send.
+   * @param future    The future to be completed with the response.
+   * @param timings   The timings of the request.
+   */
+  void reuse(TransportRequest request, CompletableFuture<TransportResponse> future, PhaseTimings timings)
+  {
+    setExchange(request, future, timings, true);
+    state_ = State.SENDING;
+    setDeadline(request_.getReadTimeoutMillis());
+    
+    try
+    {
+      progress();
+    }
+    catch(IOException | RuntimeException e)
+    {
+      fail(e);
+    }
+  }
+  
+  private void setExchange(TransportRequest request, CompletableFuture<TransportResponse> future,
+      PhaseTimings timings, boolean reused)
+  {
+    request_ = request;
+    future_ = future;
+    timings_ = timings;
+    timings_.setReused(reused);
+    sentAt_ = 0;
+    firstByteAt_ = 0;
+    parser_ = new HttpResponseParser("HEAD".equals(request.getMethod()));
+    requestBytes_ = encode(request);
+    reused_ = reused;
+    received_ = false;
+    appIn_.clear();
+  }
+  
+  void handle(SelectionKey key)
+  {
+    try
+    {
+      if(state_ == State.CONNECTING)
+      {
+        if(key.isConnectable() && channel_.finishConnect())
+          connected();
+      }
+      else if(state_ == State.IDLE)
+      {
+        // The server has closed the connection, or sent something unsolicited.
+        close();
+      }
+      else
+      {
+        if(key.isReadable())
+          read();
+        
+        progress();
+      }
+    }
+    catch(IOException | RuntimeException e)
+    {
+      fail(e);
+    }
+  }
+  
+  void checkTimeout(long now)
+  {
+    if(deadline_ > 0 && now >= deadline_)
+    {
+      if(state_ == State.IDLE)
+        close();
+      else
+        fail(new SocketTimeoutException(state_ == State.CONNECTING ? "connect timed out" : "Read timed out"));
+    }
+  }
+  
+  void fail(Throwable cause)
+  {
+    if(state_ == State.CLOSED)
+      return;
+    
+    boolean idle = state_ == State.IDLE;
+    
+    close();
+    
+    if(idle)
+      return;
+    
+    /*
+     * The server probably closed this idle connection as we were reusing it, try again on a
+     * new one. Unless the request is idempotent it may have been processed already, and a
+     * timeout means that the server is slow rather than gone, so neither is retried.
+     */
+    if(reused_ && !received_ && cause instanceof IOException && !(cause instanceof SocketTimeoutException)
+        && request_.isIdempotent())
+    {
+      transport_.openConnection(endpoint_, request_, future_, timings_);
+    }
+    else
+    {
+      future_.completeExceptionally(cause);
+    }
+  }
+  
+  private void setDeadline(int timeoutMillis)
+  {
+    deadline_ = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
+  }
+
+  private void connected() throws IOException
+  {
+    long now = System.nanoTime();
+    
+    timings_.setConnectNanos(now - phaseStart_);
+    phaseStart_ = now;
+    state_ = State.SENDING;
+    setDeadline(request_.getReadTimeoutMillis());
+    
+    if(engine_ != null)
+    {
+      handshakeStart_ = System.currentTimeMillis();
+      engine_.beginHandshake();
+    }
+    
+    progress();
+  }
+  
+  private void read() throws IOException
+  {
+    ByteBuffer buf = engine_ == null ? appIn_ : netIn_;
+    int        n   = channel_.read(buf);
+    
+    if(n < 0)
+    {
+      eof_ = true;
+    }
+    else if(n > 0)
+    {
+      if(state_ == State.RECEIVING && firstByteAt_ == 0)
+      {
+        firstByteAt_ = System.nanoTime();
+        timings_.setTtfbNanos(firstByteAt_ - sentAt_);
+      }
+      
+      received_ = true;
+      setDeadline(request_.getReadTimeoutMillis());
+    }
+  }
+
+  /**
+   * Do as much as can be done without blocking, and then register interest in
+   * whatever is needed to make further progress.
+   * 
+   * @throws IOException If the exchange fails.
+   */
+  private void progress() throws IOException
+  {
+    while(true)
+    {
+      if(!flush())
+      {
+        key_.interestOps(SelectionKey.OP_WRITE);
+        return;
+      }
+      
+      if(engine_ != null && isHandshaking())
+      {
+        if(!handshake())
+        {
+          if(eof_)
+            throw new SSLHandshakeException("Remote host closed connection during handshake");
+          
+          key_.interestOps(SelectionKey.OP_READ);
+          return;
+        }
+      }
+      else if(state_ == State.SENDING)
+      {
+        if(engine_ != null && !handshakeDone_)
+        {
+          handshakeDone_ = true;
+          timings_.setTlsNanos(System.nanoTime() - phaseStart_);
+          // A resumed session was created by an earlier handshake.
+          transport_.handshakeCompleted(engine_.getSession().getCreationTime() < handshakeStart_);
+        }
+        
+        send();
+      }
+      else if(receive())
+      {
+        complete();
+        return;
+      }
+      else if(engine_ == null || !isHandshaking())
+      {
+        if(eof_)
+          throw new EOFException("Connection closed before the response was complete");
+        
+        key_.interestOps(SelectionKey.OP_READ);
+        return;
+      }
+    }
+  }
+
+  private boolean isHandshaking()
+  {
+    HandshakeStatus status = engine_.getHandshakeStatus();
+    
+    return status != HandshakeStatus.NOT_HANDSHAKING && status != HandshakeStatus.FINISHED;
+  }
+
+  /**
+   * Take one step in the TLS handshake.
+   * 
+   * @return false if more input is needed before any progress can be made.
+   * 
+   * @throws IOException If the handshake fails.
+   */
+  private boolean handshake() throws IOException
+  {
+    switch(engine_.getHandshakeStatus())
+    {
+      case NEED_TASK:
+        Runnable task;
+        
+        while((task = engine_.getDelegatedTask()) != null)
+          task.run();
+        
+        return true;
+        
+      case NEED_WRAP:
+        wrap(EMPTY);
+        return true;
+        
+      default:
+        return unwrap();
+    }
+  }
+  
+  private void send() throws IOException
+  {
+    if(engine_ == null)
+    {
+      int        length = Math.min(netOut_.remaining(), requestBytes_.remaining());
+      ByteBuffer chunk  = requestBytes_.duplicate();
+      
+      chunk.limit(chunk.position() + length);
+      netOut_.put(chunk);
+      requestBytes_.position(requestBytes_.position() + length);
+    }
+    else
+    {
+      wrap(requestBytes_);
+    }
+    
+    if(!requestBytes_.hasRemaining())
+    {
+      state_ = State.RECEIVING;
+      sentAt_ = System.nanoTime();
+    }
+  }
+  
+  /**
+   * Pass whatever input is available to the response parser.
+   * 
+   * @return true if the response is complete.
+   * 
+   * @throws IOException If the response is malformed.
+   */
+  private boolean receive() throws IOException
+  {
+    boolean more;
+    
+    do
+    {
+      more = engine_ != null && unwrap();
+      
+      appIn_.flip();
+      
+      boolean complete = parser_.consume(appIn_);
+      
+      appIn_.compact();
+      
+      if(complete)
+        return true;
+    } while(more);
+    
+    return eof_ && parser_.endOfStream();
+  }
+
+  private boolean flush() throws IOException
+  {
+    if(netOut_.position() == 0)
+      return true;
+    
+    netOut_.flip();
+    channel_.write(netOut_);
+    
+    boolean done = !netOut_.hasRemaining();
+    
+    netOut_.compact();
+    
+    return done;
+  }
+  
+  private void wrap(ByteBuffer src) throws IOException
+  {
+    SSLEngineResult result = engine_.wrap(src, netOut_);
+    
+    switch(result.getStatus())
+    {
+      case BUFFER_OVERFLOW:
+        netOut_ = enlarge(netOut_, engine_.getSession().getPacketBufferSize());
+        break;
+        
+      case CLOSED:
+        throw new SSLException("Connection closed by SSL engine");
+        
+      default:
+        break;
+    }
+  }
+  
+  /**
+   * Unwrap whatever input is available.
+   * 
+   * @return true if some progress was made.
+   * 
+   * @throws IOException If the input is invalid.
+   */
+  private boolean unwrap() throws IOException
+  {
+    SSLEngineResult result;
+    
+    netIn_.flip();
+    
+    try
+    {
+      result = engine_.unwrap(netIn_, appIn_);
+    }
+    finally
+    {
+      netIn_.compact();
+    }
+    
+    switch(result.getStatus())
+    {
+      case OK:
+        return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        
+      case BUFFER_OVERFLOW:
+        appIn_ = enlarge(appIn_, engine_.getSession().getApplicationBufferSize());
+        return true;
+        
+      case BUFFER_UNDERFLOW:
+        if(!netIn_.hasRemaining())
+          netIn_ = enlarge(netIn_, engine_.getSession().getPacketBufferSize());
+        return false;
+        
+      default:
+        eof_ = true;
+        return false;
+    }
+  }
+  
+  private static ByteBuffer enlarge(ByteBuffer buffer, int minCapacity)
+  {
+    ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(minCapacity, 2 * buffer.capacity()));
+    
+    buffer.flip();
+    newBuffer.put(buffer);
+    
+    return newBuffer;
+  }
+
+  private void complete()
+  {
+    Certificate[] certs = null;
+    
+    if(engine_ != null)
+    {
+      try
+      {
+        certs = engine_.getSession().getPeerCertificates();
+      }
+      catch (SSLPeerUnverifiedException e)
+      {
+        certs = null;
+      }
+    }
+    
+    if(firstByteAt_ != 0)
+      timings_.setBodyNanos(System.nanoTime() - firstByteAt_);
+    
+    TransportResponse response = TransportResponse.parse(request_, parser_.getHttpStatus(), parser_.getHeaders(),
+        parser_.getBody(), certs, timings_);
+    
+    if(parser_.isKeepAlive() && !eof_ && transport_.release(this))
+    {
+      state_ = State.IDLE;
+      deadline_ = System.currentTimeMillis() + IDLE_TIMEOUT_MILLIS;
+      key_.interestOps(SelectionKey.OP_READ);
+    }
+    else
+    {
+      close();
+    }
+    
+    future_.complete(response);
+  }
+  
+  private void close()
+  {
+    if(state_ == State.IDLE)
+      transport_.remove(this);
+    
+    state_ = State.CLOSED;
+    
+    if(key_ != null)
+      key_.cancel();
+    
+    if(channel_ != null)
+    {
+      try
+      {
+        channel_.close();
+      }
+      catch (IOException e)
+      {
+        // Nothing we can do, and we have what we need
+      }
+    }
+  }
+
+  private static ByteBuffer encode(TransportRequest request)
+  {
+    URL           url     = request.getUrl();
+    String        path    = url.getFile();
+    Set<String>   names   = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    StringBuilder s       = new StringBuilder();
+    byte[]        data    = request.getData() == null ? null : request.getData().getBytes(StandardCharsets.UTF_8);
+    
+    s.append(request.getMethod())
+      .append(' ')
+      .append(path.isEmpty() ? "/" : path)
+      .append(" HTTP/1.1\r\n");
+    
+    appendHeader(s, "Host", url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort());
+    
+    for(Map.Entry<String, String> entry : request.getHeaders().entrySet())
+    {
+      names.add(entry.getKey());
+      appendHeader(s, entry.getKey(), entry.getValue());
+    }
+    
+    if(!names.contains("Accept"))
+      appendHeader(s, "Accept", "*/*");
+    
+    if(data != null && !names.contains("Content-Type"))
+      appendHeader(s, "Content-Type", "application/json");
+    
+    if(data != null || !TransportRequest.GET.equals(request.getMethod()))
+      appendHeader(s, "Content-Length", String.valueOf(data == null ? 0 : data.length));
+    
+    s.append("\r\n");
+    
+    byte[]      head = s.toString().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer  buf  = ByteBuffer.allocate(head.length + (data == null ? 0 : data.length));
+    
+    buf.put(head);
+    
+    if(data != null)
+      buf.put(data);
+    
+    buf.flip();
+    
+    return buf;
+  }
+
+  private static void appendHeader(StringBuilder s, String name, String value)
+  {
+    s.append(name).append(": ").append(value).append("\r\n");
+  }
+}
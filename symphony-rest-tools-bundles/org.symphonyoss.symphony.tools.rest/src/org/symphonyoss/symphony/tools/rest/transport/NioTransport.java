@@ -0,0 +1,447 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.symphonyoss.symphony.tools.rest.util.ProgramFault;
+
+/**
+ * A transport which uses non-blocking I/O, so that a single selector thread can
+ * service any number of requests in flight at the same time.
+ * 
+ * Connections are kept alive where the server allows it, and an idle connection
+ * is reused for the next request to the same endpoint with the same TLS configuration,
+ * so that only the first request to each endpoint pays for the TCP and TLS handshakes.
+ * 
+ * Host names are resolved on the calling thread, everything else happens on the
+ * selector thread. Note that any dependent actions added to the returned futures
+ * without an executor will also run on the selector thread, so they should not block.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class NioTransport implements ITransport
+{
+  private static final long                         SELECT_TIMEOUT_MILLIS = 100;
+  private static final int                          MAX_IDLE_PER_ENDPOINT = 8;
+  
+  private final Selector                            selector_;
+  private final Thread                              thread_;
+  private final Queue<Exchange>                     pending_           = new ConcurrentLinkedQueue<>();
+  private final Map<Endpoint, Deque<NioConnection>> idle_              = new HashMap<>();
+  private final AtomicLong                          requestCount_      = new AtomicLong();
+  private final AtomicLong                          connectionCount_   = new AtomicLong();
+  private final AtomicLong                          fullHandshakes_    = new AtomicLong();
+  private final AtomicLong                          resumedHandshakes_ = new AtomicLong();
+  private final EndpointLatencies                   latencies_         = new EndpointLatencies();
+  private volatile boolean                          closed_;
+
+  public NioTransport()
+  {
+    try
+    {
+      selector_ = Selector.open();
+    }
+    catch (IOException e)
+    {
+      throw new ProgramFault("Unable to open selector", e);
+    }
+    
+    thread_ = new Thread(() -> run(), "NioTransport");
+    thread_.setDaemon(true);
+    thread_.start();
+  }
+
+  @Override
+  public CompletableFuture<TransportResponse> send(TransportRequest request)
+  {
+    CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+    
+    try
+    {
+      if(closed_)
+        throw new IOException("Transport is closed");
+      
+      URL     url    = request.getUrl();
+      boolean secure;
+      
+      switch(url.getProtocol())
+      {
+        case "https":
+          secure = true;
+          break;
+          
+        case "http":
+          secure = false;
+          break;
+          
+        default:
+          throw new ProtocolException("Unsupported protocol " + url.getProtocol());
+      }
+      
+      PhaseTimings      timings = new PhaseTimings();
+      long              start   = System.nanoTime();
+      int               port    = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+      InetSocketAddress address = new InetSocketAddress(HostResolver.getDefault().resolve(url.getHost()), port);
+      
+      timings.setDnsNanos(System.nanoTime() - start);
+      
+      TlsConfig  tlsConfig  = request.getTlsConfig();
+      SSLContext sslContext = null;
+      
+      if(secure)
+        sslContext = tlsConfig == null ? SSLContext.getDefault() : tlsConfig.getSslContext();
+      
+      Exchange exchange = new Exchange(new Endpoint(address, url.getHost(), port, tlsConfig, sslContext), request, future, timings);
+      
+      pending_.add(exchange);
+      selector_.wakeup();
+      
+      if(closed_ && pending_.remove(exchange))
+        throw new IOException("Transport is closed");
+    }
+    catch(IOException | GeneralSecurityException | RuntimeException e)
+    {
+      future.completeExceptionally(e);
+    }
+    
+    return future;
+  }
+
+  @Override
+  public long getRequestCount()
+  {
+    return requestCount_.get();
+  }
+
+  @Override
+  public long getConnectionCount()
+  {
+    return connectionCount_.get();
+  }
+
+  @Override
+  public long getFullHandshakeCount()
+  {
+    return fullHandshakes_.get();
+  }
+
+  @Override
+  public long getResumedHandshakeCount()
+  {
+    return resumedHandshakes_.get();
+  }
+
+  @Override
+  public EndpointLatencies getLatencies()
+  {
+    return latencies_;
+  }
+  
+  /**
+   * Record the completion of a TLS handshake.
+   * 
+   * @param resumed true if an existing session was resumed.
+   */
+  void handshakeCompleted(boolean resumed)
+  {
+    (resumed ? resumedHandshakes_ : fullHandshakes_).incrementAndGet();
+  }
+
+  private void run()
+  {
+    try
+    {
+      while(!closed_)
+      {
+        Exchange exchange;
+        
+        while((exchange = pending_.poll()) != null)
+          execute(exchange);
+        
+        selector_.select(SELECT_TIMEOUT_MILLIS);
+        
+        Iterator<SelectionKey> it = selector_.selectedKeys().iterator();
+        
+        while(it.hasNext())
+        {
+          SelectionKey key = it.next();
+          
+          it.remove();
+          
+          if(key.isValid())
+            ((NioConnection)key.attachment()).handle(key);
+        }
+        
+        long now = System.currentTimeMillis();
+        
+        for(SelectionKey key : selector_.keys())
+        {
+          if(key.isValid())
+            ((NioConnection)key.attachment()).checkTimeout(now);
+        }
+      }
+    }
+    catch(IOException | RuntimeException e)
+    {
+      closed_ = true;
+      failAll(e);
+    }
+    finally
+    {
+      failAll(new IOException("Transport is closed"));
+      
+      try
+      {
+        selector_.close();
+      }
+      catch (IOException e)
+      {
+        // Nothing more we can do
+      }
+    }
+  }
+  
+  private void execute(Exchange exchange)
+  {
+    requestCount_.incrementAndGet();
+    
+    Deque<NioConnection> idle       = idle_.get(exchange.endpoint_);
+    NioConnection        connection = idle == null ? null : idle.pollFirst();
+    
+    if(connection == null)
+      openConnection(exchange.endpoint_, exchange.request_, exchange.future_, exchange.timings_);
+    else
+      connection.reuse(exchange.request_, exchange.future_, exchange.timings_);
+  }
+  
+  /**
+   * Open a new connection for the given request.
+   * 
+   * Called only from the selector thread.
+   * 
+   * @param endpoint  The endpoint to connect to.
+   * @param request   The request to send.
+   * @param future    The future to be completed with the response.
+   * @param timings   The timings of the request.
+   */
+  void openConnection(Endpoint endpoint, TransportRequest request, CompletableFuture<TransportResponse> future,
+      PhaseTimings timings)
+  {
+    try
+    {
+      NioConnection connection = new NioConnection(this, endpoint, endpoint.createSslEngine());
+      
+      connectionCount_.incrementAndGet();
+      connection.open(selector_, request, future, timings);
+    }
+    catch(RuntimeException e)
+    {
+      future.completeExceptionally(e);
+    }
+  }
+  
+  /**
+   * Return the given connection to the idle pool.
+   * 
+   * Called only from the selector thread.
+   * 
+   * @param connection A connection whose exchange has completed.
+   * 
+   * @return true if the connection was added to the pool, false if it should be closed.
+   */
+  boolean release(NioConnection connection)
+  {
+    if(closed_)
+      return false;
+    
+    Deque<NioConnection> idle = idle_.computeIfAbsent(connection.getEndpoint(), (k) -> new ArrayDeque<>());
+    
+    if(idle.size() >= MAX_IDLE_PER_ENDPOINT)
+      return false;
+    
+    // Most recently used first, since it is the least likely to have been closed by the server.
+    idle.addFirst(connection);
+    
+    return true;
+  }
+  
+  /**
+   * Remove the given connection from the idle pool.
+   * 
+   * Called only from the selector thread.
+   * 
+   * @param connection An idle connection which is being closed.
+   */
+  void remove(NioConnection connection)
+  {
+    Deque<NioConnection> idle = idle_.get(connection.getEndpoint());
+    
+    if(idle != null)
+    {
+      idle.remove(connection);
+      
+      if(idle.isEmpty())
+        idle_.remove(connection.getEndpoint());
+    }
+  }
+
+  private void failAll(Throwable cause)
+  {
+    Exchange exchange;
+    
+    while((exchange = pending_.poll()) != null)
+      exchange.future_.completeExceptionally(cause);
+    
+    for(SelectionKey key : new ArrayList<>(selector_.keys()))
+      ((NioConnection)key.attachment()).fail(cause);
+    
+    idle_.clear();
+  }
+
+  @Override
+  public void close()
+  {
+    closed_ = true;
+    selector_.wakeup();
+  }
+  
+  /**
+   * A request waiting to be picked up by the selector thread.
+   */
+  private static class Exchange
+  {
+    private final Endpoint                             endpoint_;
+    private final TransportRequest                     request_;
+    private final CompletableFuture<TransportResponse> future_;
+    private final PhaseTimings                         timings_;
+    
+    private Exchange(Endpoint endpoint, TransportRequest request, CompletableFuture<TransportResponse> future,
+        PhaseTimings timings)
+    {
+      endpoint_ = endpoint;
+      request_ = request;
+      future_ = future;
+      timings_ = timings;
+    }
+  }
+  
+  /**
+   * The key of the idle connection pool, connections are interchangeable only if they are to the
+   * same host and port with the same TLS configuration, so that a connection authenticated with
+   * one client certificate is never used for a request which should be made with another.
+   * 
+   * The SSLContext is part of the key as well as the TlsConfig because a TlsConfig gets a new
+   * SSLContext when its keystore changes on disk, and connections made with the old one must
+   * not be used for requests made with the new one.
+   */
+  static class Endpoint
+  {
+    private final InetSocketAddress address_;
+    private final String            host_;
+    private final int               port_;
+    private final TlsConfig         tlsConfig_;
+    private final SSLContext        sslContext_;
+    
+    Endpoint(InetSocketAddress address, String host, int port, TlsConfig tlsConfig, SSLContext sslContext)
+    {
+      address_ = address;
+      host_ = host;
+      port_ = port;
+      tlsConfig_ = tlsConfig;
+      sslContext_ = sslContext;
+    }
+    
+    InetSocketAddress getAddress()
+    {
+      return address_;
+    }
+    
+    /**
+     * 
+     * @return A new client mode SSLEngine, or null if this is not a TLS endpoint.
+     */
+    SSLEngine createSslEngine()
+    {
+      if(sslContext_ == null)
+        return null;
+      
+      SSLEngine engine = sslContext_.createSSLEngine(host_, port_);
+      
+      engine.setUseClientMode(true);
+      
+      if(tlsConfig_ == null || !tlsConfig_.isTrustAllHostnames())
+      {
+        SSLParameters parameters = engine.getSSLParameters();
+        
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        engine.setSSLParameters(parameters);
+      }
+      
+      return engine;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hash(host_, port_, tlsConfig_, sslContext_);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if(!(obj instanceof Endpoint))
+        return false;
+      
+      Endpoint other = (Endpoint) obj;
+      
+      return host_.equals(other.host_) && port_ == other.port_ &&
+          Objects.equals(tlsConfig_, other.tlsConfig_) &&
+          sslContext_ == other.sslContext_;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time taken by each phase of a single request.
+ * 
+ * A phase which did not happen, such as the connect and TLS handshake of a request
+ * sent over a reused connection, or which the transport cannot see, is reported as -1.
+ * JCurlTransport cannot separate the TLS handshake from the TCP connect, so its
+ * connect time includes the handshake.
+ * 
+ * Written only by the transport while the request is in progress, and read only after
+ * the response has been returned.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class PhaseTimings
+{
+  private long    dnsNanos_     = -1;
+  private long    connectNanos_ = -1;
+  private long    tlsNanos_     = -1;
+  private long    ttfbNanos_    = -1;
+  private long    bodyNanos_    = -1;
+  private boolean reused_;
+
+  /**
+   * 
+   * @return The time taken to resolve the host name.
+   */
+  public long getDnsNanos()
+  {
+    return dnsNanos_;
+  }
+
+  void setDnsNanos(long dnsNanos)
+  {
+    dnsNanos_ = dnsNanos;
+  }
+
+  /**
+   * 
+   * @return The time taken to establish the TCP connection.
+   */
+  public long getConnectNanos()
+  {
+    return connectNanos_;
+  }
+
+  void setConnectNanos(long connectNanos)
+  {
+    connectNanos_ = connectNanos;
+  }
+
+  /**
+   * 
+   * @return The time taken by the TLS handshake.
+   */
+  public long getTlsNanos()
+  {
+    return tlsNanos_;
+  }
+
+  void setTlsNanos(long tlsNanos)
+  {
+    tlsNanos_ = tlsNanos;
+  }
+
+  /**
+   * 
+   * @return The time from sending the request to receiving the first byte of the response.
+   */
+  public long getTtfbNanos()
+  {
+    return ttfbNanos_;
+  }
+
+  void setTtfbNanos(long ttfbNanos)
+  {
+    ttfbNanos_ = ttfbNanos;
+  }
+
+  /**
+   * 
+   * @return The time from the first byte of the response to the last.
+   */
+  public long getBodyNanos()
+  {
+    return bodyNanos_;
+  }
+
+  void setBodyNanos(long bodyNanos)
+  {
+    bodyNanos_ = bodyNanos;
+  }
+
+  /**
+   * 
+   * @return true if the request was sent over a connection kept alive from an earlier request.
+   */
+  public boolean isReused()
+  {
+    return reused_;
+  }
+
+  void setReused(boolean reused)
+  {
+    reused_ = reused;
+  }
+  
+  @Override
+  public String toString()
+  {
+    StringBuilder s = new StringBuilder();
+    
+    append(s, "dns", dnsNanos_);
+    
+    if(reused_)
+      s.append(" reused connection");
+    
+    append(s, "connect", connectNanos_);
+    append(s, "tls", tlsNanos_);
+    append(s, "ttfb", ttfbNanos_);
+    append(s, "body", bodyNanos_);
+    
+    return s.toString().trim();
+  }
+
+  private static void append(StringBuilder s, String name, long nanos)
+  {
+    if(nanos >= 0)
+      s.append(String.format(" %s=%.1fms", name, nanos / (double)TimeUnit.MILLISECONDS.toNanos(1)));
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks which of a set of host:port endpoints accept TCP connections.
+ * 
+ * All connections are attempted at once from a single thread with non-blocking
+ * sockets, so a scan of any number of endpoints takes at most one connect timeout.
+ * Each connection is closed as soon as it is established, no data is sent.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class ReachabilityScanner
+{
+  private final int          connectTimeoutMillis_;
+  private final HostResolver resolver_;
+
+  /**
+   * Constructor.
+   * 
+   * @param connectTimeoutMillis  The time to wait for connections to be accepted.
+   */
+  public ReachabilityScanner(int connectTimeoutMillis)
+  {
+    this(connectTimeoutMillis, HostResolver.getDefault());
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param connectTimeoutMillis  The time to wait for connections to be accepted.
+   * @param resolver              The resolver used for host names.
+   */
+  public ReachabilityScanner(int connectTimeoutMillis, HostResolver resolver)
+  {
+    connectTimeoutMillis_ = connectTimeoutMillis;
+    resolver_ = resolver;
+  }
+  
+  /**
+   * Attempt a connection to each of the given endpoints.
+   * 
+   * Endpoints may be unresolved, host names are resolved through the resolver and
+   * any which do not resolve are treated as unreachable.
+   * 
+   * @param endpoints The endpoints to check.
+   * 
+   * @return The subset of the given endpoints which accepted a connection.
+   * 
+   * @throws IOException If a selector cannot be opened.
+   */
+  public Set<InetSocketAddress> scan(Collection<InetSocketAddress> endpoints) throws IOException
+  {
+    Set<InetSocketAddress>  reachable = new HashSet<>();
+    List<SocketChannel>     channels  = new ArrayList<>(endpoints.size());
+    
+    try(Selector selector = Selector.open())
+    {
+      for(InetSocketAddress endpoint : endpoints)
+      {
+        InetSocketAddress address;
+        
+        try
+        {
+          address = endpoint.isUnresolved()
+              ? new InetSocketAddress(resolver_.resolve(endpoint.getHostString()), endpoint.getPort())
+              : endpoint;
+        }
+        catch(UnknownHostException e)
+        {
+          continue;
+        }
+        
+        SocketChannel channel = SocketChannel.open();
+        
+        channels.add(channel);
+        
+        try
+        {
+          channel.configureBlocking(false);
+          
+          if(channel.connect(address))
+            reachable.add(endpoint);
+          else
+            channel.register(selector, SelectionKey.OP_CONNECT, endpoint);
+        }
+        catch(IOException e)
+        {
+          // Refused or unroutable, not reachable.
+        }
+      }
+      
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeoutMillis_);
+      
+      while(!selector.keys().isEmpty())
+      {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        
+        if(remaining <= 0)
+          break;
+        
+        selector.select(remaining);
+        
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        
+        while(it.hasNext())
+        {
+          SelectionKey key = it.next();
+          
+          it.remove();
+          key.cancel();
+          
+          try
+          {
+            if(((SocketChannel)key.channel()).finishConnect())
+              reachable.add((InetSocketAddress) key.attachment());
+          }
+          catch(IOException e)
+          {
+            // Refused, not reachable.
+          }
+        }
+        
+        selector.selectNow();
+      }
+    }
+    finally
+    {
+      for(SocketChannel channel : channels)
+      {
+        try
+        {
+          channel.close();
+        }
+        catch(IOException e)
+        {
+          // Nothing to do.
+        }
+      }
+    }
+    
+    return reachable;
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * The TLS configuration for a request, the client keystore and truststore and
+ * whether server certificate and host name checks are bypassed.
+ * 
+ * Instances are immutable and may be used as map keys.
+ * 
+ * SSLContexts are cached for the life of the process, one per distinct configuration,
+ * until the keystore or truststore file is changed on disk. Each SSLContext holds a
+ * client session cache keyed by host and port, so any command making a request to an
+ * endpoint with the same keystore and truststore as an earlier request, in the same or
+ * another command, can resume the TLS session rather than performing a full handshake.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class TlsConfig
+{
+  private static final TrustManager[] TRUST_ALL = new TrustManager[] { new X509TrustManager()
+  {
+    @Override
+    public X509Certificate[] getAcceptedIssuers()
+    {
+      return new X509Certificate[0];
+    }
+    
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType)
+    {
+    }
+    
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType)
+    {
+    }
+  }};
+  
+  private static final int                           SESSION_CACHE_SIZE      = 1000;
+  private static final int                           SESSION_TIMEOUT_SECONDS = 3600;
+  private static final Map<TlsConfig, CachedContext> SSL_CONTEXT_MAP         = new ConcurrentHashMap<>();
+  
+  private final String  keystore_;
+  private final String  storepass_;
+  private final String  storetype_;
+  private final String  truststore_;
+  private final String  trustpass_;
+  private final String  trusttype_;
+  private final boolean trustAllCertificates_;
+  private final boolean trustAllHostnames_;
+  
+  private TlsConfig(Builder builder)
+  {
+    keystore_ = builder.keystore_;
+    storepass_ = builder.storepass_;
+    storetype_ = builder.storetype_;
+    truststore_ = builder.truststore_;
+    trustpass_ = builder.trustpass_;
+    trusttype_ = builder.trusttype_;
+    trustAllCertificates_ = builder.trustAllCertificates_;
+    trustAllHostnames_ = builder.trustAllHostnames_;
+  }
+  
+  public static Builder newBuilder()
+  {
+    return new Builder();
+  }
+  
+  public static class Builder
+  {
+    private String  keystore_;
+    private String  storepass_;
+    private String  storetype_;
+    private String  truststore_;
+    private String  trustpass_;
+    private String  trusttype_;
+    private boolean trustAllCertificates_;
+    private boolean trustAllHostnames_;
+    
+    public Builder setKeystore(String keystore)
+    {
+      keystore_ = keystore;
+      return this;
+    }
+    
+    public Builder setStorepass(String storepass)
+    {
+      storepass_ = storepass;
+      return this;
+    }
+    
+    public Builder setStoretype(String storetype)
+    {
+      storetype_ = storetype;
+      return this;
+    }
+    
+    public Builder setTruststore(String truststore)
+    {
+      truststore_ = truststore;
+      return this;
+    }
+    
+    public Builder setTrustpass(String trustpass)
+    {
+      trustpass_ = trustpass;
+      return this;
+    }
+    
+    public Builder setTrusttype(String trusttype)
+    {
+      trusttype_ = trusttype;
+      return this;
+    }
+    
+    public Builder setTrustAllCertificates(boolean trustAllCertificates)
+    {
+      trustAllCertificates_ = trustAllCertificates;
+      return this;
+    }
+    
+    public Builder setTrustAllHostnames(boolean trustAllHostnames)
+    {
+      trustAllHostnames_ = trustAllHostnames;
+      return this;
+    }
+    
+    public TlsConfig build()
+    {
+      return new TlsConfig(this);
+    }
+  }
+  
+  /**
+   * Return the shared SSLContext for this configuration, creating it if necessary.
+   * 
+   * @return The SSLContext for this configuration.
+   * 
+   * @throws GeneralSecurityException  If the stores are invalid.
+   * @throws IOException                If the stores cannot be read.
+   */
+  public SSLContext getSslContext() throws GeneralSecurityException, IOException
+  {
+    String        keystoreStamp   = KeyStoreCache.getStamp(keystore_);
+    String        truststoreStamp = trustAllCertificates_ ? null : KeyStoreCache.getStamp(truststore_);
+    CachedContext cached          = SSL_CONTEXT_MAP.get(this);
+    
+    if(cached == null || !Objects.equals(keystoreStamp, cached.keystoreStamp_) ||
+        !Objects.equals(truststoreStamp, cached.truststoreStamp_))
+    {
+      SSLContext context = createSslContext();
+      
+      context.getClientSessionContext().setSessionCacheSize(SESSION_CACHE_SIZE);
+      context.getClientSessionContext().setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+      
+      cached = new CachedContext(keystoreStamp, truststoreStamp, context);
+      SSL_CONTEXT_MAP.put(this, cached);
+    }
+    
+    return cached.context_;
+  }
+  
+  /**
+   * Create a new SSLContext for this configuration, loading the keystore and truststore.
+   * 
+   * @return A new SSLContext.
+   * 
+   * @throws GeneralSecurityException  If the stores are invalid.
+   * @throws IOException                If the stores cannot be read.
+   */
+  public SSLContext createSslContext() throws GeneralSecurityException, IOException
+  {
+    KeyManager[]    keyManagers   = null;
+    TrustManager[]  trustManagers = null;
+    
+    if(isSet(keystore_))
+      keyManagers = KeyStoreCache.getKeyManagers(keystore_, storetype_, storepass_);
+    
+    if(trustAllCertificates_)
+    {
+      trustManagers = TRUST_ALL;
+    }
+    else if(isSet(truststore_))
+    {
+      trustManagers = KeyStoreCache.getTrustManagers(truststore_, trusttype_, trustpass_);
+    }
+    
+    SSLContext context = SSLContext.getInstance("TLS");
+    
+    context.init(keyManagers, trustManagers, null);
+    
+    return context;
+  }
+  
+  private static boolean isSet(String s)
+  {
+    return s != null && s.length() > 0;
+  }
+  
+
+  public String getKeystore()
+  {
+    return keystore_;
+  }
+
+  public String getStorepass()
+  {
+    return storepass_;
+  }
+
+  public String getStoretype()
+  {
+    return storetype_;
+  }
+
+  public String getTruststore()
+  {
+    return truststore_;
+  }
+
+  public String getTrustpass()
+  {
+    return trustpass_;
+  }
+
+  public String getTrusttype()
+  {
+    return trusttype_;
+  }
+
+  public boolean isTrustAllCertificates()
+  {
+    return trustAllCertificates_;
+  }
+
+  public boolean isTrustAllHostnames()
+  {
+    return trustAllHostnames_;
+  }
+
+  private static class CachedContext
+  {
+    private final String     keystoreStamp_;
+    private final String     truststoreStamp_;
+    private final SSLContext context_;
+    
+    private CachedContext(String keystoreStamp, String truststoreStamp, SSLContext context)
+    {
+      keystoreStamp_ = keystoreStamp;
+      truststoreStamp_ = truststoreStamp;
+      context_ = context;
+    }
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return Objects.hash(keystore_, storepass_, storetype_, truststore_, trustpass_, trusttype_,
+        trustAllCertificates_, trustAllHostnames_);
+  }
+
+  @Override
+  public boolean equals(Object obj)
+  {
+    if(this == obj)
+      return true;
+    
+    if(!(obj instanceof TlsConfig))
+      return false;
+    
+    TlsConfig other = (TlsConfig) obj;
+    
+    return Objects.equals(keystore_, other.keystore_) &&
+        Objects.equals(storepass_, other.storepass_) &&
+        Objects.equals(storetype_, other.storetype_) &&
+        Objects.equals(truststore_, other.truststore_) &&
+        Objects.equals(trustpass_, other.trustpass_) &&
+        Objects.equals(trusttype_, other.trusttype_) &&
+        trustAllCertificates_ == other.trustAllCertificates_ &&
+        trustAllHostnames_ == other.trustAllHostnames_;
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.symphonyoss.symphony.tools.rest.util.Deadline;
+
+/**
+ * An immutable HTTP request to be sent by an ITransport.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class TransportRequest
+{
+  public static final String       GET  = "GET";
+  public static final String       POST = "POST";
+
+  private final String             method_;
+  private final URL                url_;
+  private final Map<String,String> headers_;
+  private final String             data_;
+  private final Map<String,String> extracts_;
+  private final Set<Integer>       expectedStatus_;
+  private final TlsConfig          tlsConfig_;
+  private final int                connectTimeoutMillis_;
+  private final int                readTimeoutMillis_;
+  private final Deadline           deadline_;
+  private final boolean            parseJson_;
+  
+  private TransportRequest(Builder builder)
+  {
+    method_ = builder.method_;
+    url_ = builder.url_;
+    headers_ = Collections.unmodifiableMap(new LinkedHashMap<>(builder.headers_));
+    data_ = builder.data_;
+    extracts_ = Collections.unmodifiableMap(new LinkedHashMap<>(builder.extracts_));
+    expectedStatus_ = Collections.unmodifiableSet(builder.expectedStatus_.isEmpty() ?
+        Collections.singleton(200) : new HashSet<>(builder.expectedStatus_));
+    tlsConfig_ = builder.tlsConfig_;
+    connectTimeoutMillis_ = builder.connectTimeoutMillis_;
+    readTimeoutMillis_ = builder.readTimeoutMillis_;
+    deadline_ = builder.deadline_;
+    parseJson_ = builder.parseJson_;
+  }
+
+  public static Builder newBuilder()
+  {
+    return new Builder();
+  }
+  
+  public static class Builder
+  {
+    private String                   method_   = GET;
+    private URL                      url_;
+    private final Map<String,String> headers_  = new LinkedHashMap<>();
+    private String                   data_;
+    private final Map<String,String> extracts_ = new LinkedHashMap<>();
+    private final Set<Integer>       expectedStatus_ = new HashSet<>();
+    private TlsConfig                tlsConfig_;
+    private int                      connectTimeoutMillis_;
+    private int                      readTimeoutMillis_;
+    private Deadline                 deadline_ = Deadline.NONE;
+    private boolean                  parseJson_ = true;
+    
+    public Builder setMethod(String method)
+    {
+      method_ = method;
+      return this;
+    }
+    
+    public Builder setUrl(URL url)
+    {
+      url_ = url;
+      return this;
+    }
+    
+    public Builder addHeader(String name, String value)
+    {
+      headers_.put(name, value);
+      return this;
+    }
+    
+    public Builder setData(String data)
+    {
+      data_ = data;
+      return this;
+    }
+    
+    /**
+     * Extract the given (possibly dotted) field from a JSON response body
+     * as the tag with the given label.
+     * 
+     * @param label The tag name.
+     * @param node  The field name.
+     * 
+     * @return This builder.
+     */
+    public Builder addExtract(String label, String node)
+    {
+      extracts_.put(label, node);
+      return this;
+    }
+    
+    /**
+     * Add an HTTP status which is expected, and whose response should therefore be processed.
+     * If no status is added then only 200 is expected.
+     * 
+     * @param status An expected HTTP status.
+     * 
+     * @return This builder.
+     */
+    public Builder addExpectedStatus(int status)
+    {
+      expectedStatus_.add(status);
+      return this;
+    }
+    
+    public Builder setTlsConfig(TlsConfig tlsConfig)
+    {
+      tlsConfig_ = tlsConfig;
+      return this;
+    }
+    
+    public Builder setConnectTimeoutMillis(int connectTimeoutMillis)
+    {
+      connectTimeoutMillis_ = connectTimeoutMillis;
+      return this;
+    }
+    
+    public Builder setReadTimeoutMillis(int readTimeoutMillis)
+    {
+      readTimeoutMillis_ = readTimeoutMillis;
+      return this;
+    }
+    
+    /**
+     * Set a deadline for the request, the connect and read timeouts are reduced
+     * as necessary so that the request fails with a DeadlineExceededException
+     * rather than continuing beyond it.
+     * 
+     * @param deadline The deadline for the request.
+     * 
+     * @return This builder.
+     */
+    public Builder setDeadline(Deadline deadline)
+    {
+      deadline_ = deadline;
+      return this;
+    }
+    
+    /**
+     * Set whether a JSON response body is parsed into a tree, which is the default.
+     * 
+     * Callers which stream the body themselves from TransportResponse.getBody() should
+     * turn this off. No JsonNode is then returned and extracts are ignored.
+     * 
+     * @param parseJson Whether to parse a JSON response body.
+     * 
+     * @return This builder.
+     */
+    public Builder setParseJson(boolean parseJson)
+    {
+      parseJson_ = parseJson;
+      return this;
+    }
+    
+    public TransportRequest build()
+    {
+      if(url_ == null)
+        throw new IllegalStateException("URL is required");
+      
+      return new TransportRequest(this);
+    }
+  }
+
+  public String getMethod()
+  {
+    return method_;
+  }
+  
+  /**
+   * 
+   * @return true if sending this request twice has the same effect as sending it once,
+   * so that it may be retried after a failure which leaves its fate unknown.
+   */
+  public boolean isIdempotent()
+  {
+    switch(method_)
+    {
+      case GET:
+      case "HEAD":
+      case "PUT":
+      case "DELETE":
+      case "OPTIONS":
+        return true;
+        
+      default:
+        return false;
+    }
+  }
+
+  public URL getUrl()
+  {
+    return url_;
+  }
+
+  public Map<String, String> getHeaders()
+  {
+    return headers_;
+  }
+
+  public String getData()
+  {
+    return data_;
+  }
+
+  public Map<String, String> getExtracts()
+  {
+    return extracts_;
+  }
+
+  public Set<Integer> getExpectedStatus()
+  {
+    return expectedStatus_;
+  }
+  
+  public boolean isExpectedStatus(int status)
+  {
+    return expectedStatus_.contains(status);
+  }
+
+  /**
+   * 
+   * @return true if a JSON response body should be parsed into a tree.
+   */
+  public boolean isParseJson()
+  {
+    return parseJson_;
+  }
+
+  /**
+   * 
+   * @return The TLS configuration for an https request, or null to use the JVM defaults.
+   */
+  public TlsConfig getTlsConfig()
+  {
+    return tlsConfig_;
+  }
+
+  /**
+   * 
+   * @return The connect timeout, limited to the time remaining before the deadline.
+   */
+  public int getConnectTimeoutMillis()
+  {
+    return deadline_.limitTimeout(connectTimeoutMillis_);
+  }
+
+  /**
+   * 
+   * @return The read timeout, limited to the time remaining before the deadline.
+   */
+  public int getReadTimeoutMillis()
+  {
+    return deadline_.limitTimeout(readTimeoutMillis_);
+  }
+
+  public Deadline getDeadline()
+  {
+    return deadline_;
+  }
+}
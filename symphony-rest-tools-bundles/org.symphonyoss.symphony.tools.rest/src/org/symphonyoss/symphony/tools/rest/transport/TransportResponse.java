@@ -0,0 +1,203 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.transport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The response to a TransportRequest.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class TransportResponse
+{
+  private static final ObjectMapper       OBJECT_MAPPER = new ObjectMapper();
+  
+  private final int                       httpStatus_;
+  private final String                    contentType_;
+  private final Map<String, List<String>> headers_;
+  private final byte[]                    body_;
+  private final JsonNode                  jsonNode_;
+  private final Map<String, String>       tags_;
+  private final Certificate[]             serverCertificates_;
+  private final PhaseTimings              timings_;
+
+  TransportResponse(int httpStatus, String contentType, Map<String, List<String>> headers, byte[] body,
+      JsonNode jsonNode, Map<String, String> tags, Certificate[] serverCertificates, PhaseTimings timings)
+  {
+    httpStatus_ = httpStatus;
+    contentType_ = contentType;
+    headers_ = headers == null ? Collections.emptyMap() : headers;
+    body_ = body;
+    jsonNode_ = jsonNode;
+    tags_ = tags == null ? Collections.emptyMap() : tags;
+    serverCertificates_ = serverCertificates;
+    timings_ = timings;
+  }
+  
+  /**
+   * Create a response from the raw parts of an HTTP response, parsing the body as JSON
+   * if the content type indicates that it is JSON, and extracting any tags required by
+   * the given request.
+   * 
+   * @param request             The request to which this is a response.
+   * @param httpStatus          The HTTP status.
+   * @param headers             The response headers.
+   * @param body                The response body.
+   * @param serverCertificates  The server certificate chain, or null if this is not an https response.
+   * @param timings             The time taken by each phase of the request.
+   * 
+   * @return A new response.
+   */
+  static TransportResponse parse(TransportRequest request, int httpStatus, Map<String, List<String>> headers,
+      byte[] body, Certificate[] serverCertificates, PhaseTimings timings)
+  {
+    Map<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    
+    headerMap.putAll(headers);
+    
+    String      contentType = getMediaType(headerMap);
+    JsonNode    jsonNode    = null;
+    Map<String, String> tags = new HashMap<>();
+    
+    if(request.isParseJson() && request.isExpectedStatus(httpStatus) && contentType != null && contentType.endsWith("json") && body.length > 0)
+    {
+      try
+      {
+        jsonNode = OBJECT_MAPPER.readTree(body);
+      }
+      catch(IOException e)
+      {
+        // Not valid JSON, callers treat this the same as a non-JSON response.
+        jsonNode = null;
+      }
+      
+      for(Map.Entry<String, String> entry : request.getExtracts().entrySet())
+      {
+        JsonNode node = jsonNode;
+        
+        for(String field : entry.getValue().split("\\."))
+        {
+          node = node == null ? null : node.get(field);
+        }
+        
+        if(node != null && !node.isNull())
+          tags.put(entry.getKey(), node.asText());
+      }
+    }
+    
+    return new TransportResponse(httpStatus, contentType, headerMap, body, jsonNode, tags, serverCertificates, timings);
+  }
+
+  private static String getMediaType(Map<String, List<String>> headers)
+  {
+    List<String> values = headers.get("Content-Type");
+    
+    if(values == null || values.isEmpty())
+      return null;
+    
+    String contentType = values.get(0);
+    int    i           = contentType.indexOf(';');
+    
+    if(i != -1)
+      contentType = contentType.substring(0, i);
+    
+    return contentType.trim().toLowerCase();
+  }
+
+  public int getHttpStatus()
+  {
+    return httpStatus_;
+  }
+
+  /**
+   * 
+   * @return The media type of the response, without any parameters.
+   */
+  public String getContentType()
+  {
+    return contentType_;
+  }
+
+  public Map<String, List<String>> getHeaders()
+  {
+    return headers_;
+  }
+
+  /**
+   * 
+   * @return The response body, or null if the transport does not provide it. The
+   * body is always provided if the request did not ask for JSON to be parsed.
+   */
+  public byte[] getBody()
+  {
+    return body_;
+  }
+  
+  public String getBodyAsString()
+  {
+    return body_ == null ? null : new String(body_, StandardCharsets.UTF_8);
+  }
+
+  public JsonNode getJsonNode()
+  {
+    return jsonNode_;
+  }
+
+  public String getTag(String label)
+  {
+    return tags_.get(label);
+  }
+
+  public Map<String, String> getTags()
+  {
+    return tags_;
+  }
+
+  public Certificate[] getServerCertificates()
+  {
+    return serverCertificates_;
+  }
+
+  /**
+   * 
+   * @return The time taken by each phase of the request.
+   */
+  public PhaseTimings getTimings()
+  {
+    return timings_;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable point in time by which some work must be complete.
+ * 
+ * A deadline can be split into phases, each of which is given a share of the
+ * time remaining, so that an early phase which hangs cannot consume the budget
+ * of those which follow it.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class Deadline
+{
+  /** A deadline which never expires. */
+  public static final Deadline NONE = new Deadline(false, 0);
+  
+  private final boolean bounded_;
+  private final long    expiresNanos_;
+  
+  private Deadline(boolean bounded, long expiresNanos)
+  {
+    bounded_ = bounded;
+    expiresNanos_ = expiresNanos;
+  }
+  
+  /**
+   * @param millis  A number of milliseconds from now.
+   * 
+   * @return A deadline which expires the given number of milliseconds from now.
+   */
+  public static Deadline afterMillis(long millis)
+  {
+    return new Deadline(true, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+  
+  /**
+   * @return false if this deadline never expires.
+   */
+  public boolean isBounded()
+  {
+    return bounded_;
+  }
+  
+  /**
+   * @return true if this deadline has passed.
+   */
+  public boolean isExpired()
+  {
+    return bounded_ && System.nanoTime() - expiresNanos_ >= 0;
+  }
+  
+  /**
+   * @return The number of milliseconds until this deadline expires, zero if
+   * it has expired, or Long.MAX_VALUE if it never expires.
+   */
+  public long getRemainingMillis()
+  {
+    if(!bounded_)
+      return Long.MAX_VALUE;
+    
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresNanos_ - System.nanoTime()));
+  }
+  
+  /**
+   * @param other Another deadline.
+   * 
+   * @return Whichever of this and the given deadline expires first.
+   */
+  public Deadline earliest(Deadline other)
+  {
+    if(!other.bounded_)
+      return this;
+    
+    if(!bounded_)
+      return other;
+    
+    return expiresNanos_ - other.expiresNanos_ <= 0 ? this : other;
+  }
+  
+  /**
+   * Return a deadline for a phase of the work covered by this one.
+   * 
+   * @param share The fraction of the remaining time to give to the phase, between 0 and 1.
+   * 
+   * @return A deadline which expires after the given share of the time remaining on this one.
+   */
+  public Deadline getPhase(double share)
+  {
+    if(!bounded_)
+      return this;
+    
+    return afterMillis((long)(getRemainingMillis() * share));
+  }
+  
+  /**
+   * Limit a timeout so that it expires no later than this deadline.
+   * 
+   * @param timeoutMillis A timeout in milliseconds, zero meaning no timeout.
+   * 
+   * @return The given timeout, reduced to the time remaining on this deadline if that is shorter.
+   */
+  public int limitTimeout(int timeoutMillis)
+  {
+    if(!bounded_)
+      return timeoutMillis;
+    
+    // A timeout of zero means infinite, so never return zero for a bounded deadline.
+    int remaining = (int)Math.max(1, Math.min(Integer.MAX_VALUE, getRemainingMillis()));
+    
+    return timeoutMillis == 0 ? remaining : Math.min(timeoutMillis, remaining);
+  }
+}
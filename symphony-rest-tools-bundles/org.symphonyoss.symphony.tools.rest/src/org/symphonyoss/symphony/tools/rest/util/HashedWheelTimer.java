@@ -0,0 +1,269 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer for very large numbers of tasks, each of which is run once after a delay
+ * and may then be rescheduled.
+ * 
+ * Time is divided into ticks and tasks are held in a circular array of buckets, one per
+ * tick, each a doubly linked list. Scheduling, rescheduling and cancelling a task are
+ * therefore constant time operations however many tasks are scheduled. The cost is that
+ * tasks run up to one tick late.
+ * 
+ * Tasks are run on the given executor, not on the timer thread, so a slow task does not
+ * delay the others.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class HashedWheelTimer implements AutoCloseable
+{
+  private final long      tickNanos_;
+  private final Timeout[] wheel_;
+  private final int       mask_;
+  private final Executor  executor_;
+  private final Thread    thread_;
+  private final long      startNanos_;
+  private long            currentTick_;
+  private int             size_;
+  private volatile boolean closed_;
+
+  /**
+   * Constructor.
+   * 
+   * @param name        The name of the timer thread.
+   * @param tickMillis  The length of a tick, tasks run up to this long after they are due.
+   * @param wheelSize   The number of buckets, rounded up to a power of 2. A task whose delay
+   *                    is longer than wheelSize ticks waits for the wheel to go round more than once.
+   * @param executor    The executor on which tasks are run.
+   */
+  public HashedWheelTimer(String name, long tickMillis, int wheelSize, Executor executor)
+  {
+    if(tickMillis <= 0 || wheelSize <= 0)
+      throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+    
+    int size = Integer.highestOneBit(wheelSize);
+    
+    if(size < wheelSize)
+      size <<= 1;
+    
+    tickNanos_ = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    wheel_ = new Timeout[size];
+    mask_ = size - 1;
+    executor_ = executor;
+    startNanos_ = System.nanoTime();
+    
+    thread_ = new Thread(() -> run(), name);
+    thread_.setDaemon(true);
+    thread_.start();
+  }
+  
+  /**
+   * Schedule the given task.
+   * 
+   * @param task        The task to run.
+   * @param delayMillis The delay after which it should run.
+   * 
+   * @return A handle with which the task can be cancelled or rescheduled.
+   */
+  public Timeout schedule(Runnable task, long delayMillis)
+  {
+    Timeout timeout = new Timeout(task);
+    
+    timeout.reschedule(delayMillis);
+    
+    return timeout;
+  }
+  
+  /**
+   * @return The number of tasks waiting to run.
+   */
+  public synchronized int size()
+  {
+    return size_;
+  }
+  
+  /**
+   * Stop the timer, tasks which have not yet run never will.
+   */
+  @Override
+  public void close()
+  {
+    closed_ = true;
+    thread_.interrupt();
+  }
+  
+  private void run()
+  {
+    List<Timeout> expired = new ArrayList<>();
+    
+    while(!closed_)
+    {
+      long sleepNanos = startNanos_ + (currentTick_ + 1) * tickNanos_ - System.nanoTime();
+      
+      if(sleepNanos > 0)
+      {
+        try
+        {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+        catch (InterruptedException e)
+        {
+          // Either closed, in which case the loop exits, or spurious.
+          continue;
+        }
+      }
+      
+      synchronized(this)
+      {
+        currentTick_++;
+        
+        Timeout timeout = wheel_[(int)(currentTick_ & mask_)];
+        
+        while(timeout != null)
+        {
+          Timeout next = timeout.next_;
+          
+          if(timeout.deadlineTick_ <= currentTick_)
+          {
+            timeout.unlink();
+            expired.add(timeout);
+          }
+          
+          timeout = next;
+        }
+      }
+      
+      for(Timeout timeout : expired)
+      {
+        try
+        {
+          executor_.execute(timeout.task_);
+        }
+        catch(RejectedExecutionException e)
+        {
+          // The executor has been shut down, which only happens when we are closing.
+        }
+      }
+      
+      expired.clear();
+    }
+  }
+  
+  /**
+   * A scheduled task.
+   */
+  public class Timeout
+  {
+    private final Runnable task_;
+    private long           deadlineTick_;
+    private int            bucket_ = -1;
+    private Timeout        prev_;
+    private Timeout        next_;
+    
+    private Timeout(Runnable task)
+    {
+      task_ = task;
+    }
+    
+    /**
+     * Schedule this task to run after the given delay, whether or not it is currently
+     * scheduled or has already run.
+     * 
+     * @param delayMillis The delay after which the task should run.
+     */
+    public void reschedule(long delayMillis)
+    {
+      long ticks = Math.max(1, (TimeUnit.MILLISECONDS.toNanos(delayMillis) + tickNanos_ - 1) / tickNanos_);
+      
+      synchronized(HashedWheelTimer.this)
+      {
+        unlink();
+        
+        deadlineTick_ = currentTick_ + ticks;
+        bucket_ = (int)(deadlineTick_ & mask_);
+        next_ = wheel_[bucket_];
+        
+        if(next_ != null)
+          next_.prev_ = this;
+        
+        wheel_[bucket_] = this;
+        size_++;
+      }
+    }
+    
+    /**
+     * Cancel this task if it has not yet run.
+     * 
+     * @return true if the task was scheduled and now will not run.
+     */
+    public boolean cancel()
+    {
+      synchronized(HashedWheelTimer.this)
+      {
+        return unlink();
+      }
+    }
+    
+    /**
+     * @return true if this task is waiting to run.
+     */
+    public boolean isScheduled()
+    {
+      synchronized(HashedWheelTimer.this)
+      {
+        return bucket_ != -1;
+      }
+    }
+    
+    private boolean unlink()
+    {
+      if(bucket_ == -1)
+        return false;
+      
+      if(prev_ == null)
+        wheel_[bucket_] = next_;
+      else
+        prev_.next_ = next_;
+      
+      if(next_ != null)
+        next_.prev_ = prev_;
+      
+      prev_ = null;
+      next_ = null;
+      bucket_ = -1;
+      size_--;
+      
+      return true;
+    }
+  }
+}
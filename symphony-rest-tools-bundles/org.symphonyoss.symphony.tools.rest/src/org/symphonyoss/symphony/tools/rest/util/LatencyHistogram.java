@@ -0,0 +1,162 @@
+/*
+ *
+ *
+ * Copyright 2017 Symphony Communication Services, LLC.
+ *
+ * Licensed to The Symphony Software Foundation (SSF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.symphonyoss.symphony.tools.rest.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in fixed memory, however many are recorded.
+ * 
+ * Values are recorded in microseconds into buckets whose width grows with the value,
+ * eight to each power of two, so percentiles are accurate to within 12.5% from a
+ * microsecond up to several days. The maximum is recorded exactly.
+ * 
+ * Recording is thread safe and lock free.
+ * 
+ * @author bruce.skingle
+ *
+ */
+public class LatencyHistogram
+{
+  private static final int       SUB_BUCKET_BITS  = 3;
+  private static final int       SUB_BUCKETS      = 1 << SUB_BUCKET_BITS;
+  private static final int       MAX_EXPONENT     = 40;
+  private static final long      MAX_VALUE        = (1L << MAX_EXPONENT) - 1;
+  private static final int       BUCKET_COUNT     = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray  buckets_         = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong       count_           = new AtomicLong();
+  private final AtomicLong       max_             = new AtomicLong();
+  private final AtomicLong       last_            = new AtomicLong();
+
+  /**
+   * Record a latency.
+   * 
+   * @param nanos The latency in nanoseconds.
+   */
+  public void record(long nanos)
+  {
+    long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    
+    buckets_.incrementAndGet(getIndex(micros));
+    count_.incrementAndGet();
+    max_.accumulateAndGet(micros, Math::max);
+    last_.set(micros);
+  }
+  
+  /**
+   * 
+   * @return The number of latencies recorded.
+   */
+  public long getCount()
+  {
+    return count_.get();
+  }
+  
+  /**
+   * 
+   * @return The largest latency recorded in microseconds.
+   */
+  public long getMaxMicros()
+  {
+    return max_.get();
+  }
+  
+  /**
+   * 
+   * @return The most recent latency recorded in microseconds.
+   */
+  public long getLastMicros()
+  {
+    return last_.get();
+  }
+  
+  /**
+   * Return the given percentile, as the upper bound of the bucket containing it.
+   * 
+   * @param percentile A percentile between 0 and 100.
+   * 
+   * @return The latency in microseconds which the given percentage of latencies
+   * do not exceed, or 0 if none have been recorded.
+   */
+  public long getPercentileMicros(double percentile)
+  {
+    long count  = count_.get();
+    long target = Math.max(1, (long)Math.ceil(count * percentile / 100));
+    long seen   = 0;
+    
+    if(count == 0)
+      return 0;
+    
+    for(int i=0 ; i<BUCKET_COUNT ; i++)
+    {
+      seen += buckets_.get(i);
+      
+      if(seen >= target)
+        return Math.min(getUpperBound(i), max_.get());
+    }
+    
+    return max_.get();
+  }
+  
+  @Override
+  public String toString()
+  {
+    return String.format("p50=%s p90=%s p99=%s max=%s (%d samples)",
+        toMillis(getPercentileMicros(50)),
+        toMillis(getPercentileMicros(90)),
+        toMillis(getPercentileMicros(99)),
+        toMillis(getMaxMicros()),
+        getCount());
+  }
+  
+  private static String toMillis(long micros)
+  {
+    return String.format("%.1fms", micros / 1000.0);
+  }
+  
+  private static int getIndex(long micros)
+  {
+    if(micros < SUB_BUCKETS)
+      return (int)micros;
+    
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int shift    = exponent - SUB_BUCKET_BITS;
+    
+    return (shift + 1) * SUB_BUCKETS + (int)((micros >> shift) & (SUB_BUCKETS - 1));
+  }
+  
+  private static long getUpperBound(int index)
+  {
+    if(index < SUB_BUCKETS)
+      return index;
+    
+    int shift = index / SUB_BUCKETS - 1;
+    
+    return ((SUB_BUCKETS + index % SUB_BUCKETS + 1L) << shift) - 1;
+  }
+}
@@ -35,11 +35,12 @@ public class CommandLineParser
   private static final String    EM_DASH   = "\u2014";
 
   private String                 commandName_;
-  private Map<String, Flag<?>>   flagMap_  = new HashMap<>();
-  private List<Flag<?>>          flags_    = new ArrayList<>();
+  private Map<String, Flag<?>>   flagMap_      = new HashMap<>();
+  private List<Flag<?>>          flags_        = new ArrayList<>();
   private Flag<?>                argSetter_;
   private int                    argc_;
-  private Map<Character, Switch> switches_ = new HashMap<>();
+  private Map<Character, Switch> switches_     = new HashMap<>();
+  private Map<String, Switch>    longSwitches_ = new HashMap<>();
   
   public CommandLineParser(String commandName)
   {
@@ -54,6 +55,15 @@ public class CommandLineParser
     if(flagMap_.containsKey(String.valueOf(aswitch.getName())))
       throw new ProgramFault("Switch duplicates flag \"" + aswitch.getName() + "\"");
     
+    if(aswitch.getLongName() != null)
+    {
+      if(flagMap_.containsKey(aswitch.getLongName()))
+        throw new ProgramFault("Switch duplicates flag \"" + aswitch.getLongName() + "\"");
+      
+      if(longSwitches_.put(aswitch.getLongName(), aswitch) != null)
+        throw new ProgramFault("Duplicate switch \"" + aswitch.getLongName() + "\"");
+    }
+    
     return this;
   }
   
@@ -70,7 +80,7 @@ public class CommandLineParser
     {
       for(String name : flag.getNames())
       {
-        if(name.length()==1 && switches_.containsKey(name.charAt(0)))
+        if((name.length()==1 && switches_.containsKey(name.charAt(0))) || longSwitches_.containsKey(name))
           throw new ProgramFault("Flag duplicates switch \"" + name + "\"");
         
         if(flagMap_.put(name, flag) != null)
@@ -206,6 +216,12 @@ public class CommandLineParser
   {
     Flag<?> flag = flagMap_.get(flagName);
     
+    if(flag == null && longSwitches_.containsKey(flagName))
+    {
+      longSwitches_.get(flagName).increment();
+      return;
+    }
+    
     if(flag == null)
     {
       throw new CommandLineParserFault("Unrecognized flag \"" + arg + "\"");
@@ -29,6 +29,7 @@ public class Switch
   private final String label_;
   private final String help_;
   private final int    max_;
+  private String       longName_;
   private int          count_;
   
   public Switch(char name, String label, String help)
@@ -44,6 +45,19 @@ public class Switch
     max_ = max;
   }
   
+  /**
+   * Allow this switch to also be set as --longName on the command line.
+   * 
+   * @param longName  The long name of the switch.
+   * 
+   * @return This switch.
+   */
+  public Switch withLongName(String longName)
+  {
+    longName_ = longName;
+    return this;
+  }
+  
   public void setCount(int count)
   {
     count_ = count> max_ ? max_ : count;
@@ -71,6 +85,11 @@ public class Switch
     return name_;
   }
 
+  public String getLongName()
+  {
+    return longName_;
+  }
+
   public String getLabel()
   {
     return label_;
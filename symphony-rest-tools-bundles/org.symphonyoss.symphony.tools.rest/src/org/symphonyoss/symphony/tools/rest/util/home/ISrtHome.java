@@ -25,6 +25,8 @@ package org.symphonyoss.symphony.tools.rest.util.home;
 
 import java.io.File;
 
+import javax.annotation.Nullable;
+
 import org.symphonyoss.symphony.tools.rest.model.IPodManager;
 
 public interface ISrtHome extends IDefaultsProvider
@@ -37,5 +39,18 @@ public interface ISrtHome extends IDefaultsProvider
 
   void saveSessionToken(String hostName, String tokenName, String token);
 
+  /**
+   * @param hostName  The name of a probed host.
+   * @param identity  The identity of the client certificate used by the probe, or null if there was none.
+   * 
+   * @return The file in which the results of probing the given host with the given identity are cached.
+   */
+  File getDiscoveryFile(String hostName, @Nullable String identity);
+  
+  /**
+   * @return The directory in which the status history of model objects is kept.
+   */
+  File getHistoryDir();
+
   IPodManager getPodManager();
 }
@@ -32,12 +32,17 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.EnumSet;
 import java.util.Properties;
 
+import javax.annotation.Nullable;
+
 import org.symphonyoss.symphony.tools.rest.console.IConsole;
 import org.symphonyoss.symphony.tools.rest.model.IPodManager;
 import org.symphonyoss.symphony.tools.rest.model.PodManager;
@@ -50,6 +55,8 @@ public class SrtHome implements ISrtHome
   private final String      setBy_;
   private final File        configDir_;
   private final File        sessionDir_;
+  private final File        discoveryDir_;
+  private final File        historyDir_;
   private final IConsole     console_;
   private final IPodManager podManager_;
   private File              defaultsFile_;
@@ -82,7 +89,12 @@ public class SrtHome implements ISrtHome
     sessionDir_ = new File(home_, "session");
     sessionDir_.mkdirs();
     
-    podManager_ = new PodManager(configDir_);
+    discoveryDir_ = new File(home_, "discovery");
+    discoveryDir_.mkdirs();
+    
+    historyDir_ = new File(home_, "history");
+    
+    podManager_ = new PodManager(configDir_, console_);
     
     defaultsFile_ = new File(home_, "defaults.properties");
     defaultsProps_ = new Properties();
@@ -209,6 +221,35 @@ public class SrtHome implements ISrtHome
     }
   }
 
+  @Override
+  public File getDiscoveryFile(String hostName, @Nullable String identity)
+  {
+    if(identity == null)
+      return new File(discoveryDir_, hostName + ".json");
+    
+    // The identity may contain a path, so a digest of it is used in the file name.
+    try
+    {
+      byte[]        digest  = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+      StringBuilder s       = new StringBuilder(hostName).append('-');
+      
+      for(int i=0 ; i<8 ; i++)
+        s.append(String.format("%02x", digest[i]));
+      
+      return new File(discoveryDir_, s.append(".json").toString());
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new ProgramFault(e);
+    }
+  }
+
+  @Override
+  public File getHistoryDir()
+  {
+    return historyDir_;
+  }
+
   @Override
   public IPodManager getPodManager()
   {